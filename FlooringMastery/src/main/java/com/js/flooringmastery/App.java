@@ -1,13 +1,195 @@
 package com.js.flooringmastery;
 
+import com.js.flooringmastery.api.OrderApiServer;
+import com.js.flooringmastery.controller.BatchController;
 import com.js.flooringmastery.controller.OrderController;
-import org.springframework.context.ApplicationContext;
+import com.js.flooringmastery.controller.ReplicaController;
+import com.js.flooringmastery.dao.OrderDao;
+import com.js.flooringmastery.dao.OrderDaoImpl;
+import com.js.flooringmastery.dao.OrderFileLayout;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.StoreSummary;
+import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.service.StoreGroup;
+import com.js.flooringmastery.ui.OrderView;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+
 public class App {
-    public static void main(String[] args) {
-        ApplicationContext ctx = new ClassPathXmlApplicationContext("applicationContext.xml");
-        OrderController controller = ctx.getBean("orderController", OrderController.class);
-        controller.run();
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--convert-layout")) {
+            convertLayout(args); /// Before the context, which would open (and fully load) the order files
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--batch") && batchResultFile(args) == null) {
+            /// Batch results go to stdout, so whatever the service and DAOs print goes to stderr
+            System.setOut(System.err);
+        }
+        ClassPathXmlApplicationContext ctx = new ClassPathXmlApplicationContext("applicationContext.xml");
+        try {
+            if (args.length > 0 && args[0].equals("--batch")) {
+                runBatch(ctx, args);
+            } else if (args.length > 0 && args[0].equals("--migrate-db")) {
+                migrate(ctx, "databaseOrderDao");
+            } else if (args.length > 0 && args[0].equals("--migrate-mapped")) {
+                migrate(ctx, "mappedOrderDao");
+            } else if (args.length > 0 && args[0].equals("--archive")) {
+                archive(ctx, args);
+            } else if (args.length > 0 && args[0].equals("--http")) {
+                runHttp(ctx, args);
+            } else if (args.length > 0 && args[0].equals("--replica")) {
+                /// Read-only console following another App on the same data root
+                ctx.getBean("replicaController", ReplicaController.class).run();
+            } else if (args.length > 0 && args[0].equals("--stores-report")) {
+                storesReport(ctx, args);
+            } else if (args.length > 0 && args[0].equals("--store")) {
+                runStore(ctx, args);
+            } else {
+                OrderController controller = ctx.getBean("orderController", OrderController.class);
+                controller.run();
+            }
+        } finally {
+            ctx.close();
+        }
+    }
+
+    /// --migrate-db / --migrate-mapped: copies the Orders_*.txt files into the store used by the
+    /// "database" / "mapped" profile, one saveOrdersForDate per day
+    private static void migrate(ClassPathXmlApplicationContext ctx, String targetBean) {
+        OrderDao files = ctx.getBean("fileOrderDao", OrderDao.class);
+        OrderDao target = ctx.getBean(targetBean, OrderDao.class);
+        long start = System.nanoTime();
+        int copied = 0;
+        try {
+            for (LocalDate date : files.getOrderDates()) {
+                List<Order> orders = files.getAllOrders(date);
+                target.saveOrdersForDate(date, orders);
+                copied += orders.size();
+            }
+            System.out.printf("Migrated %d orders from %d days in %d ms.%n", copied, files.getOrderDates().size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (PersistenceException e) {
+            System.out.println("Error migrating orders: " + e.getMessage());
+        }
+    }
+
+    /// --convert-layout daily|monthly: moves the hot order days into the given layout (per-day files or
+    /// monthly segments); start the app with -Dflooring.layout=DAILY|MONTHLY to match afterwards
+    private static void convertLayout(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: --convert-layout daily|monthly");
+            return;
+        }
+        OrderFileLayout to = OrderFileLayout.valueOf(args[1].toUpperCase());
+        OrderFileLayout from = to == OrderFileLayout.DAILY ? OrderFileLayout.MONTHLY : OrderFileLayout.DAILY;
+        long start = System.nanoTime();
+        try {
+            int converted = OrderDaoImpl.convertLayout(from, to);
+            System.out.printf("Converted %d days to the %s layout in %d ms. Run with -Dflooring.layout=%s from now on.%n",
+                    converted, args[1].toLowerCase(), (System.nanoTime() - start) / 1_000_000, to);
+        } catch (PersistenceException e) {
+            System.out.println("Error converting orders: " + e.getMessage());
+        }
+    }
+
+    /// --archive [days]: moves order days older than the given number of days (default 365)
+    /// into Orders/Archive under the data root
+    private static void archive(ClassPathXmlApplicationContext ctx, String[] args) {
+        int days = args.length >= 2 ? Integer.parseInt(args[1]) : 365;
+        LocalDate cutoff = LocalDate.now().minusDays(days);
+        OrderDaoImpl files = ctx.getBean("fileOrderDao", OrderDaoImpl.class);
+        try {
+            int archived = files.archiveDaysBefore(cutoff);
+            System.out.println("Archived " + archived + " days before " + cutoff + ".");
+        } catch (PersistenceException e) {
+            System.out.println("Error archiving orders: " + e.getMessage());
+        }
+    }
+
+    /// --stores-report [from [to]]: order totals per store and for all stores (-Dflooring.stores=north,south),
+    /// dates as yyyy-MM-dd, everything by default
+    private static void storesReport(ClassPathXmlApplicationContext ctx, String[] args) {
+        LocalDate from = args.length >= 2 ? LocalDate.parse(args[1]) : LocalDate.MIN;
+        LocalDate to = args.length >= 3 ? LocalDate.parse(args[2]) : LocalDate.MAX;
+        StoreGroup stores = ctx.getBean("storeGroup", StoreGroup.class);
+        if (stores.getStoreIds().isEmpty()) {
+            System.out.println("No stores, list them with -Dflooring.stores=north,south");
+            return;
+        }
+        long start = System.nanoTime();
+        List<StoreSummary> summaries = stores.summarize(from, to);
+        System.out.printf("%-12s %6s %8s %14s %14s %16s%n", "Store", "Days", "Orders", "Area", "Tax", "Total");
+        for (StoreSummary summary : summaries) {
+            printSummary(summary);
+        }
+        printSummary(StoreSummary.combine("All stores", summaries));
+        System.out.printf("Summarized %d stores in %d ms.%n", summaries.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void printSummary(StoreSummary summary) {
+        System.out.printf("%-12s %6d %8d %14s %14s %16s%n", summary.getStoreId(), summary.getDays(),
+                summary.getOrders(), summary.getArea(), summary.getTaxAmount(), summary.getTotal());
+    }
+
+    /// --store <id>: the order menu for one store of the group
+    private static void runStore(ClassPathXmlApplicationContext ctx, String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: --store <id>");
+            return;
+        }
+        StoreGroup stores = ctx.getBean("storeGroup", StoreGroup.class);
+        if (!stores.getStoreIds().contains(args[1])) {
+            System.out.println("No store " + args[1] + ". Stores: " + String.join(", ", stores.getStoreIds()));
+            return;
+        }
+        new OrderController(stores.getService(args[1]), ctx.getBean("view", OrderView.class)).run();
+    }
+
+    /// API mode: --http [port], serves until the process is stopped
+    private static void runHttp(ClassPathXmlApplicationContext ctx, String[] args) throws IOException {
+        int port = args.length >= 2 ? Integer.parseInt(args[1]) : 8080;
+        OrderApiServer server = ctx.getBean("orderApiServer", OrderApiServer.class);
+        server.start(port);
+        System.out.println("Order API listening on http://localhost:" + server.getPort() + "/api/orders");
+
+        Thread main = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            main.interrupt();
+        }));
+        try {
+            Thread.currentThread().join(); /// Wait for Ctrl-C
+        } catch (InterruptedException e) {
+            /// Shutting down
+        }
+    }
+
+    /// Headless mode: --batch <commandFile or -> [--out <resultFile>]
+    private static void runBatch(ClassPathXmlApplicationContext ctx, String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: --batch <commandFile or - for stdin> [--out <resultFile>]");
+            return;
+        }
+        BatchController batch = ctx.getBean("batchController", BatchController.class);
+
+        try (BufferedReader commands = args[1].equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(args[1]));
+             Writer output = batchResultFile(args) != null
+                     ? Files.newBufferedWriter(Paths.get(batchResultFile(args)))
+                     : new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8)) {
+            batch.run(commands, output);
+        }
+    }
+
+    /// The file after --out, null when results go to stdout
+    private static String batchResultFile(String[] args) {
+        return args.length >= 4 && args[2].equals("--out") ? args[3] : null;
     }
 }
@@ -0,0 +1,225 @@
+package com.js.flooringmastery.api;
+
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderPage;
+import com.js.flooringmastery.dto.Quote;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Just enough JSON for the order API: writes orders, reads flat request objects
+public final class Json {
+
+    private Json() {}
+
+    public static String order(Order order) {
+        StringBuilder out = new StringBuilder(320);
+        appendOrder(out, order);
+        return out.toString();
+    }
+
+    public static String orders(List<Order> orders) {
+        StringBuilder out = new StringBuilder(orders.size() * 320 + 2).append('[');
+        for (int i = 0; i < orders.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendOrder(out, orders.get(i));
+        }
+        return out.append(']').toString();
+    }
+
+    public static String page(OrderPage page) {
+        return "{\"orders\":" + orders(page.getOrders())
+                + ",\"total\":" + page.getTotalOrders()
+                + ",\"hasMore\":" + page.hasMore()
+                + ",\"nextAfter\":" + page.getLastOrderNumber() + '}';
+    }
+
+    public static String quote(Quote quote) {
+        StringBuilder out = new StringBuilder(256).append("{\"state\":");
+        appendString(out, quote.getTax().getStateAbbreviation());
+        appendNumber(out, "taxRate", quote.getTax().getTaxRate());
+        out.append(",\"productType\":");
+        appendString(out, quote.getProduct().getProductType());
+        appendNumber(out, "area", quote.getArea());
+        appendNumber(out, "costPerSquareFoot", quote.getProduct().getCostPerSquareFoot());
+        appendNumber(out, "laborCostPerSquareFoot", quote.getProduct().getLaborCostPerSquareFoot());
+        appendNumber(out, "materialCost", quote.getMaterialCost());
+        appendNumber(out, "laborCost", quote.getLaborCost());
+        appendNumber(out, "tax", quote.getTaxAmount());
+        appendNumber(out, "total", quote.getTotal());
+        return out.append('}').toString();
+    }
+
+    public static String error(String message) {
+        StringBuilder out = new StringBuilder("{\"error\":");
+        appendString(out, message);
+        return out.append('}').toString();
+    }
+
+    public static String status(String status) {
+        StringBuilder out = new StringBuilder("{\"status\":");
+        appendString(out, status);
+        return out.append('}').toString();
+    }
+
+    private static void appendOrder(StringBuilder out, Order order) {
+        out.append("{\"orderNumber\":").append(order.getOrderNumber());
+        out.append(",\"orderDate\":\"").append(order.getOrderDate()).append('"');
+        out.append(",\"customerName\":");
+        appendString(out, order.getCustomerName());
+        out.append(",\"state\":");
+        appendString(out, order.getTax().getStateAbbreviation());
+        appendNumber(out, "taxRate", order.getTax().getTaxRate());
+        out.append(",\"productType\":");
+        appendString(out, order.getProduct().getProductType());
+        appendNumber(out, "area", order.getArea());
+        appendNumber(out, "costPerSquareFoot", order.getProduct().getCostPerSquareFoot());
+        appendNumber(out, "laborCostPerSquareFoot", order.getProduct().getLaborCostPerSquareFoot());
+        appendNumber(out, "materialCost", order.getMaterialCost());
+        appendNumber(out, "laborCost", order.getLaborCost());
+        appendNumber(out, "tax", order.getTaxAmount());
+        appendNumber(out, "total", order.getTotal());
+        out.append('}');
+    }
+
+    private static void appendNumber(StringBuilder out, String name, BigDecimal value) {
+        out.append(",\"").append(name).append("\":").append(value == null ? "null" : value.toPlainString());
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /// Parses a flat object of string, number, boolean or null values (nested values aren't supported)
+    public static Map<String, String> parseObject(String json) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        Parser parser = new Parser(json);
+        parser.expect('{');
+        if (parser.peek() == '}') {
+            parser.pos++;
+            return fields;
+        }
+        while (true) {
+            String name = parser.readString();
+            parser.expect(':');
+            fields.put(name, parser.readValue());
+            char next = parser.next();
+            if (next == '}') {
+                return fields;
+            }
+            if (next != ',') {
+                throw new IllegalArgumentException("Malformed JSON at position " + (parser.pos - 1) + ".");
+            }
+        }
+    }
+
+    private static class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            if (pos >= text.length()) {
+                throw new IllegalArgumentException("Unexpected end of JSON.");
+            }
+            return text.charAt(pos);
+        }
+
+        char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        void expect(char expected) {
+            if (next() != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "' at position " + (pos - 1) + ".");
+            }
+        }
+
+        String readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            int start = pos;
+            while (pos < text.length() && ",}] \t\r\n".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.isEmpty() || c == '{' || c == '[') {
+                throw new IllegalArgumentException("Unsupported JSON value at position " + start + ".");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw new IllegalArgumentException("Unterminated JSON string.");
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    throw new IllegalArgumentException("Unterminated JSON string.");
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) {
+                            throw new IllegalArgumentException("Unterminated JSON string.");
+                        }
+                        value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+        }
+    }
+}
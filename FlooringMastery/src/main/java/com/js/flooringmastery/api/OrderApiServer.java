@@ -0,0 +1,266 @@
+package com.js.flooringmastery.api;
+
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderPage;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.exception.InvalidOrderDataException;
+import com.js.flooringmastery.exception.NoSuchOrderException;
+import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.metrics.Metrics;
+import com.js.flooringmastery.metrics.OperationTimer;
+import com.js.flooringmastery.service.OrderService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/// Local HTTP/JSON API over OrderService
+///   GET    /api/orders?date=2030-01-15           orders for a day
+///   GET    /api/orders?date=...&limit=50&after=12   one page (or &offset=100), with total/hasMore/nextAfter
+///   GET    /api/orders/2030-01-15/12             one order
+///   GET    /api/orders/12                        one order by number alone
+///   POST   /api/orders                           create {date, customerName, state, productType, area}
+///   PUT    /api/orders/2030-01-15/12             edit {customerName, state, productType, area}, missing keeps
+///   DELETE /api/orders/2030-01-15/12             remove
+///   GET    /api/quote?state=CA&productType=Tile&area=249   price without creating an order
+///   POST   /api/export                           export all data to Backup/DataExport.txt
+public class OrderApiServer {
+    private static final OperationTimer REQUESTS = Metrics.timer("api.request");
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final OrderService service;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public OrderApiServer(OrderService service) {
+        this.service = service;
+    }
+
+    public synchronized void start(int port) throws IOException {
+        if (server != null) {
+            return;
+        }
+        /// Headers and body go out as separate small writes, without TCP_NODELAY each response waits ~40 ms on delayed ACKs
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        executor = newRequestExecutor();
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/api/orders", this::handleOrders);
+        server.createContext("/api/quote", this::handleQuote);
+        server.createContext("/api/export", this::handleExport);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(1);
+        executor.shutdown();
+        server = null;
+    }
+
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /// One virtual thread per request on Java 21+, a bounded platform pool on older JVMs
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 4), runnable -> {
+                Thread thread = new Thread(runnable, "api-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handleOrders(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            String method = exchange.getRequestMethod();
+
+            /// path is ["", "api", "orders", date?, orderNumber?] or ["", "api", "orders", orderNumber]
+            if (path.length == 3 && method.equals("GET")) {
+                Map<String, String> params = queryParams(exchange);
+                LocalDate date = LocalDate.parse(requireParam(params, "date"));
+                if (params.containsKey("limit")) {
+                    send(exchange, 200, Json.page(getPage(date, params)));
+                } else {
+                    send(exchange, 200, Json.orders(service.getOrdersByDate(date)));
+                }
+            } else if (path.length == 3 && method.equals("POST")) {
+                send(exchange, 201, Json.order(createOrder(Json.parseObject(readBody(exchange)))));
+            } else if (path.length == 4 && method.equals("GET")) {
+                send(exchange, 200, Json.order(service.getOrderByNumber(Integer.parseInt(path[3]))));
+            } else if (path.length == 5) {
+                LocalDate date = LocalDate.parse(path[3]);
+                int orderNumber = Integer.parseInt(path[4]);
+                switch (method) {
+                    case "GET" -> send(exchange, 200, Json.order(service.getOrder(date, orderNumber)));
+                    case "PUT" -> send(exchange, 200,
+                            Json.order(editOrder(date, orderNumber, Json.parseObject(readBody(exchange)))));
+                    case "DELETE" -> {
+                        service.removeOrder(date, orderNumber);
+                        send(exchange, 204, null);
+                    }
+                    default -> send(exchange, 405, Json.error("Method not allowed."));
+                }
+            } else {
+                send(exchange, 404, Json.error("Unknown resource."));
+            }
+        } catch (NoSuchOrderException e) {
+            send(exchange, 404, Json.error(e.getMessage()));
+        } catch (InvalidOrderDataException | IllegalArgumentException | DateTimeParseException e) {
+            send(exchange, 400, Json.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            REQUESTS.recordError();
+            send(exchange, 500, Json.error("Internal error: " + e.getMessage()));
+        } finally {
+            REQUESTS.recordSince(start);
+        }
+    }
+
+    private void handleQuote(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, Json.error("Method not allowed."));
+                return;
+            }
+            Map<String, String> params = queryParams(exchange);
+            send(exchange, 200, Json.quote(service.quote(requireParam(params, "state"),
+                    requireParam(params, "productType"), new BigDecimal(requireParam(params, "area")))));
+        } catch (InvalidOrderDataException | IllegalArgumentException e) {
+            send(exchange, 400, Json.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            REQUESTS.recordError();
+            send(exchange, 500, Json.error("Internal error: " + e.getMessage()));
+        } finally {
+            REQUESTS.recordSince(start);
+        }
+    }
+
+    private void handleExport(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                send(exchange, 405, Json.error("Method not allowed."));
+                return;
+            }
+            service.exportAllData();
+            send(exchange, 200, Json.status("exported"));
+        } catch (PersistenceException | RuntimeException e) {
+            REQUESTS.recordError();
+            send(exchange, 500, Json.error("Export failed: " + e.getMessage()));
+        } finally {
+            REQUESTS.recordSince(start);
+        }
+    }
+
+    private OrderPage getPage(LocalDate date, Map<String, String> params) {
+        int limit = Integer.parseInt(params.get("limit"));
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        if (params.containsKey("offset")) {
+            return service.getOrdersPage(date, Integer.parseInt(params.get("offset")), limit);
+        }
+        return service.getOrdersAfter(date, Integer.parseInt(params.getOrDefault("after", "0")), limit);
+    }
+
+    private Order createOrder(Map<String, String> body) {
+        String customerName = requireParam(body, "customerName");
+        if (customerName.isBlank() || !customerName.matches("[a-zA-Z0-9., ]+")) {
+            throw new InvalidOrderDataException("Customer name must contain only letters, numbers, spaces, commas, and periods.");
+        }
+        Order order = new Order(0, customerName,
+                new Tax(requireParam(body, "state"), "", BigDecimal.ZERO),
+                new Product(requireParam(body, "productType"), BigDecimal.ZERO, BigDecimal.ZERO),
+                new BigDecimal(requireParam(body, "area")),
+                LocalDate.parse(requireParam(body, "date")));
+        return service.createOrder(order);
+    }
+
+    private Order editOrder(LocalDate date, int orderNumber, Map<String, String> body) {
+        String customerName = body.getOrDefault("customerName", "");
+        if (customerName == null) {
+            customerName = "";
+        }
+        if (!customerName.isBlank() && !customerName.matches("[a-zA-Z0-9., ]+")) {
+            throw new InvalidOrderDataException("Customer name must contain only letters, numbers, spaces, commas, and periods.");
+        }
+        BigDecimal area = body.get("area") == null ? null : new BigDecimal(body.get("area"));
+        if (area != null && area.compareTo(BigDecimal.valueOf(100)) < 0) {
+            throw new InvalidOrderDataException("Minimum order size is 100 sq ft.");
+        }
+
+        Order existing = service.getOrder(date, orderNumber);
+        return service.editOrder(existing, customerName,
+                body.get("state") == null ? "" : body.get("state"),
+                body.get("productType") == null ? "" : body.get("productType"),
+                area);
+    }
+
+    private static String requireParam(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing '" + name + "'.");
+        }
+        return value;
+    }
+
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
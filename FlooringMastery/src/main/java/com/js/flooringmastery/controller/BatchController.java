@@ -0,0 +1,192 @@
+package com.js.flooringmastery.controller;
+
+import com.js.flooringmastery.dto.AuditMismatch;
+import com.js.flooringmastery.dto.AuditReport;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Quote;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.service.OrderService;
+import org.springframework.stereotype.Controller;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/// Runs order commands from a file without the interactive menu, for overnight automation
+/// Each command is one pipe-delimited line, blank fields mean "keep" for edit:
+///   create|2030-01-15|Ada Lovelace|CA|Tile|249.00
+///   edit|2030-01-15|12|New Name|WA||300
+///   remove|2030-01-15|12
+///   display|2030-01-15
+///   quote|CA|Tile|249.00
+///   export
+///   audit
+/// Results are written one line each: OK|..., ORDER|..., ERR|lineNumber|command|message, then DONE|commands|errors|millis
+@Controller
+public class BatchController {
+    private static final String DELIMITER = "|";
+    private static final String SPLIT_PATTERN = "\\|";
+
+    private final OrderService service;
+
+    public BatchController(OrderService service) {
+        this.service = service;
+    }
+
+    /// Returns the number of commands that failed
+    public int run(BufferedReader commands, Writer output) throws IOException {
+        long start = System.nanoTime();
+        PrintWriter out = new PrintWriter(new BufferedWriter(output, 1 << 16), false);
+        int lineNumber = 0;
+        int executed = 0;
+        int errors = 0;
+
+        String line;
+        while ((line = commands.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue; /// Blank lines and comments
+            }
+
+            String[] fields = line.split(SPLIT_PATTERN, -1);
+            executed++;
+            try {
+                execute(fields, out);
+            } catch (RuntimeException e) {
+                errors++;
+                out.println(String.join(DELIMITER, "ERR", String.valueOf(lineNumber), fields[0],
+                        String.valueOf(e.getMessage())));
+            }
+        }
+
+        out.println(String.join(DELIMITER, "DONE", String.valueOf(executed), String.valueOf(errors),
+                String.valueOf((System.nanoTime() - start) / 1_000_000)));
+        out.flush();
+        return errors;
+    }
+
+    private void execute(String[] fields, PrintWriter out) {
+        switch (fields[0].toLowerCase()) {
+            case "create" -> create(fields, out);
+            case "edit" -> edit(fields, out);
+            case "remove" -> remove(fields, out);
+            case "display" -> display(fields, out);
+            case "quote" -> quote(fields, out);
+            case "export" -> export(out);
+            case "audit" -> audit(out);
+            default -> throw new IllegalArgumentException("Unknown command.");
+        }
+    }
+
+    /// create|date|customerName|state|productType|area
+    private void create(String[] fields, PrintWriter out) {
+        requireFields(fields, 6);
+        String customerName = fields[2];
+        if (customerName.isBlank() || !customerName.matches("[a-zA-Z0-9., ]+")) {
+            throw new IllegalArgumentException("Customer name must contain only letters, numbers, spaces, commas, and periods.");
+        }
+        Order order = new Order(0, customerName, new Tax(fields[3], "", BigDecimal.ZERO),
+                new Product(fields[4], BigDecimal.ZERO, BigDecimal.ZERO), new BigDecimal(fields[5]),
+                LocalDate.parse(fields[1]));
+
+        Order created = service.createOrder(order);
+        out.println(String.join(DELIMITER, "OK", "create", String.valueOf(created.getOrderNumber()),
+                created.getOrderDate().toString(), created.getTotal().toString()));
+    }
+
+    /// edit|date|orderNumber|customerName|state|productType|area
+    private void edit(String[] fields, PrintWriter out) {
+        requireFields(fields, 7);
+        String customerName = fields[3];
+        if (!customerName.isBlank() && !customerName.matches("[a-zA-Z0-9., ]+")) {
+            throw new IllegalArgumentException("Customer name must contain only letters, numbers, spaces, commas, and periods.");
+        }
+        BigDecimal area = fields[6].isBlank() ? null : new BigDecimal(fields[6]);
+        if (area != null && area.compareTo(BigDecimal.valueOf(100)) < 0) {
+            throw new IllegalArgumentException("Minimum order size is 100 sq ft.");
+        }
+
+        Order existing = service.getOrder(LocalDate.parse(fields[1]), Integer.parseInt(fields[2]));
+        Order updated = service.editOrder(existing, customerName, fields[4], fields[5], area);
+        out.println(String.join(DELIMITER, "OK", "edit", String.valueOf(updated.getOrderNumber()),
+                updated.getOrderDate().toString(), updated.getTotal().toString()));
+    }
+
+    /// remove|date|orderNumber
+    private void remove(String[] fields, PrintWriter out) {
+        requireFields(fields, 3);
+        service.removeOrder(LocalDate.parse(fields[1]), Integer.parseInt(fields[2]));
+        out.println(String.join(DELIMITER, "OK", "remove", fields[2], fields[1]));
+    }
+
+    /// quote|state|productType|area, nothing is saved
+    private void quote(String[] fields, PrintWriter out) {
+        requireFields(fields, 4);
+        Quote quote = service.quote(fields[1], fields[2], new BigDecimal(fields[3]));
+        out.println(String.join(DELIMITER, "OK", "quote",
+                quote.getTax().getStateAbbreviation(),
+                quote.getProduct().getProductType(),
+                quote.getArea().toString(),
+                quote.getMaterialCost().toString(),
+                quote.getLaborCost().toString(),
+                quote.getTaxAmount().toString(),
+                quote.getTotal().toString()));
+    }
+
+    /// display|date
+    private void display(String[] fields, PrintWriter out) {
+        requireFields(fields, 2);
+        LocalDate date = LocalDate.parse(fields[1]);
+        int count = 0;
+        for (Order order : service.getOrdersByDate(date)) {
+            out.println(String.join(DELIMITER, "ORDER",
+                    String.valueOf(order.getOrderNumber()),
+                    order.getOrderDate().toString(),
+                    order.getCustomerName(),
+                    order.getTax().getStateAbbreviation(),
+                    order.getTax().getTaxRate().toString(),
+                    order.getProduct().getProductType(),
+                    order.getArea().toString(),
+                    order.getMaterialCost().toString(),
+                    order.getLaborCost().toString(),
+                    order.getTaxAmount().toString(),
+                    order.getTotal().toString()));
+            count++;
+        }
+        out.println(String.join(DELIMITER, "OK", "display", fields[1], String.valueOf(count)));
+    }
+
+    /// export: writes Backup/DataExport.txt before answering
+    private void export(PrintWriter out) {
+        try {
+            service.exportAllData();
+        } catch (PersistenceException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        out.println(String.join(DELIMITER, "OK", "export"));
+    }
+
+    /// audit: one MISMATCH line per order whose stored costs are off, then OK|audit|scanned|mismatches|millis
+    private void audit(PrintWriter out) {
+        AuditReport report = service.auditOrders();
+        for (AuditMismatch mismatch : report.getMismatches()) {
+            out.println(String.join(DELIMITER, "MISMATCH",
+                    String.valueOf(mismatch.getOrderNumber()),
+                    mismatch.getOrderDate().toString(),
+                    String.join(",", mismatch.getFields()),
+                    mismatch.getStoredTotal().toString(),
+                    mismatch.getExpectedTotal().toString()));
+        }
+        out.println(String.join(DELIMITER, "OK", "audit", String.valueOf(report.getOrdersScanned()),
+                String.valueOf(report.getMismatches().size()), String.valueOf(report.getElapsedNanos() / 1_000_000)));
+    }
+
+    private void requireFields(String[] fields, int expected) {
+        if (fields.length != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " fields but found " + fields.length + ".");
+        }
+    }
+}
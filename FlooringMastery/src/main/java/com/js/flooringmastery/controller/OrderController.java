@@ -1,9 +1,13 @@
 package com.js.flooringmastery.controller;
 
+import com.js.flooringmastery.dto.ExportJob;
 import com.js.flooringmastery.dto.Order;
 import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.RepriceReport;
 import com.js.flooringmastery.dto.Tax;
 import com.js.flooringmastery.exception.InvalidOrderDataException;
+import com.js.flooringmastery.exception.OrderNotSavedException;
+import com.js.flooringmastery.metrics.Metrics;
 import com.js.flooringmastery.service.OrderService;
 import com.js.flooringmastery.ui.OrderView;
 import org.springframework.stereotype.Controller;
@@ -26,22 +30,31 @@ public class OrderController {
         boolean keepRunning = true;
         while (keepRunning) {
             int choice = view.displayMenu();
-            switch (choice) {
-                case 1 -> displayOrders();
-                case 2 -> addOrder();
-                case 3 -> editOrder();
-                case 4 -> removeOrder();
-                case 5 -> exportData();
-                case 6 -> keepRunning = false;
+            try {
+                switch (choice) {
+                    case 1 -> displayOrders();
+                    case 2 -> addOrder();
+                    case 3 -> editOrder();
+                    case 4 -> removeOrder();
+                    case 5 -> exportData();
+                    case 6 -> repriceOrders();
+                    case 7 -> view.displayMetrics(Metrics.report());
+                    case 8 -> view.displayAuditReport(service.auditOrders());
+                    case 9 -> view.displayExportJob(service.getExportJob());
+                    case 10 -> cancelExport();
+                    case 11 -> keepRunning = false;
+                }
+            } catch (OrderNotSavedException e) {
+                view.displayMessage("Error: " + e.getMessage());
             }
         }
         view.displayMessage("Exiting program...");
     }
 
+    /// Days are shown from the service's cached views, so showing a busy day again doesn't re-read
+    /// or re-format it unless it changed
     private void displayOrders() {
-        LocalDate date = view.getOrderDate();
-        List<Order> orders = service.getOrdersByDate(date);
-        view.displayOrders(orders);
+        view.displayDayView(service.getDayView(view.getOrderDate()));
     }
 
     private void addOrder() {
@@ -148,9 +161,56 @@ public class OrderController {
         view.displayMessage("Order removed successfully.");
     }
 
-    ///  Stretch goal - implemented
+    /// Shows a dry run first, then applies only if confirmed
+    private void repriceOrders() {
+        LocalDate cutoff = view.getRepriceCutoffDate();
+        String state;
+        while (true) {
+            state = view.getRepriceState();
+            if (state.isBlank() || service.isValidState(state)) break;
+            view.displayMessage("Error: Invalid state. We cannot sell there. Try again.");
+        }
+        String productType;
+        while (true) {
+            productType = view.getRepriceProductType();
+            if (productType.isBlank() || service.isValidProduct(productType)) break;
+            view.displayMessage("Error: Invalid product type. Please select an available product.");
+        }
+
+        RepriceReport preview = service.repriceOrders(cutoff, state, productType, true);
+        view.displayRepriceReport(preview);
+        if (preview.getChanges().isEmpty()) {
+            view.displayMessage("No orders need repricing.");
+            return;
+        }
+
+        if (view.confirmReprice()) {
+            RepriceReport applied = service.repriceOrders(cutoff, state, productType, false);
+            view.displayMessage("Repriced " + applied.getChanges().size() + " orders across "
+                    + applied.getTouchedDates().size() + " days.");
+        } else {
+            view.displayMessage("Reprice cancelled. No orders were changed.");
+        }
+    }
+
+    ///  Stretch goal - implemented. Runs in the background, progress is option 9
     private void exportData() {
-        service.exportAllData();
-        view.displayMessage("All orders exported to Backup/DataExport.txt");
+        ExportJob running = service.getExportJob();
+        ExportJob job = service.startExport();
+        if (job == running) {
+            view.displayMessage("Export #" + job.getId() + " is still running.");
+        } else {
+            view.displayMessage("Export #" + job.getId() + " started, orders go to Backup/DataExport.txt "
+                    + "when it's done.");
+        }
+    }
+
+    private void cancelExport() {
+        ExportJob job = service.getExportJob();
+        if (job != null && service.cancelExport(job.getId())) {
+            view.displayMessage("Export #" + job.getId() + " cancelled, the previous export file is kept.");
+        } else {
+            view.displayMessage("No export is running.");
+        }
     }
 }
@@ -0,0 +1,64 @@
+package com.js.flooringmastery.controller;
+
+import com.js.flooringmastery.dto.ExportJob;
+import com.js.flooringmastery.exception.NoSuchOrderException;
+import com.js.flooringmastery.metrics.Metrics;
+import com.js.flooringmastery.service.OrderReplica;
+import com.js.flooringmastery.service.OrderService;
+import com.js.flooringmastery.ui.OrderView;
+import org.springframework.stereotype.Controller;
+
+/// Console for a read replica (App's replica option): the read side of the order menu plus how far
+/// behind the primary it is. Nothing here changes an order.
+@Controller
+public class ReplicaController {
+    private final OrderReplica replica;
+    private final OrderService service;
+    private final OrderView view;
+
+    public ReplicaController(OrderReplica replica, OrderView view) {
+        this.replica = replica;
+        this.service = replica.getService();
+        this.view = view;
+    }
+
+    public void run() {
+        replica.start();
+        boolean keepRunning = true;
+        while (keepRunning) {
+            int choice = view.displayReplicaMenu();
+            switch (choice) {
+                case 1 -> view.displayDayView(service.getDayView(view.getOrderDate()));
+                case 2 -> findOrder();
+                case 3 -> exportData();
+                case 4 -> view.displayExportJob(service.getExportJob());
+                case 5 -> view.displayAuditReport(service.auditOrders());
+                case 6 -> view.displayMetrics(Metrics.report());
+                case 7 -> view.displayReplicaStatus(replica.getStatus());
+                case 8 -> keepRunning = false;
+            }
+        }
+        replica.close();
+        view.displayMessage("Exiting replica...");
+    }
+
+    private void findOrder() {
+        try {
+            view.displayOrder(service.getOrderByNumber(view.getOrderNumber()));
+        } catch (NoSuchOrderException e) {
+            view.displayMessage(e.getMessage());
+        }
+    }
+
+    /// Same export as the primary's, written from this process's copy
+    private void exportData() {
+        ExportJob running = service.getExportJob();
+        ExportJob job = service.startExport();
+        if (job == running) {
+            view.displayMessage("Export #" + job.getId() + " is still running.");
+        } else {
+            view.displayMessage("Export #" + job.getId() + " started, orders go to Backup/DataExport.txt "
+                    + "when it's done.");
+        }
+    }
+}
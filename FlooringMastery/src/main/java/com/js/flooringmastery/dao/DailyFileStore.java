@@ -0,0 +1,136 @@
+package com.js.flooringmastery.dao;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/// The original layout: one Orders_MMddyyyy.txt per day, each with a checksum sidecar
+final class DailyFileStore implements DayFileStore {
+    private final Path folder;
+    private final OrderFileChecksums checksums;
+
+    DailyFileStore(Path folder, OrderFileChecksums checksums) {
+        this.folder = folder;
+        this.checksums = checksums;
+    }
+
+    @Override
+    public int loadAll(DayLoader loader, DayGuard guard) {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "Orders_*.txt")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            System.out.println("Error loading order files.");
+            return 0;
+        }
+
+        AtomicInteger quarantined = new AtomicInteger();
+        files.parallelStream().forEach(file -> quarantined.addAndGet(loadFile(file, loader, guard)));
+        return quarantined.get();
+    }
+
+    /// Loads the file, or quarantines it and returns 1. The file and its sidecar are read, checked and moved
+    /// holding the day, so a save by another process (sidecar dropped, file, new sidecar) isn't mistaken for damage.
+    private int loadFile(Path file, DayLoader loader, DayGuard guard) {
+        String fileName = file.getFileName().toString();
+        LocalDate orderDate;
+        try {
+            String dateString = fileName.substring(7, 15); /// Extracts MMDDYYYY
+            orderDate = LocalDate.parse(dateString, OrderFileFormat.FILE_DATE);
+        } catch (RuntimeException e) {
+            quarantine(file, "unreadable (" + e.getClass().getSimpleName() + ": " + e.getMessage() + ")");
+            return 1;
+        }
+        try {
+            return guard.hold(orderDate, () -> {
+                String problem = verifyAndLoad(file, fileName, orderDate, loader);
+                if (problem == null) {
+                    return 0;
+                }
+                quarantine(file, problem);
+                return 1;
+            });
+        } catch (IOException e) {
+            System.out.println("Skipped " + fileName + ", could not hold its day: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /// Why the file can't be used, or null once the loader has it (or it's gone)
+    private String verifyAndLoad(Path file, String fileName, LocalDate orderDate, DayLoader loader) {
+        try {
+            if (!Files.exists(file)) {
+                return null; /// Removed (archived) by another process since the listing
+            }
+            byte[] content = Files.readAllBytes(file);
+            String mismatch = checksums.mismatch(fileName, content);
+            if (mismatch != null) {
+                return mismatch;
+            }
+            String problem = loader.load(orderDate, content);
+            if (problem == null && !checksums.has(fileName)) {
+                /// Day files from before checksums (or copied in) that parsed cleanly get one from now on
+                checksums.write(fileName, OrderFileChecksums.checksum(content), content.length);
+            }
+            return problem;
+        } catch (IOException | RuntimeException e) {
+            return "unreadable (" + e.getClass().getSimpleName() + ": " + e.getMessage() + ")";
+        }
+    }
+
+    private void quarantine(Path file, String problem) {
+        try {
+            Path target = checksums.quarantine(file, problem);
+            System.out.println("Quarantined " + file.getFileName() + " (" + problem + "), moved to " + target);
+        } catch (IOException e) {
+            System.out.println("Skipped " + file.getFileName() + " (" + problem + "), could not quarantine it: "
+                    + e.getMessage());
+        }
+    }
+
+    @Override
+    public NavigableMap<LocalDate, byte[]> read(Collection<LocalDate> orderDates) throws IOException {
+        NavigableMap<LocalDate, byte[]> days = new TreeMap<>();
+        for (LocalDate orderDate : orderDates) {
+            Path file = folder.resolve(OrderFileFormat.fileName(orderDate));
+            if (Files.exists(file)) {
+                days.put(orderDate, Files.readAllBytes(file));
+            }
+        }
+        return days;
+    }
+
+    /// Written to a temp file and moved into place between dropping the old sidecar and writing the new one.
+    /// A crash in between leaves a day file without a sidecar, which loads (and gets one) rather than being
+    /// quarantined as a mismatch against the old checksum.
+    @Override
+    public void write(LocalDate orderDate, byte[] content) throws IOException {
+        Files.createDirectories(folder);
+        String fileName = OrderFileFormat.fileName(orderDate);
+        Path temp = folder.resolve(fileName + ".tmp");
+        Files.write(temp, content);
+        checksums.delete(fileName);
+        Files.move(temp, folder.resolve(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checksums.write(fileName, OrderFileChecksums.checksum(content), content.length);
+    }
+
+    @Override
+    public void writeAll(NavigableMap<LocalDate, byte[]> days) throws IOException {
+        for (Map.Entry<LocalDate, byte[]> day : days.entrySet()) {
+            write(day.getKey(), day.getValue());
+        }
+    }
+
+    @Override
+    public void remove(Collection<LocalDate> orderDates) throws IOException {
+        for (LocalDate orderDate : orderDates) {
+            Files.deleteIfExists(folder.resolve(OrderFileFormat.fileName(orderDate)));
+            checksums.delete(OrderFileFormat.fileName(orderDate));
+        }
+    }
+}
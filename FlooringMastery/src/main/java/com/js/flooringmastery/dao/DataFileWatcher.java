@@ -0,0 +1,90 @@
+package com.js.flooringmastery.dao;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/// Watches Taxes.txt / Products.txt (and their history files) and reloads the matching DAO on its own thread when a file changes
+public class DataFileWatcher {
+    private static final long SETTLE_MILLIS = 200; /// Lets editors finish writing before we read
+
+    private final Map<Path, ReloadableDao> daosByFile = new HashMap<>();
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public DataFileWatcher(List<ReloadableDao> daos) {
+        for (ReloadableDao dao : daos) {
+            for (Path file : dao.getDataFiles()) {
+                daosByFile.put(file.toAbsolutePath().normalize(), dao);
+            }
+        }
+    }
+
+    public synchronized void start() throws IOException {
+        if (watchThread != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        Set<Path> folders = new HashSet<>();
+        for (Path file : daosByFile.keySet()) {
+            folders.add(file.getParent());
+        }
+        for (Path folder : folders) {
+            folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+
+        watchThread = new Thread(this::watch, "data-file-watcher");
+        watchThread.setDaemon(true); /// Never keeps the program from exiting
+        watchThread.start();
+    }
+
+    public synchronized void stop() throws IOException {
+        if (watchThread == null) {
+            return;
+        }
+        watchThread.interrupt();
+        watchService.close();
+        watchThread = null;
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                Set<ReloadableDao> changed = new LinkedHashSet<>();
+                collectChanges(key, changed);
+
+                /// Saving a file often fires several events, so wait and fold them into one reload
+                Thread.sleep(SETTLE_MILLIS);
+                while ((key = watchService.poll()) != null) {
+                    collectChanges(key, changed);
+                }
+
+                for (ReloadableDao dao : changed) {
+                    if (dao.reload()) {
+                        System.out.printf("Reloaded %s (version %d) in %.2f ms%n", dao.getDataFiles().get(0).getFileName(),
+                                dao.getDataVersion(), dao.getLastReloadNanos() / 1_000_000.0);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            /// Stopped
+        }
+    }
+
+    private void collectChanges(WatchKey key, Set<ReloadableDao> changed) {
+        Path folder = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed.addAll(daosByFile.values());
+                continue;
+            }
+            Path file = folder.resolve((Path) event.context()).toAbsolutePath().normalize();
+            ReloadableDao dao = daosByFile.get(file);
+            if (dao != null) {
+                changed.add(dao);
+            }
+        }
+        key.reset();
+    }
+}
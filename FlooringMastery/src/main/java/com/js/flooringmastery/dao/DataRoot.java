@@ -0,0 +1,23 @@
+package com.js.flooringmastery.dao;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/// The folder holding Data, Orders, Backup and the other stores' files: SampleFileData under the working
+/// directory unless -Dflooring.dataRoot says otherwise (applicationContext.xml reads the same property)
+public final class DataRoot {
+    public static final String PROPERTY = "flooring.dataRoot";
+    public static final String DEFAULT = "SampleFileData";
+
+    private DataRoot() {
+    }
+
+    public static String get() {
+        return System.getProperty(PROPERTY, DEFAULT);
+    }
+
+    /// A folder or file under the given root, e.g. resolve(root, "Data", "Taxes.txt")
+    public static Path resolve(String root, String... names) {
+        return Paths.get(root, names);
+    }
+}
@@ -0,0 +1,56 @@
+package com.js.flooringmastery.dao;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/// Where OrderDaoImpl keeps the contents of its hot day files (header line plus one line per order),
+/// see OrderFileLayout. Both layouts store a day's content byte for byte, so order number index offsets
+/// and archive bundles don't depend on the layout.
+interface DayFileStore {
+
+    /// Parses one verified day, returns why it can't be used or null if it loaded
+    interface DayLoader {
+        String load(LocalDate orderDate, byte[] content);
+    }
+
+    /// Keeps other processes from saving a day (its month, in the monthly layout) while loadAll reads,
+    /// verifies and perhaps quarantines or rewrites the file holding it
+    interface DayGuard {
+        DayGuard UNGUARDED = (orderDate, check) -> check.run(); /// Nothing else uses the folder
+
+        int hold(LocalDate orderDate, FileLease.Action<Integer> check) throws IOException;
+    }
+
+    /// Verifies and hands every stored day to the loader, files in parallel, each under the guard. Days that
+    /// fail the checksum or the loader are quarantined and left out. Returns how many were quarantined.
+    int loadAll(DayLoader loader, DayGuard guard);
+
+    default int loadAll(DayLoader loader) {
+        return loadAll(loader, DayGuard.UNGUARDED);
+    }
+
+    /// Stored content of the days asked for, days not stored are left out
+    NavigableMap<LocalDate, byte[]> read(Collection<LocalDate> orderDates) throws IOException;
+
+    void write(LocalDate orderDate, byte[] content) throws IOException;
+
+    /// Writes many days at once (conversion between layouts)
+    void writeAll(NavigableMap<LocalDate, byte[]> days) throws IOException;
+
+    void remove(Collection<LocalDate> orderDates) throws IOException;
+
+    /// Copies every day from one layout to the other, then removes them from the first. Returns the day count.
+    static int convert(DayFileStore from, DayFileStore to) throws IOException {
+        NavigableMap<LocalDate, byte[]> days = new ConcurrentSkipListMap<>();
+        from.loadAll((orderDate, content) -> {
+            days.put(orderDate, content);
+            return null;
+        });
+        to.writeAll(days);
+        from.remove(days.keySet());
+        return days.size();
+    }
+}
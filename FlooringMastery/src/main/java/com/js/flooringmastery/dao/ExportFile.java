@@ -0,0 +1,75 @@
+package com.js.flooringmastery.dao;
+
+import com.js.flooringmastery.dto.ExportJob;
+import com.js.flooringmastery.dto.Order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+
+/// Backup/DataExport.txt while it's being written, shared by the order DAOs. Lines go to a temp file that
+/// replaces the export only once it's complete, so a cancelled or failed export leaves the last one in place.
+/// Each export gets a temp file of its own: another process (a replica) may be exporting into the same folder.
+final class ExportFile implements Closeable {
+    static final String FILE_NAME = "DataExport.txt";
+    private static final int LINE_SEPARATOR_LENGTH = System.lineSeparator().length();
+
+    private final Path target;
+    private final Path temp;
+    private final PrintWriter writer;
+    private final ExportJob job;
+    private boolean committed;
+
+    /// Starts the file with its header, totalOrders is what the job will show progress against
+    ExportFile(Path backupFolder, ExportJob job, long totalOrders) throws IOException {
+        Files.createDirectories(backupFolder);  /// Ensure the Backup folder exists
+        this.target = backupFolder.resolve(FILE_NAME);
+        this.temp = Files.createTempFile(backupFolder, "DataExport", ".tmp");
+        try {
+            this.writer = new PrintWriter(Files.newBufferedWriter(temp, Charset.defaultCharset()));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        this.job = job;
+        job.setTotalOrders(totalOrders);
+        writeLine(0, OrderFileFormat.EXPORT_HEADER);
+    }
+
+    /// Writes the order's line, or returns false without writing once the job is cancelled
+    boolean write(Order order) {
+        if (job.isCancelRequested()) {
+            return false;
+        }
+        writeLine(1, OrderFileFormat.marshalForExport(order));
+        return true;
+    }
+
+    /// Byte count assumes one byte per character, order lines are plain ASCII
+    private void writeLine(int orders, String line) {
+        writer.println(line);
+        job.written(orders, line.length() + LINE_SEPARATOR_LENGTH);
+    }
+
+    /// Replaces the export with what was written, returns its size
+    long commit() throws IOException {
+        writer.close();
+        if (writer.checkError()) {
+            throw new IOException("Could not write " + temp + ".");
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+        return Files.size(target);
+    }
+
+    /// Drops the temp file unless it was committed
+    @Override
+    public void close() throws IOException {
+        writer.close();
+        if (!committed) {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
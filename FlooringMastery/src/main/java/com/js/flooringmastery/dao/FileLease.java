@@ -0,0 +1,95 @@
+package com.js.flooringmastery.dao;
+
+import com.js.flooringmastery.metrics.Metrics;
+import com.js.flooringmastery.metrics.OperationTimer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/// Exclusive locks on one-byte regions of a lock file, shared by every process using the folder. Each
+/// region guards one thing (order numbers, a day) and is held only while the caller reads and writes it.
+/// FileChannel locks belong to the whole JVM: a second lock on a region this JVM holds throws instead of
+/// waiting, and closing any channel on the file drops all of them. So every DAO in the JVM shares one
+/// channel per lock file, and threads queue on a monitor for the region's stripe before asking the OS.
+final class FileLease implements Closeable {
+    private static final int STRIPES = 64;
+    private static final OperationTimer WAIT = Metrics.timer("dao.leaseWait");
+    private static final OperationTimer HELD = Metrics.timer("dao.leaseHeld");
+
+    /// What runs while the region is locked
+    interface Action<T> {
+        T run() throws IOException;
+    }
+
+    private static final class Shared {
+        private final FileChannel channel;
+        private final Object[] stripes = new Object[STRIPES];
+        private int users;
+
+        private Shared(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Object();
+            }
+        }
+    }
+
+    private static final Map<Path, Shared> OPEN = new HashMap<>();
+
+    private final Path file;
+    private final Shared shared;
+    private boolean closed;
+
+    FileLease(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        this.file = file.toAbsolutePath().normalize();
+        synchronized (OPEN) {
+            Shared open = OPEN.get(this.file);
+            if (open == null) {
+                open = new Shared(this.file);
+                OPEN.put(this.file, open);
+            }
+            open.users++;
+            this.shared = open;
+        }
+    }
+
+    /// Runs the action holding the region against other threads and other processes
+    <T> T hold(long region, Action<T> action) throws IOException {
+        long start = System.nanoTime();
+        synchronized (shared.stripes[(int) Math.floorMod(region, (long) STRIPES)]) {
+            try (FileLock lock = shared.channel.lock(region, 1, false)) {
+                long acquired = System.nanoTime();
+                WAIT.recordSince(start);
+                try {
+                    return action.run();
+                } finally {
+                    HELD.recordSince(acquired);
+                }
+            }
+        }
+    }
+
+    /// The channel is closed with the last lease on the file
+    @Override
+    public void close() throws IOException {
+        synchronized (OPEN) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (--shared.users == 0) {
+                OPEN.remove(file);
+                shared.channel.close();
+            }
+        }
+    }
+}
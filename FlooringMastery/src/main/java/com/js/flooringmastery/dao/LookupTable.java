@@ -0,0 +1,172 @@
+package com.js.flooringmastery.dao;
+
+import java.util.*;
+
+/// Immutable, case-insensitive name lookup (state abbreviations, product types)
+/// Each name gets a small integer code, so orders can be stored compactly and lookups don't allocate
+public final class LookupTable<T> {
+    private final String[] keys;   /// Name for each code
+    private final char[][] folded; /// Case-folded name for each code, so lookups only fold the input
+    private final Object[] values; /// Value for each code, null if the name was dropped on a reload
+    private final int[] slots;     /// Open addressing table holding code + 1, 0 means empty
+    private final int mask;
+    private final int size;
+
+    public LookupTable(Map<String, T> entries) {
+        this(null, entries);
+    }
+
+    /// Names already in the previous table keep their codes, so codes stay stable across reloads
+    public LookupTable(LookupTable<T> previous, Map<String, T> entries) {
+        String[] inherited = previous == null ? new String[0] : previous.keys;
+        String[] keyArray = Arrays.copyOf(inherited, inherited.length + entries.size());
+        Object[] loadedValues = new Object[keyArray.length];
+
+        int capacity = Integer.highestOneBit(Math.max(4, keyArray.length * 2 - 1)) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int code = 0; code < inherited.length; code++) {
+            insert(keyArray[code], code);
+        }
+
+        /// Place new names after the inherited ones
+        int count = inherited.length;
+        for (Map.Entry<String, T> entry : entries.entrySet()) {
+            int code = find(entry.getKey(), keyArray);
+            if (code < 0) {
+                code = count++;
+                keyArray[code] = entry.getKey();
+                insert(entry.getKey(), code);
+            }
+            loadedValues[code] = entry.getValue();
+        }
+
+        this.keys = Arrays.copyOf(keyArray, count);
+        this.folded = new char[count][];
+        for (int code = 0; code < count; code++) {
+            folded[code] = fold(keys[code]);
+        }
+        this.values = Arrays.copyOf(loadedValues, count);
+        this.size = (int) Arrays.stream(values).filter(Objects::nonNull).count();
+    }
+
+    /// Code for the name ignoring case, or -1 if unknown
+    public int codeOf(CharSequence key) {
+        if (key == null) {
+            return -1;
+        }
+        for (int slot = foldedHash(key) & mask; ; slot = (slot + 1) & mask) {
+            int code = slots[slot] - 1;
+            if (code < 0) {
+                return -1;
+            }
+            if (matchesFolded(folded[code], key)) {
+                return values[code] != null ? code : -1;
+            }
+        }
+    }
+
+    public T get(CharSequence key) {
+        int code = codeOf(key);
+        return code < 0 ? null : get(code);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int code) {
+        return code >= 0 && code < values.length ? (T) values[code] : null;
+    }
+
+    /// Name as written in the data file, for a code handed out by this table
+    public String keyOf(int code) {
+        return code >= 0 && code < keys.length ? keys[code] : null;
+    }
+
+    /// Number of codes handed out, including names dropped on a reload
+    public int codeCount() {
+        return keys.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /// Values in code order
+    @SuppressWarnings("unchecked")
+    public List<T> values() {
+        List<T> list = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                list.add((T) value);
+            }
+        }
+        return list;
+    }
+
+    private int find(CharSequence key, String[] keyArray) {
+        for (int slot = foldedHash(key) & mask; ; slot = (slot + 1) & mask) {
+            int code = slots[slot] - 1;
+            if (code < 0) {
+                return -1;
+            }
+            if (equalsIgnoreCase(keyArray[code], key)) {
+                return code;
+            }
+        }
+    }
+
+    private void insert(CharSequence key, int code) {
+        int slot = foldedHash(key) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = code + 1;
+    }
+
+    private static char[] fold(String key) {
+        char[] chars = new char[key.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(key.charAt(i));
+        }
+        return chars;
+    }
+
+    /// Same folding as String.equalsIgnoreCase, so equal names always hash the same
+    private static char fold(char c) {
+        if (c < 128) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static boolean matchesFolded(char[] stored, CharSequence key) {
+        if (stored.length != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < stored.length; i++) {
+            if (stored[i] != fold(key.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int foldedHash(CharSequence key) {
+        int hash = 0;
+        for (int i = 0; i < key.length(); i++) {
+            hash = 31 * hash + fold(key.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equalsIgnoreCase(String stored, CharSequence key) {
+        if (stored.length() != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < stored.length(); i++) {
+            if (fold(stored.charAt(i)) != fold(key.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
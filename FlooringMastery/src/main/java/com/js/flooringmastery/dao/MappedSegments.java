@@ -0,0 +1,78 @@
+package com.js.flooringmastery.dao;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/// Fixed-size files (prefix-00000.dat, prefix-00001.dat, ...) mapped into memory on demand
+/// The data lives in the OS page cache, not on the Java heap
+final class MappedSegments {
+    private final Path folder;
+    private final String prefix;
+    private final int segmentBytes;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>(); /// Read without the owner's lock
+
+    /// Maps the segment files already in the folder
+    MappedSegments(Path folder, String prefix, int segmentBytes) throws IOException {
+        this.folder = folder;
+        this.prefix = prefix;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(folder);
+        while (Files.exists(path(segments.size()))) {
+            map(segments.size());
+        }
+    }
+
+    int count() {
+        return segments.size();
+    }
+
+    int segmentBytes() {
+        return segmentBytes;
+    }
+
+    /// The segment, creating it and any before it (zero-filled) if needed
+    MappedByteBuffer segment(int index) throws IOException {
+        while (segments.size() <= index) {
+            map(segments.size());
+        }
+        return segments.get(index);
+    }
+
+    /// Maps segment files another process created since, returns the segment count
+    int mapNew() throws IOException {
+        while (Files.exists(path(segments.size()))) {
+            map(segments.size());
+        }
+        return segments.size();
+    }
+
+    /// A segment that is already mapped
+    MappedByteBuffer get(int index) {
+        return segments.get(index);
+    }
+
+    /// Flushes changed pages of every segment to disk
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    private void map(int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(index), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            /// Mapping past the end grows the file (sparse until written), the mapping outlives the channel
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+        }
+    }
+
+    private Path path(int index) {
+        return folder.resolve(String.format("%s-%05d.dat", prefix, index));
+    }
+}
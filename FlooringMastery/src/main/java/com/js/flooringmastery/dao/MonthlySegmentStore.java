@@ -0,0 +1,326 @@
+package com.js.flooringmastery.dao;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/// Monthly layout: Orders_yyyyMM.seg holds the month's day files back to back behind a text header
+///   OrderSegment,yyyyMM,<days>
+///   MMddyyyy,<offset>,<length>,<crc32c>   (one line per day, offsets from the end of the header)
+/// so a month of history is one file to open, and a single day is read without touching the others
+final class MonthlySegmentStore implements DayFileStore {
+    private static final String MAGIC = "OrderSegment";
+    private static final String EXTENSION = ".seg";
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /// A day as stored: its content and the checksum recorded for it
+    private static final class StoredDay {
+        private final byte[] content;
+        private final long checksum;
+
+        StoredDay(byte[] content, long checksum) {
+            this.content = content;
+            this.checksum = checksum;
+        }
+
+        boolean verified() {
+            return OrderFileChecksums.checksum(content) == checksum;
+        }
+    }
+
+    /// Where a day sits in its segment
+    private static final class DayEntry {
+        private final long offset;
+        private final int length;
+        private final long checksum;
+
+        DayEntry(long offset, int length, long checksum) {
+            this.offset = offset;
+            this.length = length;
+            this.checksum = checksum;
+        }
+    }
+
+    /// A parsed header: the day entries and where the data starts
+    private static final class Header {
+        private final NavigableMap<LocalDate, DayEntry> days;
+        private final int size;
+
+        Header(NavigableMap<LocalDate, DayEntry> days, int size) {
+            this.days = days;
+            this.size = size;
+        }
+    }
+
+    private final Path folder;
+    private final OrderFileChecksums quarantine;
+
+    MonthlySegmentStore(Path folder, OrderFileChecksums quarantine) {
+        this.folder = folder;
+        this.quarantine = quarantine;
+    }
+
+    static String fileName(YearMonth month) {
+        return "Orders_" + month.format(MONTH) + EXTENSION;
+    }
+
+    @Override
+    public int loadAll(DayLoader loader, DayGuard guard) {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, "Orders_*" + EXTENSION)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            System.out.println("Error loading order segments.");
+            return 0;
+        }
+
+        AtomicInteger quarantined = new AtomicInteger();
+        files.parallelStream().forEach(file -> quarantined.addAndGet(loadGuarded(file, loader, guard)));
+        return quarantined.get();
+    }
+
+    /// Loads the segment holding its month, so a save by another process can't rewrite it between the
+    /// read and a rewrite that drops bad days
+    private int loadGuarded(Path file, DayLoader loader, DayGuard guard) {
+        YearMonth month;
+        try {
+            String name = file.getFileName().toString();
+            month = YearMonth.parse(name.substring(7, name.length() - EXTENSION.length()), MONTH);
+        } catch (RuntimeException e) {
+            return loadSegment(file, loader); /// Not a segment name, its header check quarantines it
+        }
+        try {
+            return guard.hold(month.atDay(1), () -> Files.exists(file) ? loadSegment(file, loader) : 0);
+        } catch (IOException e) {
+            System.out.println("Skipped " + file.getFileName() + ", could not hold its month: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /// Loads the segment's days, returns how many days (or whole segments) were quarantined
+    private int loadSegment(Path file, DayLoader loader) {
+        NavigableMap<LocalDate, StoredDay> days;
+        try {
+            days = readSegment(file);
+        } catch (IOException | RuntimeException e) {
+            /// Without a readable header nothing in the segment can be trusted
+            try {
+                Path target = quarantine.quarantine(file, "unreadable segment (" + e.getMessage() + ")");
+                System.out.println("Quarantined " + file.getFileName() + " (" + e.getMessage() + "), moved to " + target);
+            } catch (IOException moveFailed) {
+                System.out.println("Skipped " + file.getFileName() + ", could not quarantine it: " + moveFailed.getMessage());
+            }
+            return 1;
+        }
+
+        Map<LocalDate, String> problems = new TreeMap<>();
+        for (Map.Entry<LocalDate, StoredDay> day : days.entrySet()) {
+            String problem;
+            try {
+                problem = day.getValue().verified() ? loader.load(day.getKey(), day.getValue().content)
+                        : "checksum mismatch";
+            } catch (RuntimeException e) {
+                problem = "unreadable (" + e.getClass().getSimpleName() + ": " + e.getMessage() + ")";
+            }
+            if (problem != null) {
+                problems.put(day.getKey(), problem);
+            }
+        }
+        if (problems.isEmpty()) {
+            return 0;
+        }
+
+        /// Bad days are written out to the quarantine folder and the segment is rewritten without them
+        for (Map.Entry<LocalDate, String> problem : problems.entrySet()) {
+            String dayFileName = OrderFileFormat.fileName(problem.getKey());
+            try {
+                Path target = quarantine.quarantine(dayFileName, days.remove(problem.getKey()).content,
+                        problem.getValue() + " in " + file.getFileName());
+                System.out.println("Quarantined " + dayFileName + " from " + file.getFileName() + " ("
+                        + problem.getValue() + "), moved to " + target);
+            } catch (IOException e) {
+                System.out.println("Skipped " + dayFileName + " (" + problem.getValue() + "), could not quarantine it: "
+                        + e.getMessage());
+            }
+        }
+        try {
+            writeSegment(file, days);
+        } catch (IOException e) {
+            System.out.println("Error rewriting " + file.getFileName() + ": " + e.getMessage());
+        }
+        return problems.size();
+    }
+
+    /// Reads only the header and the days asked for
+    @Override
+    public NavigableMap<LocalDate, byte[]> read(Collection<LocalDate> orderDates) throws IOException {
+        Map<YearMonth, List<LocalDate>> byMonth = new TreeMap<>();
+        for (LocalDate orderDate : orderDates) {
+            byMonth.computeIfAbsent(YearMonth.from(orderDate), month -> new ArrayList<>()).add(orderDate);
+        }
+
+        NavigableMap<LocalDate, byte[]> days = new TreeMap<>();
+        for (Map.Entry<YearMonth, List<LocalDate>> month : byMonth.entrySet()) {
+            Path file = folder.resolve(fileName(month.getKey()));
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                Header header = readHeader(new BufferedInputStream(Channels.newInputStream(channel)));
+                for (LocalDate orderDate : month.getValue()) {
+                    DayEntry entry = header.days.get(orderDate);
+                    if (entry == null) {
+                        continue;
+                    }
+                    ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+                    long position = header.size + entry.offset;
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, position + buffer.position()) < 0) {
+                            throw new EOFException(file.getFileName() + " is shorter than its header says");
+                        }
+                    }
+                    if (OrderFileChecksums.checksum(buffer.array()) != entry.checksum) {
+                        throw new IOException("Checksum mismatch for " + orderDate + " in " + file.getFileName());
+                    }
+                    days.put(orderDate, buffer.array());
+                }
+            }
+        }
+        return days;
+    }
+
+    @Override
+    public void write(LocalDate orderDate, byte[] content) throws IOException {
+        writeAll(new TreeMap<>(Map.of(orderDate, content)));
+    }
+
+    /// Each month touched is read once and rewritten once
+    @Override
+    public void writeAll(NavigableMap<LocalDate, byte[]> days) throws IOException {
+        Files.createDirectories(folder);
+        for (Map.Entry<YearMonth, Map<LocalDate, byte[]>> month : byMonth(days).entrySet()) {
+            Path file = folder.resolve(fileName(month.getKey()));
+            NavigableMap<LocalDate, StoredDay> stored = Files.exists(file) ? readSegment(file) : new TreeMap<>();
+            for (Map.Entry<LocalDate, byte[]> day : month.getValue().entrySet()) {
+                stored.put(day.getKey(), new StoredDay(day.getValue(), OrderFileChecksums.checksum(day.getValue())));
+            }
+            writeSegment(file, stored);
+        }
+    }
+
+    @Override
+    public void remove(Collection<LocalDate> orderDates) throws IOException {
+        Map<YearMonth, Set<LocalDate>> byMonth = new TreeMap<>();
+        for (LocalDate orderDate : orderDates) {
+            byMonth.computeIfAbsent(YearMonth.from(orderDate), month -> new HashSet<>()).add(orderDate);
+        }
+        for (Map.Entry<YearMonth, Set<LocalDate>> month : byMonth.entrySet()) {
+            Path file = folder.resolve(fileName(month.getKey()));
+            if (Files.exists(file)) {
+                NavigableMap<LocalDate, StoredDay> stored = readSegment(file);
+                stored.keySet().removeAll(month.getValue());
+                writeSegment(file, stored);
+            }
+        }
+    }
+
+    private static Map<YearMonth, Map<LocalDate, byte[]>> byMonth(NavigableMap<LocalDate, byte[]> days) {
+        Map<YearMonth, Map<LocalDate, byte[]>> byMonth = new TreeMap<>();
+        for (Map.Entry<LocalDate, byte[]> day : days.entrySet()) {
+            byMonth.computeIfAbsent(YearMonth.from(day.getKey()), month -> new TreeMap<>())
+                    .put(day.getKey(), day.getValue());
+        }
+        return byMonth;
+    }
+
+    /// Every day of the segment with its recorded checksum, not verified (loadAll and read do that)
+    private static NavigableMap<LocalDate, StoredDay> readSegment(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        Header header = readHeader(new ByteArrayInputStream(bytes));
+        NavigableMap<LocalDate, StoredDay> days = new TreeMap<>();
+        for (Map.Entry<LocalDate, DayEntry> day : header.days.entrySet()) {
+            DayEntry entry = day.getValue();
+            long start = header.size + entry.offset;
+            if (start + entry.length > bytes.length) {
+                throw new EOFException("shorter than its header says");
+            }
+            days.put(day.getKey(), new StoredDay(Arrays.copyOfRange(bytes, (int) start, (int) start + entry.length),
+                    entry.checksum));
+        }
+        return days;
+    }
+
+    private static Header readHeader(InputStream in) throws IOException {
+        int[] size = {0};
+        String first = readHeaderLine(in, size);
+        String[] tokens = first == null ? new String[0] : first.split(OrderFileFormat.DELIMITER);
+        if (tokens.length != 3 || !tokens[0].equals(MAGIC)) {
+            throw new IOException("not an order segment");
+        }
+        int count = Integer.parseInt(tokens[2]);
+        NavigableMap<LocalDate, DayEntry> days = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            String line = readHeaderLine(in, size);
+            if (line == null) {
+                throw new EOFException("header cut short");
+            }
+            String[] fields = line.split(OrderFileFormat.DELIMITER);
+            days.put(LocalDate.parse(fields[0], OrderFileFormat.FILE_DATE),
+                    new DayEntry(Long.parseLong(fields[1]), Integer.parseInt(fields[2]), Long.parseUnsignedLong(fields[3], 16)));
+        }
+        return new Header(days, size[0]);
+    }
+
+    /// One \n-terminated ASCII header line, adding its bytes to size[0]; null at end of stream
+    private static String readHeaderLine(InputStream in, int[] size) throws IOException {
+        StringBuilder line = new StringBuilder(40);
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b < 0) {
+                return null;
+            }
+            if (line.length() > 200) {
+                throw new IOException("header line too long");
+            }
+            line.append((char) b);
+        }
+        size[0] += line.length() + 1;
+        return line.toString();
+    }
+
+    /// Header then days, to a temp file moved over the segment. A segment left without days is deleted.
+    private static void writeSegment(Path file, NavigableMap<LocalDate, StoredDay> days) throws IOException {
+        if (days.isEmpty()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        StringBuilder header = new StringBuilder(40 * (days.size() + 1));
+        header.append(MAGIC).append(OrderFileFormat.DELIMITER)
+                .append(YearMonth.from(days.firstKey()).format(MONTH))
+                .append(OrderFileFormat.DELIMITER).append(days.size()).append('\n');
+        long offset = 0;
+        for (Map.Entry<LocalDate, StoredDay> day : days.entrySet()) {
+            header.append(day.getKey().format(OrderFileFormat.FILE_DATE)).append(OrderFileFormat.DELIMITER)
+                    .append(offset).append(OrderFileFormat.DELIMITER)
+                    .append(day.getValue().content.length).append(OrderFileFormat.DELIMITER)
+                    .append(Long.toHexString(day.getValue().checksum)).append('\n');
+            offset += day.getValue().content.length;
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+            out.write(header.toString().getBytes(StandardCharsets.US_ASCII));
+            for (StoredDay day : days.values()) {
+                out.write(day.content);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
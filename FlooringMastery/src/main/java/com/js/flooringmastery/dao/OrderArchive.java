@@ -0,0 +1,212 @@
+package com.js.flooringmastery.dao;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/// Cold storage for old order days: one compressed bundle per month (Orders_yyyyMM.zip) holding the
+/// day files unchanged, plus index.txt listing each archived day with its bundle, order count and
+/// highest order number, so nothing has to be opened until a day is asked for
+final class OrderArchive {
+    private static final String INDEX_FILE = "index.txt";
+    private static final String INDEX_HEADER = "Date,Bundle,Orders,HighestOrderNumber";
+    private static final DateTimeFormatter BUNDLE_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /// One line of the index
+    static final class ArchivedDay {
+        private final String bundle;
+        private final int orders;
+        private final int highestOrderNumber;
+
+        ArchivedDay(String bundle, int orders, int highestOrderNumber) {
+            this.bundle = bundle;
+            this.orders = orders;
+            this.highestOrderNumber = highestOrderNumber;
+        }
+
+        String getBundle() {
+            return bundle;
+        }
+
+        int getOrders() {
+            return orders;
+        }
+
+        int getHighestOrderNumber() {
+            return highestOrderNumber;
+        }
+    }
+
+    private final Path folder;
+    private final NavigableMap<LocalDate, ArchivedDay> index = new ConcurrentSkipListMap<>();
+
+    OrderArchive(Path folder) {
+        this.folder = folder;
+        loadIndex();
+    }
+
+    private void loadIndex() {
+        Path indexFile = folder.resolve(INDEX_FILE);
+        if (!Files.exists(indexFile)) {
+            return; /// Nothing archived yet
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile)) {
+            reader.readLine(); /// Skip header
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] tokens = line.split(OrderFileFormat.DELIMITER);
+                index.put(LocalDate.parse(tokens[0], OrderFileFormat.FILE_DATE),
+                        new ArchivedDay(tokens[1], Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3])));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error loading order archive index: " + e.getMessage());
+        }
+    }
+
+    boolean contains(LocalDate date) {
+        return index.containsKey(date);
+    }
+
+    NavigableSet<LocalDate> dates() {
+        return index.navigableKeySet();
+    }
+
+    int highestOrderNumber() {
+        return index.values().stream().mapToInt(ArchivedDay::getHighestOrderNumber).max().orElse(0);
+    }
+
+    /// The day's order lines without the header, empty if the day isn't archived
+    List<String> readDay(LocalDate date) throws IOException {
+        byte[] content = readDayFile(date);
+        if (content.length == 0) {
+            return List.of();
+        }
+        List<String> lines = new ArrayList<>(new String(content, StandardCharsets.UTF_8).lines().toList());
+        lines.remove(0); /// Header
+        lines.removeIf(String::isBlank);
+        return lines;
+    }
+
+    /// The day file as it was archived, empty if the day isn't archived
+    byte[] readDayFile(LocalDate date) throws IOException {
+        ArchivedDay day = index.get(date);
+        if (day == null) {
+            return new byte[0];
+        }
+        try (ZipFile bundle = new ZipFile(folder.resolve(day.getBundle()).toFile())) {
+            ZipEntry entry = bundle.getEntry(OrderFileFormat.fileName(date));
+            if (entry == null) {
+                throw new FileNotFoundException(OrderFileFormat.fileName(date) + " missing from " + day.getBundle());
+            }
+            try (InputStream in = bundle.getInputStream(entry)) {
+                return in.readAllBytes();
+            }
+        }
+    }
+
+    /// One line of an archived day, starting at a byte offset of the day file (see OrderNumberIndex)
+    String readLine(LocalDate date, long offset) throws IOException {
+        ArchivedDay day = index.get(date);
+        if (day == null) {
+            return null;
+        }
+        try (ZipFile bundle = new ZipFile(folder.resolve(day.getBundle()).toFile())) {
+            ZipEntry entry = bundle.getEntry(OrderFileFormat.fileName(date));
+            if (entry == null) {
+                return null;
+            }
+            try (InputStream in = bundle.getInputStream(entry)) {
+                in.skipNBytes(offset);
+                return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)).readLine();
+            }
+        }
+    }
+
+    /// Adds the day files' contents to their monthly bundles (replacing earlier copies of the same day) and
+    /// rewrites the index. Bundles and index are replaced atomically, removing the hot days is left to the caller.
+    void add(Map<LocalDate, byte[]> dayFiles) throws IOException {
+        Files.createDirectories(folder);
+        Map<YearMonth, Map<LocalDate, byte[]>> byMonth = new TreeMap<>();
+        for (Map.Entry<LocalDate, byte[]> dayFile : dayFiles.entrySet()) {
+            byMonth.computeIfAbsent(YearMonth.from(dayFile.getKey()), month -> new TreeMap<>())
+                    .put(dayFile.getKey(), dayFile.getValue());
+        }
+
+        Map<LocalDate, ArchivedDay> added = new HashMap<>();
+        for (Map.Entry<YearMonth, Map<LocalDate, byte[]>> month : byMonth.entrySet()) {
+            String bundleName = "Orders_" + month.getKey().format(BUNDLE_MONTH) + ".zip";
+            Path bundle = folder.resolve(bundleName);
+
+            /// Keep what the bundle already holds, newer copies of a day win
+            Map<String, byte[]> entries = new TreeMap<>(readEntries(bundle));
+            for (Map.Entry<LocalDate, byte[]> day : month.getValue().entrySet()) {
+                byte[] content = day.getValue();
+                entries.put(OrderFileFormat.fileName(day.getKey()), content);
+                added.put(day.getKey(), summarize(bundleName, content));
+            }
+
+            Path temp = folder.resolve(bundleName + ".tmp");
+            try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                    zip.putNextEntry(new ZipEntry(entry.getKey()));
+                    zip.write(entry.getValue());
+                    zip.closeEntry();
+                }
+            }
+            Files.move(temp, bundle, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        NavigableMap<LocalDate, ArchivedDay> updated = new TreeMap<>(index);
+        updated.putAll(added);
+        writeIndex(updated);
+        index.putAll(added);
+    }
+
+    private static Map<String, byte[]> readEntries(Path bundle) throws IOException {
+        Map<String, byte[]> entries = new HashMap<>();
+        if (Files.exists(bundle)) {
+            try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(Files.newInputStream(bundle)))) {
+                for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                    entries.put(entry.getName(), zip.readAllBytes());
+                }
+            }
+        }
+        return entries;
+    }
+
+    /// Order count and highest order number of a day file
+    private static ArchivedDay summarize(String bundleName, byte[] content) {
+        String[] lines = new String(content, StandardCharsets.UTF_8).split("\\R");
+        int orders = 0;
+        int highest = 0;
+        for (int i = 1; i < lines.length; i++) { /// Skip header
+            if (!lines[i].isBlank()) {
+                orders++;
+                highest = Math.max(highest, Integer.parseInt(lines[i].split(OrderFileFormat.DELIMITER, 2)[0]));
+            }
+        }
+        return new ArchivedDay(bundleName, orders, highest);
+    }
+
+    private void writeIndex(NavigableMap<LocalDate, ArchivedDay> days) throws IOException {
+        Path temp = folder.resolve(INDEX_FILE + ".tmp");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(temp))) {
+            writer.println(INDEX_HEADER);
+            for (Map.Entry<LocalDate, ArchivedDay> day : days.entrySet()) {
+                writer.println(String.join(OrderFileFormat.DELIMITER, day.getKey().format(OrderFileFormat.FILE_DATE),
+                        day.getValue().getBundle(), String.valueOf(day.getValue().getOrders()),
+                        String.valueOf(day.getValue().getHighestOrderNumber())));
+            }
+        }
+        Files.move(temp, folder.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -1,19 +1,38 @@
 package com.js.flooringmastery.dao;
 
+import com.js.flooringmastery.dto.ExportJob;
 import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderSnapshot;
 import com.js.flooringmastery.exception.PersistenceException;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
 
 public interface OrderDao {
 
     void addOrder(Order order);
 
+    /// All orders for the day, sorted by order number (read-only)
     List<Order> getAllOrders(LocalDate orderDate);
 
+    /// Read-only slice of the day starting at offset, at most limit orders
+    List<Order> getOrders(LocalDate orderDate, int offset, int limit);
+
+    /// Read-only slice of the day with order numbers above afterOrderNumber (keyset paging), at most limit orders
+    List<Order> getOrdersAfter(LocalDate orderDate, int afterOrderNumber, int limit);
+
+    int countOrders(LocalDate orderDate);
+
+    /// Days that have an orders file or table rows, oldest first
+    NavigableSet<LocalDate> getOrderDates();
+
     Order getOrder(LocalDate orderDate, int orderNumber);
 
+    /// The order with this number on whatever day it is, or null
+    Order findOrder(int orderNumber);
+
     void removeOrder(LocalDate orderDate, int orderNumber);
 
     void saveOrders() throws PersistenceException;
@@ -22,5 +41,31 @@ public interface OrderDao {
 
     int getNextOrderNumber();
 
-    void exportAllData() throws PersistenceException;
+    /// Hands out the number for a new order, one no other process sharing the store gets. Stores that only
+    /// one process can open hand out getNextOrderNumber.
+    default int allocateOrderNumber() {
+        return getNextOrderNumber();
+    }
+
+    /// Reloads the days another process saved since the last call (for stores several processes share)
+    /// and returns them
+    default Set<LocalDate> refreshChangedDays() {
+        return Set.of();
+    }
+
+    /// Orders on or after fromDate with the given state or product (null for either matches any order)
+    List<Order> getOrdersAffectedBy(LocalDate fromDate, String stateAbbreviation, String productType);
+
+    /// Writes every order to Backup/DataExport.txt, sorted by order number
+    default void exportAllData() throws PersistenceException {
+        exportAllData(new ExportJob(0));
+    }
+
+    /// Same, reporting progress to the job as it goes. Once the job is cancelled it stops writing
+    /// and the previous export stays in place. Returns whether the export was written.
+    boolean exportAllData(ExportJob job) throws PersistenceException;
+
+    /// Every day's orders as of one point in time, for exports and reports that run while orders change
+    /// (archived days aren't in it, they don't change)
+    OrderSnapshot snapshot();
 }
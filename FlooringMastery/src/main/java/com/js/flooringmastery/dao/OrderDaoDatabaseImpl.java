@@ -0,0 +1,373 @@
+package com.js.flooringmastery.dao;
+
+import com.js.flooringmastery.dto.ExportJob;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderSnapshot;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.metrics.Metrics;
+import com.js.flooringmastery.metrics.OperationTimer;
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/// OrderDao backed by an embedded H2 database file instead of the Orders_*.txt files
+/// Only the rows a call asks for are read, nothing is kept in memory between calls,
+/// so orders handed out are copies: changes reach the table through addOrder / saveOrdersForDate
+public class OrderDaoDatabaseImpl implements OrderDao {
+    private static final String COLUMNS = "order_number, order_date, customer_name, state, tax_rate, product_type, "
+            + "area, cost_per_square_foot, labor_cost_per_square_foot, material_cost, labor_cost, tax_amount, total";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM orders ";
+    private static final String INSERT = "INSERT INTO orders (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String MERGE = "MERGE INTO orders (" + COLUMNS + ") KEY (order_date, order_number) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
+
+    private static final OperationTimer READ_ORDERS = Metrics.timer("db.readOrders");
+    private static final OperationTimer WRITE_ORDERS = Metrics.timer("db.writeOrders");
+    private static final OperationTimer EXPORT_ALL_DATA = Metrics.timer("db.exportAllData");
+
+    private final JdbcConnectionPool pool;
+    private final AtomicLong version = new AtomicLong(); /// Bumped by every change, tags snapshots
+
+    private final Path backupFolder;
+
+    /// Used to share one Tax/Product instance between loaded orders instead of one per row
+    private final TaxDao taxDao;
+    private final ProductDao productDao;
+
+    public OrderDaoDatabaseImpl(String jdbcUrl, TaxDao taxDao, ProductDao productDao) {
+        this(jdbcUrl, taxDao, productDao, DataRoot.resolve(DataRoot.get(), "Backup").toString());
+    }
+
+    /// Exports go to DataExport.txt in backupFolder
+    public OrderDaoDatabaseImpl(String jdbcUrl, TaxDao taxDao, ProductDao productDao, String backupFolder) {
+        this.pool = JdbcConnectionPool.create(jdbcUrl, "sa", "");
+        this.backupFolder = Paths.get(backupFolder);
+        this.taxDao = taxDao;
+        this.productDao = productDao;
+        createSchema();
+    }
+
+    /// The database file Database/orders and the Backup folder under a data root. The URL gets an absolute
+    /// path because H2 refuses relative ones that don't start with ./
+    public static OrderDaoDatabaseImpl inDataRoot(String dataRoot, TaxDao taxDao, ProductDao productDao) {
+        return new OrderDaoDatabaseImpl("jdbc:h2:" + DataRoot.resolve(dataRoot, "Database", "orders").toAbsolutePath(),
+                taxDao, productDao, DataRoot.resolve(dataRoot, "Backup").toString());
+    }
+
+    /// Amounts are stored as DECIMAL(19,4), the indexes cover the lookups the app makes:
+    /// a day (primary key), the highest order number, repricing by state or product, and customer search
+    private void createSchema() {
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS orders ("
+                    + "order_number INT NOT NULL, "
+                    + "order_date DATE NOT NULL, "
+                    + "customer_name VARCHAR(255) NOT NULL, "
+                    + "state VARCHAR(16) NOT NULL, "
+                    + "tax_rate DECIMAL(19,4) NOT NULL, "
+                    + "product_type VARCHAR(64) NOT NULL, "
+                    + "area DECIMAL(19,4) NOT NULL, "
+                    + "cost_per_square_foot DECIMAL(19,4) NOT NULL, "
+                    + "labor_cost_per_square_foot DECIMAL(19,4) NOT NULL, "
+                    + "material_cost DECIMAL(19,4) NOT NULL, "
+                    + "labor_cost DECIMAL(19,4) NOT NULL, "
+                    + "tax_amount DECIMAL(19,4) NOT NULL, "
+                    + "total DECIMAL(19,4) NOT NULL, "
+                    + "PRIMARY KEY (order_date, order_number))");
+            statement.execute("CREATE INDEX IF NOT EXISTS orders_number_idx ON orders (order_number)");
+            statement.execute("CREATE INDEX IF NOT EXISTS orders_state_idx ON orders (state, order_date)");
+            statement.execute("CREATE INDEX IF NOT EXISTS orders_product_idx ON orders (product_type, order_date)");
+            statement.execute("CREATE INDEX IF NOT EXISTS orders_customer_idx ON orders (customer_name)");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not open the orders database.", e);
+        }
+    }
+
+    /// Closes the pooled connections (bean destroy-method)
+    public void close() {
+        pool.dispose();
+    }
+
+    @Override
+    public void addOrder(Order order) {
+        long start = System.nanoTime();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(MERGE)) {
+            bindOrder(statement, order); /// Same date and order number replaces the old order
+            statement.executeUpdate();
+            version.incrementAndGet();
+        } catch (SQLException e) {
+            WRITE_ORDERS.recordError();
+            throw new IllegalStateException("Could not save order " + order.getOrderNumber() + ".", e);
+        } finally {
+            WRITE_ORDERS.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<Order> getAllOrders(LocalDate orderDate) {
+        return query(SELECT + "WHERE order_date = ? ORDER BY order_number", orderDate);
+    }
+
+    @Override
+    public List<Order> getOrders(LocalDate orderDate, int offset, int limit) {
+        return query(SELECT + "WHERE order_date = ? ORDER BY order_number LIMIT ? OFFSET ?",
+                orderDate, Math.max(limit, 0), Math.max(offset, 0));
+    }
+
+    @Override
+    public List<Order> getOrdersAfter(LocalDate orderDate, int afterOrderNumber, int limit) {
+        return query(SELECT + "WHERE order_date = ? AND order_number > ? ORDER BY order_number LIMIT ?",
+                orderDate, afterOrderNumber, Math.max(limit, 0));
+    }
+
+    @Override
+    public int countOrders(LocalDate orderDate) {
+        return queryInt("SELECT COUNT(*) FROM orders WHERE order_date = ?", orderDate);
+    }
+
+    @Override
+    public NavigableSet<LocalDate> getOrderDates() {
+        long start = System.nanoTime();
+        NavigableSet<LocalDate> dates = new TreeSet<>();
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT DISTINCT order_date FROM orders")) {
+            while (rows.next()) {
+                dates.add(rows.getObject(1, LocalDate.class));
+            }
+        } catch (SQLException e) {
+            READ_ORDERS.recordError();
+            throw new IllegalStateException("Could not read order dates.", e);
+        } finally {
+            READ_ORDERS.recordSince(start);
+        }
+        return Collections.unmodifiableNavigableSet(dates);
+    }
+
+    @Override
+    public Order getOrder(LocalDate orderDate, int orderNumber) {
+        List<Order> orders = query(SELECT + "WHERE order_date = ? AND order_number = ?", orderDate, orderNumber);
+        return orders.isEmpty() ? null : orders.get(0);
+    }
+
+    @Override
+    public Order findOrder(int orderNumber) {
+        List<Order> orders = query(SELECT + "WHERE order_number = ? ORDER BY order_date LIMIT 1", orderNumber);
+        return orders.isEmpty() ? null : orders.get(0);
+    }
+
+    @Override
+    public void removeOrder(LocalDate orderDate, int orderNumber) {
+        long start = System.nanoTime();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM orders WHERE order_date = ? AND order_number = ?")) {
+            statement.setObject(1, orderDate);
+            statement.setInt(2, orderNumber);
+            if (statement.executeUpdate() > 0) {
+                version.incrementAndGet();
+            }
+        } catch (SQLException e) {
+            WRITE_ORDERS.recordError();
+            throw new IllegalStateException("Could not remove order " + orderNumber + ".", e);
+        } finally {
+            WRITE_ORDERS.recordSince(start);
+        }
+    }
+
+    /// Every change is written when it's made, so there is nothing left to flush
+    @Override
+    public void saveOrders() {
+    }
+
+    /// Replaces the day's rows with the given orders in one transaction, inserted in batches
+    @Override
+    public void saveOrdersForDate(LocalDate orderDate, List<Order> orders) throws PersistenceException {
+        long start = System.nanoTime();
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM orders WHERE order_date = ?");
+                 PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                delete.setObject(1, orderDate);
+                delete.executeUpdate();
+
+                int pending = 0;
+                for (Order order : orders) {
+                    bindOrder(insert, order);
+                    insert.setObject(2, orderDate); /// The day being saved, like the file it would go to
+                    insert.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        insert.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    insert.executeBatch();
+                }
+                connection.commit();
+                version.incrementAndGet();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            WRITE_ORDERS.recordError();
+            System.out.println("Error saving orders: " + e.getMessage());
+            throw new PersistenceException("Could not save order data.", e);
+        } finally {
+            WRITE_ORDERS.recordSince(start);
+        }
+    }
+
+    /// Uses the order number index, no file scan
+    @Override
+    public int getNextOrderNumber() {
+        return queryInt("SELECT COALESCE(MAX(order_number), 0) + 1 FROM orders");
+    }
+
+    @Override
+    public List<Order> getOrdersAffectedBy(LocalDate fromDate, String stateAbbreviation, String productType) {
+        /// No state or product means every order from the cutoff onwards
+        if (stateAbbreviation == null && productType == null) {
+            return query(SELECT + "WHERE order_date >= ? ORDER BY order_date, order_number", fromDate);
+        }
+        if (productType == null) {
+            return query(SELECT + "WHERE state = ? AND order_date >= ? ORDER BY order_date, order_number",
+                    stateAbbreviation, fromDate);
+        }
+        if (stateAbbreviation == null) {
+            return query(SELECT + "WHERE product_type = ? AND order_date >= ? ORDER BY order_date, order_number",
+                    productType, fromDate);
+        }
+        return query(SELECT + "WHERE (state = ? OR product_type = ?) AND order_date >= ? "
+                + "ORDER BY order_date, order_number", stateAbbreviation, productType, fromDate);
+    }
+
+    /// One query reads every row, so the snapshot is what the table held when it ran.
+    /// The version is read first: a change committed meanwhile can only make it look older than it is.
+    @Override
+    public OrderSnapshot snapshot() {
+        long snapshotVersion = version.get();
+        Map<LocalDate, List<Order>> days = new TreeMap<>();
+        for (Order order : query(SELECT + "ORDER BY order_date, order_number")) {
+            days.computeIfAbsent(order.getOrderDate(), date -> new ArrayList<>()).add(order);
+        }
+        days.replaceAll((date, orders) -> Collections.unmodifiableList(orders));
+        return OrderSnapshot.of(snapshotVersion, days);
+    }
+
+    /// Same file as the flat-file DAO's export, rows streamed in order number order.
+    /// The count for progress is taken just before, rows committed in between only make it a little off.
+    @Override
+    public boolean exportAllData(ExportJob job) throws PersistenceException {
+        long start = System.nanoTime();
+        try (ExportFile export = new ExportFile(backupFolder, job, queryInt("SELECT COUNT(*) FROM orders"));
+             Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setFetchSize(BATCH_SIZE);
+            try (ResultSet rows = statement.executeQuery(SELECT + "ORDER BY order_number, order_date")) {
+                while (rows.next()) {
+                    if (!export.write(readOrder(rows))) {
+                        return false;
+                    }
+                }
+            }
+            export.commit();
+            return true;
+        } catch (IOException | SQLException e) {
+            EXPORT_ALL_DATA.recordError();
+            throw new PersistenceException("Could not export data.", e);
+        } finally {
+            EXPORT_ALL_DATA.recordSince(start);
+        }
+    }
+
+    private List<Order> query(String sql, Object... parameters) {
+        long start = System.nanoTime();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            bindParameters(statement, parameters);
+            List<Order> orders = new ArrayList<>();
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    orders.add(readOrder(rows));
+                }
+            }
+            return Collections.unmodifiableList(orders);
+        } catch (SQLException e) {
+            READ_ORDERS.recordError();
+            throw new IllegalStateException("Could not read orders.", e);
+        } finally {
+            READ_ORDERS.recordSince(start);
+        }
+    }
+
+    private int queryInt(String sql, Object... parameters) {
+        long start = System.nanoTime();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            bindParameters(statement, parameters);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next() ? rows.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            READ_ORDERS.recordError();
+            throw new IllegalStateException("Could not read orders.", e);
+        } finally {
+            READ_ORDERS.recordSince(start);
+        }
+    }
+
+    private static void bindParameters(PreparedStatement statement, Object... parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+    }
+
+    /// Parameters in COLUMNS order
+    private static void bindOrder(PreparedStatement statement, Order order) throws SQLException {
+        statement.setInt(1, order.getOrderNumber());
+        statement.setObject(2, order.getOrderDate());
+        statement.setString(3, order.getCustomerName());
+        statement.setString(4, order.getTax().getStateAbbreviation());
+        statement.setBigDecimal(5, order.getTax().getTaxRate());
+        statement.setString(6, order.getProduct().getProductType());
+        statement.setBigDecimal(7, order.getArea());
+        statement.setBigDecimal(8, order.getProduct().getCostPerSquareFoot());
+        statement.setBigDecimal(9, order.getProduct().getLaborCostPerSquareFoot());
+        statement.setBigDecimal(10, order.getMaterialCost());
+        statement.setBigDecimal(11, order.getLaborCost());
+        statement.setBigDecimal(12, order.getTaxAmount());
+        statement.setBigDecimal(13, order.getTotal());
+    }
+
+    private Order readOrder(ResultSet rows) throws SQLException {
+        LocalDate orderDate = rows.getObject(2, LocalDate.class);
+        Tax tax = OrderFileFormat.sharedTax(taxDao, rows.getString(4), amount(rows, 5), orderDate);
+        Product product = OrderFileFormat.sharedProduct(productDao, rows.getString(6), amount(rows, 8),
+                amount(rows, 9), orderDate);
+
+        Order order = new Order(rows.getInt(1), rows.getString(3), tax, product, amount(rows, 7), orderDate);
+        order.setMaterialCost(amount(rows, 10));
+        order.setLaborCost(amount(rows, 11));
+        order.setTaxAmount(amount(rows, 12));
+        order.setTotal(amount(rows, 13));
+        return order;
+    }
+
+    private static BigDecimal amount(ResultSet rows, int column) throws SQLException {
+        return OrderFileFormat.trimAmount(rows.getBigDecimal(column));
+    }
+}
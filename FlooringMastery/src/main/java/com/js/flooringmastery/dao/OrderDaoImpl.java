@@ -1,246 +1,846 @@
 package com.js.flooringmastery.dao;
 
+import com.js.flooringmastery.dto.ExportJob;
 import com.js.flooringmastery.dto.Order;
-import com.js.flooringmastery.dto.Product;
-import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.dto.OrderSnapshot;
 import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.metrics.Metrics;
+import com.js.flooringmastery.metrics.OperationTimer;
 import org.springframework.stereotype.Repository;
 
 import java.io.*;
-import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDate;
 import java.util.*;
-import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 @Repository
 public class OrderDaoImpl implements OrderDao {
-    private static final String ORDERS_FOLDER = "SampleFileData/Orders/"; // Folder containing order files
-    private static final String DELIMITER = ",";
-    private final Map<LocalDate, List<Order>> ordersMap = new HashMap<>();
+    private static final String ORDERS_FOLDER = "Orders"; // Folder under the data root containing order files
+    private static final String ARCHIVE_FOLDER = "Archive"; // Monthly bundles of old days
+    private static final String INDEX_FOLDER = "Index"; // Order number index, rebuilt if missing
+    private static final String CHECKSUM_FOLDER = "Checksums"; // One sidecar per day file
+    private static final String QUARANTINE_FOLDER = "Quarantine"; // Day files that failed to load
+    private static final String BACKUP_FOLDER = "Backup"; // Where exportAllData writes DataExport.txt
+    private static final String LOCKS_FOLDER = "Locks"; // Lease file and change log shared between processes
+    private static final int ARCHIVE_CACHE_DAYS = 16;
+
+    private static final OperationTimer LOAD_ORDERS = Metrics.timer("dao.loadOrders");
+    private static final OperationTimer NEXT_ORDER_NUMBER = Metrics.timer("dao.getNextOrderNumber");
+    private static final OperationTimer SAVE_ORDERS_FOR_DATE = Metrics.timer("dao.saveOrdersForDate");
+    private static final OperationTimer EXPORT_ALL_DATA = Metrics.timer("dao.exportAllData");
+    private static final OperationTimer ARCHIVE = Metrics.timer("dao.archive");
+    private static final OperationTimer LOAD_ARCHIVED_DAY = Metrics.timer("dao.loadArchivedDay");
+    private static final LongAdder BYTES_READ = Metrics.counter("dao.bytesRead");
+    private static final LongAdder BYTES_WRITTEN = Metrics.counter("dao.bytesWritten");
+    private static final LongAdder QUARANTINED_FILES = Metrics.counter("dao.quarantinedFiles");
+    private static final LongAdder DAYS_MERGED = Metrics.counter("dao.daysMerged");
+    private static final LongAdder DAYS_RELOADED = Metrics.counter("dao.daysReloaded");
+
+    /// Regions of the lease file: handing out order numbers (and writing the index), appending to the
+    /// change log, and one per day (per month in the MONTHLY layout, where a save rewrites the month)
+    private static final long NUMBERS_REGION = 0;
+    private static final long CHANGES_REGION = 1;
+    private static final long DAY_REGIONS = 1L << 32;
+
+    /// Each day is an immutable list sorted by order number, and every change publishes a new snapshot
+    /// of all days, so readers (HTTP API, paging, export) never see a list or a set of days change under them
+    private final AtomicReference<OrderSnapshot> current = new AtomicReference<>(OrderSnapshot.empty());
+
+    /// Indexes of which days hold orders for a given state or product, so repricing doesn't scan every day
+    private final Map<String, NavigableSet<LocalDate>> datesByState = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<LocalDate>> datesByProduct = new ConcurrentHashMap<>();
+
+    /// Archived days aren't loaded at startup, the last few read are kept here
+    private final OrderArchive archive;
+    private final Map<LocalDate, List<Order>> archivedDays = Collections.synchronizedMap(
+            new LinkedHashMap<>(ARCHIVE_CACHE_DAYS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<LocalDate, List<Order>> eldest) {
+                    return size() > ARCHIVE_CACHE_DAYS;
+                }
+            });
+
+    /// The hot day files, one per day or one segment per month, verified by checksum when loaded
+    private final OrderFileLayout layout;
+    private final DayFileStore dayFiles;
+    private final Path backupFolder;
+
+    /// Order number -> day and line offset for every saved order, hot or archived
+    private final OrderNumberIndex numberIndex;
+
+    /// Other processes can use the same folder: saves hold the day's lease and merge in what another
+    /// process saved, then log the day so the others reload only the days that changed
+    private final FileLease lease;
+    private final Path changeLog;
+    private final String instanceId = Long.toHexString(new Random().nextLong()); /// Tags this DAO's log lines
+    private final Object changeLogLock = new Object();
+    private long changeLogOffset; /// Bytes of the change log already read, guarded by changeLogLock
+    private volatile long lastChangeSavedMillis; /// When the newest change read from another process was saved
+
+    private final Object exportLock = new Object();
+
+    /// Guards the two maps below and snapshot changes that depend on them
+    private final Object dayChanges = new Object();
+    /// Checksum of each day as this DAO last read or wrote it, another one on disk means another process saved it
+    private final Map<LocalDate, Long> syncedChecksums = new HashMap<>();
+    /// Order numbers added, replaced or removed in memory since their day was last saved
+    private final Map<LocalDate, Set<Integer>> unsaved = new HashMap<>();
+
+    /// Used to share one Tax/Product instance between loaded orders instead of one per row
+    private final TaxDao taxDao;
+    private final ProductDao productDao;
 
     public OrderDaoImpl(TaxDao taxDao, ProductDao productDao) {
+        this(taxDao, productDao, OrderFileLayout.DAILY);
+    }
+
+    public OrderDaoImpl(TaxDao taxDao, ProductDao productDao, OrderFileLayout layout) {
+        this(taxDao, productDao, layout, DataRoot.get());
+    }
+
+    /// Keeps its files in Orders (and Backup) under the given data root
+    public OrderDaoImpl(TaxDao taxDao, ProductDao productDao, OrderFileLayout layout, String dataRoot) {
+        this(taxDao, productDao, layout, dataRoot, "");
+    }
+
+    /// metricsPrefix goes in front of the gauge names, so each store of a StoreGroup reports its own
+    public OrderDaoImpl(TaxDao taxDao, ProductDao productDao, OrderFileLayout layout, String dataRoot,
+                        String metricsPrefix) {
+        this.taxDao = taxDao;
+        this.productDao = productDao;
+        this.layout = layout;
+        Path ordersFolder = DataRoot.resolve(dataRoot, ORDERS_FOLDER);
+        this.dayFiles = dayFileStore(layout, ordersFolder);
+        this.archive = new OrderArchive(ordersFolder.resolve(ARCHIVE_FOLDER));
+        this.backupFolder = DataRoot.resolve(dataRoot, BACKUP_FOLDER);
+        this.changeLog = ordersFolder.resolve(LOCKS_FOLDER).resolve("changes.log");
+        try {
+            this.lease = new FileLease(ordersFolder.resolve(LOCKS_FOLDER).resolve("orders.lease"));
+            this.numberIndex = new OrderNumberIndex(ordersFolder.resolve(INDEX_FOLDER));
+            /// Days saved from here on are logged after the load starts, so none are missed
+            this.changeLogOffset = Files.exists(changeLog) ? Files.size(changeLog) : 0;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open the order number index.", e);
+        }
         loadOrders();
+        try {
+            lease.hold(NUMBERS_REGION, () -> {
+                numberIndex.refresh();
+                checkNumberIndex();
+                return null;
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not check the order number index.", e);
+        }
+        Metrics.gauge(metricsPrefix + "dao.snapshotVersion", () -> current.get().getVersion());
     }
 
     @Override
     public void addOrder(Order order) {
-        ordersMap.computeIfAbsent(order.getOrderDate(), k -> new ArrayList<>()).add(order);
+        restoreArchivedDay(order.getOrderDate());
+        synchronized (dayChanges) {
+            unsaved.computeIfAbsent(order.getOrderDate(), date -> new HashSet<>()).add(order.getOrderNumber());
+            putOrder(order);
+        }
+        indexOrder(order);
+    }
+
+    private void putOrder(Order order) {
+        current.updateAndGet(snapshot -> {
+            List<Order> orders = snapshot.getOrders(order.getOrderDate());
+            List<Order> updated = new ArrayList<>(orders == null ? List.of() : orders);
+            int position = indexAfter(updated, order.getOrderNumber());
+            if (position > 0 && updated.get(position - 1).getOrderNumber() == order.getOrderNumber()) {
+                updated.set(position - 1, order); /// Same order number replaces the old order
+            } else {
+                updated.add(position, order);
+            }
+            return snapshot.withDay(order.getOrderDate(), List.copyOf(updated));
+        });
     }
 
     @Override
     public List<Order> getAllOrders(LocalDate orderDate) {
-        return ordersMap.getOrDefault(orderDate, new ArrayList<>());
+        return ordersOf(current.get(), orderDate);
+    }
+
+    /// The day in the snapshot, or from the archive if it isn't a hot day
+    private List<Order> ordersOf(OrderSnapshot snapshot, LocalDate orderDate) {
+        List<Order> orders = snapshot.getOrders(orderDate);
+        if (orders != null) {
+            return orders;
+        }
+        return archive.contains(orderDate) ? archivedDay(orderDate) : List.of();
     }
 
     @Override
     public Order getOrder(LocalDate orderDate, int orderNumber) {
-        return ordersMap.getOrDefault(orderDate, new ArrayList<>())
-                .stream()
-                .filter(order -> order.getOrderNumber() == orderNumber)
-                .findFirst()
-                .orElse(null);
+        List<Order> orders = getAllOrders(orderDate);
+        int position = indexAfter(orders, orderNumber) - 1;
+        return position >= 0 && orders.get(position).getOrderNumber() == orderNumber ? orders.get(position) : null;
     }
 
     @Override
     public void removeOrder(LocalDate orderDate, int orderNumber) {
-        List<Order> orders = ordersMap.get(orderDate);
-        if (orders != null) {
-            orders.removeIf(order -> order.getOrderNumber() == orderNumber);
+        /// The day stays (possibly empty) so saving it rewrites the file without the order
+        restoreArchivedDay(orderDate);
+        synchronized (dayChanges) {
+            unsaved.computeIfAbsent(orderDate, date -> new HashSet<>()).add(orderNumber);
+            current.updateAndGet(snapshot -> !snapshot.hasDay(orderDate) ? snapshot
+                    : snapshot.withDay(orderDate, snapshot.getOrders(orderDate).stream()
+                            .filter(order -> order.getOrderNumber() != orderNumber)
+                            .toList()));
+        }
+    }
+
+    @Override
+    public List<Order> getOrders(LocalDate orderDate, int offset, int limit) {
+        List<Order> orders = getAllOrders(orderDate);
+        int from = Math.min(Math.max(offset, 0), orders.size());
+        int to = (int) Math.min((long) from + Math.max(limit, 0), orders.size());
+        return orders.subList(from, to); /// View of the immutable day, nothing copied
+    }
+
+    @Override
+    public List<Order> getOrdersAfter(LocalDate orderDate, int afterOrderNumber, int limit) {
+        List<Order> orders = getAllOrders(orderDate);
+        return getOrders(orderDate, indexAfter(orders, afterOrderNumber), limit);
+    }
+
+    @Override
+    public NavigableSet<LocalDate> getOrderDates() {
+        NavigableSet<LocalDate> dates = new TreeSet<>(current.get().getDays().keySet());
+        dates.addAll(archive.dates());
+        return Collections.unmodifiableNavigableSet(dates);
+    }
+
+    @Override
+    public int countOrders(LocalDate orderDate) {
+        return getAllOrders(orderDate).size();
+    }
+
+    /// Position of the first order with a number greater than orderNumber (day lists are sorted)
+    private static int indexAfter(List<Order> orders, int orderNumber) {
+        int low = 0;
+        int high = orders.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (orders.get(mid).getOrderNumber() <= orderNumber) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
+        return low;
     }
 
     @Override
     public void saveOrders() throws PersistenceException {
-        for (Map.Entry<LocalDate, List<Order>> entry : ordersMap.entrySet()) {
+        for (Map.Entry<LocalDate, List<Order>> entry : current.get().getDays().entrySet()) {
             saveOrdersForDate(entry.getKey(), entry.getValue());
         }
     }
 
-    /// For saving orders to a specific date
-    public void saveOrdersForDate(LocalDate orderDate, List<Order> orders) throws PersistenceException {
-        String folderPath = "SampleFileData/Orders";
-        String fileName = String.format("%s/Orders_%s.txt", folderPath,
-                orderDate.format(java.time.format.DateTimeFormatter.ofPattern("MMddyyyy")));
-
-        File directory = new File(folderPath);
-        if (!directory.exists()) {
-            directory.mkdirs(); /// Creates the directory if it doesn't exist
+    @Override
+    public List<Order> getOrdersAffectedBy(LocalDate fromDate, String stateAbbreviation, String productType) {
+        OrderSnapshot snapshot = current.get();
+        /// No state or product means every order from the cutoff onwards
+        NavigableSet<LocalDate> candidateDates = new TreeSet<>();
+        if (stateAbbreviation == null && productType == null) {
+            candidateDates.addAll(snapshot.getDays(fromDate, null).keySet());
+        }
+        /// Archived days aren't in the state/product indexes, check them all (they're rarely past the cutoff)
+        for (LocalDate date : archive.dates().tailSet(fromDate, true)) {
+            if (!snapshot.hasDay(date)) {
+                candidateDates.add(date);
+            }
+        }
+        if (stateAbbreviation != null) {
+            candidateDates.addAll(datesByState.getOrDefault(stateAbbreviation, Collections.emptyNavigableSet())
+                    .tailSet(fromDate, true));
+        }
+        if (productType != null) {
+            candidateDates.addAll(datesByProduct.getOrDefault(productType, Collections.emptyNavigableSet())
+                    .tailSet(fromDate, true));
         }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(fileName))) {
+        /// Index entries can be stale after edits/removals, so re-check each order
+        List<Order> affected = new ArrayList<>();
+        for (LocalDate date : candidateDates) {
+            for (Order order : ordersOf(snapshot, date)) {
+                boolean anyOrder = stateAbbreviation == null && productType == null;
+                boolean stateMatch = stateAbbreviation != null
+                        && stateAbbreviation.equals(order.getTax().getStateAbbreviation());
+                boolean productMatch = productType != null
+                        && productType.equals(order.getProduct().getProductType());
+                if (anyOrder || stateMatch || productMatch) {
+                    affected.add(order);
+                }
+            }
+        }
+        return affected;
+    }
 
-            /// Write the header
-            writer.println("OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot," +
-                    "LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total");
+    /// Records the order's day under its state and product
+    private void indexOrder(Order order) {
+        datesByState.computeIfAbsent(order.getTax().getStateAbbreviation(), k -> new ConcurrentSkipListSet<>())
+                .add(order.getOrderDate());
+        datesByProduct.computeIfAbsent(order.getProduct().getProductType(), k -> new ConcurrentSkipListSet<>())
+                .add(order.getOrderDate());
+    }
 
-            /// Write each order
-            for (Order order : orders) {
-                writer.println(marshalOrder(order));
-            }
+    /// For saving orders to a specific date (one writer at a time per DAO). The day is written holding its
+    /// lease; if another process saved it since this DAO last did, the orders changed here are applied on
+    /// top of the stored day instead of replacing it. The saved day becomes the day in memory.
+    public synchronized void saveOrdersForDate(LocalDate orderDate, List<Order> orders) throws PersistenceException {
+        long start = System.nanoTime();
+        try {
+            lease.hold(dayRegion(orderDate), () -> {
+                writeDay(orderDate, orders);
+                return null;
+            });
+            logChange(orderDate);
         } catch (IOException e) {
+            SAVE_ORDERS_FOR_DATE.recordError();
             System.out.println("Error saving orders: " + e.getMessage());
             throw new PersistenceException("Could not save order data.", e);
+        } finally {
+            SAVE_ORDERS_FOR_DATE.recordSince(start);
         }
     }
 
-    /// For loading all orders files (scans orders folder)
-    private void loadOrders() {
-        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(ORDERS_FOLDER), "Orders_*.txt")) {
-            for (Path file : files) {
-                loadOrdersFromFile(file);
+    /// Runs holding the day's lease
+    private void writeDay(LocalDate orderDate, List<Order> orders) throws IOException {
+        byte[] stored = dayFiles.read(List.of(orderDate)).get(orderDate);
+        Set<Integer> changed;
+        List<Order> day;
+        synchronized (dayChanges) {
+            changed = changedNumbers(orderDate, orders);
+            /// The saved list becomes the day, so callers can hand in edited copies
+            List<Order> sorted = new ArrayList<>(orders);
+            sorted.sort(Comparator.comparingInt(Order::getOrderNumber));
+            Long synced = syncedChecksums.get(orderDate);
+            if (stored != null && (synced == null || synced != OrderFileChecksums.checksum(stored))) {
+                /// Not known to match what this DAO last saw (a day loaded at startup isn't checksummed)
+                sorted = merge(parseDay(orderDate, stored), sorted, changed);
+                if (synced != null) {
+                    DAYS_MERGED.increment();
+                }
             }
-        } catch (IOException e) {
-            System.out.println("Error loading order files.");
+            day = List.copyOf(sorted);
+            current.updateAndGet(snapshot -> snapshot.withDay(orderDate, day));
         }
+        /// Edits change an order's state/product in place, so refresh the index for this day
+        day.forEach(this::indexOrder);
+
+        NavigableMap<Integer, Long> offsets = new TreeMap<>();
+        ByteArrayOutputStream content = new ByteArrayOutputStream(128 * (day.size() + 1));
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(content, Charset.defaultCharset()))) {
+
+            /// Write the header
+            writer.println(OrderFileFormat.HEADER);
+            long offset = lineBytes(OrderFileFormat.HEADER);
+
+            /// Write each order, noting where its line starts for the order number index
+            for (Order order : day) {
+                String line = OrderFileFormat.marshal(order);
+                writer.println(line);
+                offsets.put(order.getOrderNumber(), offset);
+                offset += lineBytes(line);
+            }
+        }
+        byte[] bytes = content.toByteArray();
+        dayFiles.write(orderDate, bytes);
+        synchronized (dayChanges) {
+            syncedChecksums.put(orderDate, OrderFileChecksums.checksum(bytes));
+            Set<Integer> pending = unsaved.get(orderDate);
+            if (pending != null && pending.removeAll(changed) && pending.isEmpty()) {
+                unsaved.remove(orderDate);
+            }
+        }
+        Collection<Integer> previousNumbers = orderNumbersIn(stored);
+        lease.hold(NUMBERS_REGION, () -> {
+            numberIndex.refresh();
+            numberIndex.update(orderDate, offsets, previousNumbers);
+            return null;
+        });
+        BYTES_WRITTEN.add(bytes.length);
     }
 
-    ///  For loading specific order file
-    private void loadOrdersFromFile(Path filePath) throws IOException {
-        String fileName = filePath.getFileName().toString();
-        String dateString = fileName.substring(7, 15); /// Extracts MMDDYYYY
-        LocalDate orderDate = LocalDate.parse(dateString, java.time.format.DateTimeFormatter.ofPattern("MMddyyyy"));
+    /// Order numbers the save changes: marked by addOrder/removeOrder, or in the list as a different
+    /// instance than the day holds (edited copies), or left out of it
+    private Set<Integer> changedNumbers(LocalDate orderDate, List<Order> orders) {
+        Set<Integer> changed = new HashSet<>(unsaved.getOrDefault(orderDate, Set.of()));
+        List<Order> before = current.get().getOrders(orderDate);
+        Map<Integer, Order> held = new HashMap<>();
+        if (before != null) {
+            before.forEach(order -> held.put(order.getOrderNumber(), order));
+        }
+        for (Order order : orders) {
+            if (held.remove(order.getOrderNumber()) != order) {
+                changed.add(order.getOrderNumber());
+            }
+        }
+        changed.addAll(held.keySet());
+        return changed;
+    }
 
-        try (Scanner scanner = new Scanner(filePath)) {
-            scanner.nextLine(); /// Skip header
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                Order order = unmarshalOrder(line, orderDate);
-                addOrder(order);
+    /// The stored day with this DAO's changed orders applied over it, sorted by order number
+    private static List<Order> merge(List<Order> stored, List<Order> ours, Set<Integer> changed) {
+        NavigableMap<Integer, Order> merged = new TreeMap<>();
+        stored.forEach(order -> merged.put(order.getOrderNumber(), order));
+        Map<Integer, Order> oursByNumber = new HashMap<>();
+        ours.forEach(order -> oursByNumber.put(order.getOrderNumber(), order));
+        for (int orderNumber : changed) {
+            Order order = oursByNumber.get(orderNumber);
+            if (order == null) {
+                merged.remove(orderNumber);
+            } else {
+                merged.put(orderNumber, order);
             }
         }
+        return new ArrayList<>(merged.values());
     }
 
-    /// Helper for keeping track of order numbers
-    /// Reads all existing orders to find the highest order number, then increments by 1
-    public int getNextOrderNumber() {
-        int highestOrderNumber = 0;
+    private List<Order> parseDay(LocalDate orderDate, byte[] content) {
+        String[] lines = new String(content, Charset.defaultCharset()).split("\\R");
+        List<Order> orders = new ArrayList<>();
+        for (int i = 1; i < lines.length; i++) { /// Skip header
+            if (!lines[i].isBlank()) {
+                orders.add(OrderFileFormat.unmarshal(lines[i], orderDate, taxDao, productDao));
+            }
+        }
+        orders.sort(Comparator.comparingInt(Order::getOrderNumber));
+        return orders;
+    }
 
-        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(ORDERS_FOLDER), "Orders_*.txt")) {
-            for (Path file : files) {
-                try (Scanner scanner = new Scanner(file)) {
-                    scanner.nextLine(); /// Skip header
+    private long dayRegion(LocalDate orderDate) {
+        return DAY_REGIONS + (layout == OrderFileLayout.MONTHLY ? orderDate.getYear() * 12L + orderDate.getMonthValue()
+                : orderDate.toEpochDay());
+    }
 
-                    while (scanner.hasNextLine()) {
-                        String[] tokens = scanner.nextLine().split(DELIMITER);
-                        int orderNumber = Integer.parseInt(tokens[0]);
+    /// Appends "instance,date,saved at (epoch millis)" to the change log for the other processes
+    private void logChange(LocalDate orderDate) throws IOException {
+        byte[] line = (instanceId + "," + orderDate + "," + System.currentTimeMillis() + "\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        lease.hold(CHANGES_REGION, () -> {
+            try (FileChannel channel = FileChannel.open(changeLog, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.wrap(line));
+            }
+            return null;
+        });
+    }
 
-                        if (orderNumber > highestOrderNumber) {
-                            highestOrderNumber = orderNumber;
+    /// Reads the change log past what was read before and reloads the days other processes saved.
+    /// The first check is a file size, so calling this often is cheap when nothing changed.
+    @Override
+    public Set<LocalDate> refreshChangedDays() {
+        Set<LocalDate> changedDays = new TreeSet<>();
+        try {
+            synchronized (changeLogLock) {
+                long size = Files.exists(changeLog) ? Files.size(changeLog) : 0;
+                if (size <= changeLogOffset) {
+                    return Set.of();
+                }
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size - changeLogOffset, 1 << 24));
+                try (FileChannel channel = FileChannel.open(changeLog, StandardOpenOption.READ)) {
+                    while (buffer.hasRemaining() && channel.read(buffer, changeLogOffset + buffer.position()) > 0) {
+                        /// Until the buffer is full or the end of the file
+                    }
+                }
+                String read = new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+                int end = read.lastIndexOf('\n') + 1; /// A line still being appended waits for the next call
+                for (String line : read.substring(0, end).split("\n")) {
+                    String[] fields = line.split(",");
+                    if (fields.length >= 2 && !fields[0].equals(instanceId)) {
+                        changedDays.add(LocalDate.parse(fields[1]));
+                        if (fields.length >= 3) {
+                            lastChangeSavedMillis = Math.max(lastChangeSavedMillis, Long.parseLong(fields[2]));
                         }
                     }
                 }
+                changeLogOffset += end;
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error reading the order change log: " + e.getMessage());
+            return Set.of();
+        }
+        Set<LocalDate> reloaded = new TreeSet<>();
+        for (LocalDate orderDate : changedDays) {
+            if (reloadDay(orderDate)) {
+                reloaded.add(orderDate);
+            }
+        }
+        return reloaded;
+    }
+
+    /// Bytes other processes appended to the change log that refreshChangedDays hasn't read yet
+    public long getChangeLogBacklog() {
+        try {
+            long size = Files.exists(changeLog) ? Files.size(changeLog) : 0;
+            synchronized (changeLogLock) {
+                return Math.max(0, size - changeLogOffset);
             }
         } catch (IOException e) {
-            System.out.println("Error reading order files: " + e.getMessage());
+            return 0;
         }
+    }
 
-        return highestOrderNumber + 1; /// Assign next available order number
+    /// Epoch millis at which the newest change refreshChangedDays read was saved, 0 before any
+    public long getLastChangeSavedMillis() {
+        return lastChangeSavedMillis;
     }
 
-    ///  Converts an Order object into a format string for saving
-    private Order unmarshalOrder(String line, LocalDate orderDate) {
-        String[] tokens = line.split(DELIMITER);
+    /// Replaces the day with what's stored, unless it has unsaved changes here or was saved here meanwhile
+    /// (the next save merges those)
+    private boolean reloadDay(LocalDate orderDate) {
+        Long expected;
+        synchronized (dayChanges) {
+            expected = syncedChecksums.get(orderDate);
+        }
+        try {
+            byte[] content = lease.hold(dayRegion(orderDate), () -> dayFiles.read(List.of(orderDate)).get(orderDate));
+            if (content == null) {
+                return false; /// Archived by the other process, read from the archive when next asked
+            }
+            long checksum = OrderFileChecksums.checksum(content);
+            if (expected != null && expected == checksum) {
+                return false;
+            }
+            List<Order> day = List.copyOf(parseDay(orderDate, content));
+            synchronized (dayChanges) {
+                if (unsaved.containsKey(orderDate) || !Objects.equals(syncedChecksums.get(orderDate), expected)) {
+                    return false;
+                }
+                current.updateAndGet(snapshot -> snapshot.withDay(orderDate, day));
+                syncedChecksums.put(orderDate, checksum);
+            }
+            day.forEach(this::indexOrder);
+            DAYS_RELOADED.increment();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error reloading orders for " + orderDate + ": " + e.getMessage());
+            return false;
+        }
+    }
 
-        /// Extract order data
-        int orderNumber = Integer.parseInt(tokens[0]);
-        String customerName = tokens[1];
+    /// Bytes println writes for the line (the writer uses the default charset)
+    private static long lineBytes(String line) {
+        return line.getBytes(Charset.defaultCharset()).length + System.lineSeparator().length();
+    }
 
-        /// Extract tax info
-        String stateAbbreviation = tokens[2];
-        BigDecimal taxRate = new BigDecimal(tokens[3]);
-        Tax tax = new Tax(stateAbbreviation, "", taxRate); // Tax name is unused in orders file
+    /// Order numbers in the stored day, empty if it isn't stored yet
+    private static Collection<Integer> orderNumbersIn(byte[] content) {
+        if (content == null) {
+            return List.of();
+        }
+        String[] lines = new String(content, Charset.defaultCharset()).split("\\R");
+        List<Integer> numbers = new ArrayList<>();
+        try {
+            for (int i = 1; i < lines.length; i++) { /// Skip header
+                if (!lines[i].isBlank()) {
+                    numbers.add(Integer.parseInt(lines[i].split(OrderFileFormat.DELIMITER, 2)[0]));
+                }
+            }
+        } catch (NumberFormatException e) {
+            return List.of(); /// Unreadable old file, nothing to mark removed
+        }
+        return numbers;
+    }
 
-        /// Extract product info
-        String productType = tokens[4];
-        BigDecimal costPerSquareFoot = new BigDecimal(tokens[6]);
-        BigDecimal laborCostPerSquareFoot = new BigDecimal(tokens[7]);
-        Product product = new Product(productType, costPerSquareFoot, laborCostPerSquareFoot);
+    /// Rebuilds the order number index if it doesn't match the day files: behind them (missing or older
+    /// index) or pointing past them at an order that isn't removed (day files deleted outside the app)
+    private void checkNumberIndex() {
+        int highestInFiles = archive.highestOrderNumber();
+        OrderSnapshot snapshot = current.get();
+        for (List<Order> orders : snapshot.getDays().values()) {
+            if (!orders.isEmpty()) {
+                highestInFiles = Math.max(highestInFiles, orders.get(orders.size() - 1).getOrderNumber());
+            }
+        }
+        int lastIndexed = numberIndex.lastOrderNumber();
+        if (lastIndexed == highestInFiles || (lastIndexed > highestInFiles && numberIndex.find(lastIndexed) == null)) {
+            return;
+        }
 
-        /// Extract order values
-        BigDecimal area = new BigDecimal(tokens[5]);
-        BigDecimal materialCost = new BigDecimal(tokens[8]);
-        BigDecimal laborCost = new BigDecimal(tokens[9]);
-        BigDecimal taxAmount = new BigDecimal(tokens[10]);
-        BigDecimal total = new BigDecimal(tokens[11]);
+        NavigableMap<Integer, OrderNumberIndex.Entry> entries = new TreeMap<>();
+        try {
+            for (LocalDate date : archive.dates()) {
+                addLineOffsets(entries, date, archive.readDayFile(date));
+            }
+            for (Map.Entry<LocalDate, byte[]> day : dayFiles.read(snapshot.getDays().keySet()).entrySet()) {
+                addLineOffsets(entries, day.getKey(), day.getValue()); /// Hot copies win over archived ones
+            }
+            numberIndex.rebuild(entries);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error rebuilding order number index: " + e.getMessage());
+        }
+    }
 
-        /// Create order object
-        Order order = new Order(orderNumber, customerName, tax, product, area, orderDate);
+    /// Index entries for each order line of a day file
+    private static void addLineOffsets(NavigableMap<Integer, OrderNumberIndex.Entry> entries, LocalDate date,
+                                       byte[] content) {
+        int lineStart = 0;
+        boolean header = true;
+        for (int i = 0; i <= content.length; i++) {
+            if (i == content.length || content[i] == '\n') {
+                int lineEnd = i > lineStart && content[i - 1] == '\r' ? i - 1 : i;
+                if (!header && lineEnd > lineStart) {
+                    String line = new String(content, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+                    int orderNumber = Integer.parseInt(line.split(OrderFileFormat.DELIMITER, 2)[0]);
+                    entries.put(orderNumber, new OrderNumberIndex.Entry(date, lineStart));
+                }
+                header = false;
+                lineStart = i + 1;
+            }
+        }
+    }
 
-        /// Set costs
-        order.setMaterialCost(materialCost);
-        order.setLaborCost(laborCost);
-        order.setTaxAmount(taxAmount);
-        order.setTotal(total);
+    /// The store for a layout, both share the quarantine folder
+    private static DayFileStore dayFileStore(OrderFileLayout layout, Path ordersFolder) {
+        OrderFileChecksums checksums = new OrderFileChecksums(ordersFolder.resolve(CHECKSUM_FOLDER),
+                ordersFolder.resolve(QUARANTINE_FOLDER));
+        return layout == OrderFileLayout.MONTHLY ? new MonthlySegmentStore(ordersFolder, checksums)
+                : new DailyFileStore(ordersFolder, checksums);
+    }
 
-        return order;
+    /// For loading all orders files. The store reads, verifies (checksums) and parses them in parallel, each
+    /// holding its day's lease; a day that fails is quarantined instead of stopping the load.
+    private void loadOrders() {
+        long start = System.nanoTime();
+        try {
+            NavigableMap<LocalDate, List<Order>> loaded = new ConcurrentSkipListMap<>();
+            int quarantined = dayFiles.loadAll((orderDate, content) -> loadOrdersFromFile(loaded, orderDate, content),
+                    (orderDate, check) -> lease.hold(dayRegion(orderDate), check));
+            current.set(OrderSnapshot.of(0, loaded));
+            if (quarantined > 0) {
+                LOAD_ORDERS.recordError();
+                QUARANTINED_FILES.add(quarantined);
+            }
+        } finally {
+            LOAD_ORDERS.recordSince(start);
+        }
     }
 
-    /// Reads an order line from a file and converts it into an Order object
-    private String marshalOrder(Order order) {
-        return String.join(DELIMITER,
-                String.valueOf(order.getOrderNumber()),
-                order.getCustomerName(),
-                order.getTax().getStateAbbreviation(),
-                order.getTax().getTaxRate().toString(),
-                order.getProduct().getProductType(),
-                order.getArea().toString(),
-                order.getProduct().getCostPerSquareFoot().toString(),
-                order.getProduct().getLaborCostPerSquareFoot().toString(),
-                order.getMaterialCost().toString(),
-                order.getLaborCost().toString(),
-                order.getTaxAmount().toString(),
-                order.getTotal().toString()
-        );
+    ///  For loading a specific day's file, returns why it can't be used or null once it's loaded
+    private String loadOrdersFromFile(Map<LocalDate, List<Order>> loaded, LocalDate orderDate, byte[] content) {
+        BYTES_READ.add(content.length);
+        String[] lines = new String(content, Charset.defaultCharset()).split("\\R");
+        if (!lines[0].startsWith("OrderNumber")) {
+            return "missing header";
+        }
+        List<Order> orders = new ArrayList<>();
+        for (int i = 1; i < lines.length; i++) { /// Skip header
+            if (!lines[i].isBlank()) {
+                orders.add(OrderFileFormat.unmarshal(lines[i], orderDate, taxDao, productDao));
+            }
+        }
+        orders.sort(Comparator.comparingInt(Order::getOrderNumber));
+        loaded.put(orderDate, List.copyOf(orders));
+        orders.forEach(this::indexOrder);
+        return null;
     }
 
-    /// Stretch goal - Export data
-    public void exportAllData() throws PersistenceException {
-        String backupFolderPath = "SampleFileData/Backup";
-        String exportFilePath = backupFolderPath + "/DataExport.txt";
+    /// Moves every stored day from one layout to the other (run with no DAO open on the folder).
+    /// Returns the number of days converted.
+    public static int convertLayout(OrderFileLayout from, OrderFileLayout to) throws PersistenceException {
+        return convertLayout(DataRoot.get(), from, to);
+    }
 
-        File directory = new File(backupFolderPath);
-        if (!directory.exists()) {
-            directory.mkdirs();  /// Ensure the Backup folder exists
+    public static int convertLayout(String dataRoot, OrderFileLayout from, OrderFileLayout to)
+            throws PersistenceException {
+        if (from == to) {
+            return 0;
         }
+        Path ordersFolder = DataRoot.resolve(dataRoot, ORDERS_FOLDER);
+        try {
+            return DayFileStore.convert(dayFileStore(from, ordersFolder), dayFileStore(to, ordersFolder));
+        } catch (IOException e) {
+            throw new PersistenceException("Could not convert the order files.", e);
+        }
+    }
+
+    /// Releases the lease file
+    public void close() throws IOException {
+        lease.close();
+    }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(exportFilePath))) {
-            /// Write header
-            writer.println("OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,"
-                    + "LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total,OrderDate");
+    /// Current snapshot: taking it is a single read, it never changes afterwards
+    @Override
+    public OrderSnapshot snapshot() {
+        return current.get();
+    }
 
-            /// Collect all orders from all files and sort by Order Number
-            List<Order> allOrders = ordersMap.values().stream()
-                    .flatMap(List::stream)
-                    .sorted(Comparator.comparingInt(Order::getOrderNumber))
-                    .toList();
+    public OrderFileLayout getLayout() {
+        return layout;
+    }
 
-            for (Order order : allOrders) {
-                writer.println(marshalOrderForExport(order, order.getOrderDate()));
+    /// Helper for keeping track of order numbers
+    /// The order number index is sorted, so the highest number is its last entry
+    public int getNextOrderNumber() {
+        long start = System.nanoTime();
+        try {
+            return Math.max(numberIndex.lastOrderNumber(), archive.highestOrderNumber()) + 1;
+        } finally {
+            NEXT_ORDER_NUMBER.recordSince(start);
+        }
+    }
+
+    /// Reserves the number in the order number index holding the order number lease, so processes
+    /// sharing the folder never hand out the same one
+    @Override
+    public int allocateOrderNumber() {
+        long start = System.nanoTime();
+        try {
+            return lease.hold(NUMBERS_REGION, () -> numberIndex.reserve(archive.highestOrderNumber() + 1));
+        } catch (IOException e) {
+            NEXT_ORDER_NUMBER.recordError();
+            throw new IllegalStateException("Could not reserve an order number.", e);
+        } finally {
+            NEXT_ORDER_NUMBER.recordSince(start);
+        }
+    }
+
+    /// Looks the number up in the order number index; an archived day that isn't cached
+    /// only has the one line read from its bundle
+    @Override
+    public Order findOrder(int orderNumber) {
+        OrderNumberIndex.Entry entry = numberIndex.find(orderNumber);
+        if (entry == null) {
+            try {
+                numberIndex.refresh(); /// Maybe saved by another process
+            } catch (IOException e) {
+                System.out.println("Error refreshing the order number index: " + e.getMessage());
             }
+            entry = numberIndex.find(orderNumber);
+        }
+        if (entry == null) {
+            return null;
+        }
+        LocalDate orderDate = entry.getOrderDate();
+        if (current.get().hasDay(orderDate) || archivedDays.containsKey(orderDate)) {
+            return getOrder(orderDate, orderNumber);
+        }
+        try {
+            String line = archive.readLine(orderDate, entry.getOffset());
+            return line == null ? null : OrderFileFormat.unmarshal(line, orderDate, taxDao, productDao);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error reading archived order " + orderNumber + ": " + e.getMessage());
+            return null;
+        }
+    }
 
+    /// Moves the day files older than the cutoff into the monthly archive bundles, so they're no longer
+    /// loaded at startup (run with no other process using the folder). Returns the number of days archived.
+    public synchronized int archiveDaysBefore(LocalDate cutoff) throws PersistenceException {
+        long start = System.nanoTime();
+        int archived;
+        try {
+            NavigableMap<LocalDate, byte[]> days = dayFiles.read(current.get().getDays(null, cutoff).keySet());
+            /// Bundles and index are written before any day file goes, so a crash leaves a day in both places
+            /// and the hot copy wins
+            archive.add(days);
+            for (LocalDate date : days.keySet()) {
+                current.updateAndGet(snapshot -> snapshot.withoutDay(date));
+                archivedDays.remove(date);
+            }
+            dayFiles.remove(days.keySet());
+            archived = days.size();
         } catch (IOException e) {
-            throw new PersistenceException("Could not export data.", e);
+            ARCHIVE.recordError();
+            throw new PersistenceException("Could not archive order days.", e);
+        } finally {
+            ARCHIVE.recordSince(start);
         }
+        return archived;
     }
 
-    /// Helper method for exportAllData() like marshalOrder but with order date added
-    private String marshalOrderForExport(Order order, LocalDate orderDate) {
-        return String.join(",",
-                String.valueOf(order.getOrderNumber()),
-                order.getCustomerName(),
-                order.getTax().getStateAbbreviation(),
-                order.getTax().getTaxRate().toString(),
-                order.getProduct().getProductType(),
-                order.getArea().toString(),
-                order.getProduct().getCostPerSquareFoot().toString(),
-                order.getProduct().getLaborCostPerSquareFoot().toString(),
-                order.getMaterialCost().toString(),
-                order.getLaborCost().toString(),
-                order.getTaxAmount().toString(),
-                order.getTotal().toString(),
-                orderDate.format(DateTimeFormatter.ofPattern("MM-dd-yyyy")) // Format the date
-        );
+    /// Archived day through the small cache
+    private List<Order> archivedDay(LocalDate orderDate) {
+        List<Order> orders = archivedDays.get(orderDate);
+        if (orders == null) {
+            orders = loadArchivedDay(orderDate);
+            archivedDays.put(orderDate, orders);
+        }
+        return orders;
+    }
+
+    private List<Order> loadArchivedDay(LocalDate orderDate) {
+        long start = System.nanoTime();
+        try {
+            List<Order> orders = new ArrayList<>();
+            for (String line : archive.readDay(orderDate)) {
+                orders.add(OrderFileFormat.unmarshal(line, orderDate, taxDao, productDao));
+            }
+            orders.sort(Comparator.comparingInt(Order::getOrderNumber));
+            return List.copyOf(orders);
+        } catch (IOException | RuntimeException e) {
+            LOAD_ARCHIVED_DAY.recordError();
+            System.out.println("Error reading archived orders for " + orderDate + ": " + e.getMessage());
+            return List.of();
+        } finally {
+            LOAD_ARCHIVED_DAY.recordSince(start);
+        }
+    }
+
+    /// A change to an archived day brings it back into the hot set, saving it writes a day file again
+    private void restoreArchivedDay(LocalDate orderDate) {
+        if (!current.get().hasDay(orderDate) && archive.contains(orderDate)) {
+            List<Order> orders = archivedDay(orderDate);
+            current.updateAndGet(snapshot -> snapshot.hasDay(orderDate) ? snapshot
+                    : snapshot.withDay(orderDate, orders));
+            orders.forEach(this::indexOrder);
+        }
+    }
+
+    /// Stretch goal - Export data
+    /// Reads one snapshot, so it doesn't hold the DAO's monitor and saves carry on while it writes.
+    /// Exports run one at a time, they share the temp file.
+    @Override
+    public boolean exportAllData(ExportJob job) throws PersistenceException {
+        synchronized (exportLock) {
+            return exportSnapshot(job);
+        }
+    }
+
+    private boolean exportSnapshot(ExportJob job) throws PersistenceException {
+        long start = System.nanoTime();
+        /// Collect all orders from one snapshot of the days and the archived days, and sort by Order Number.
+        /// Orders taken or changed while the export runs aren't in it, and don't wait for it.
+        OrderSnapshot snapshot = current.get();
+        List<Order> allOrders = new ArrayList<>();
+        snapshot.getDays().values().forEach(allOrders::addAll);
+        for (LocalDate date : archive.dates()) {
+            if (!snapshot.hasDay(date)) {
+                allOrders.addAll(loadArchivedDay(date)); /// Not cached, the export reads each day once
+            }
+        }
+        allOrders.sort(Comparator.comparingInt(Order::getOrderNumber));
+
+        try (ExportFile export = new ExportFile(backupFolder, job, allOrders.size())) {
+            for (Order order : allOrders) {
+                if (!export.write(order)) {
+                    return false;
+                }
+            }
+            BYTES_WRITTEN.add(export.commit());
+            return true;
+        } catch (IOException e) {
+            EXPORT_ALL_DATA.recordError();
+            throw new PersistenceException("Could not export data.", e);
+        } finally {
+            EXPORT_ALL_DATA.recordSince(start);
+        }
     }
 
 }
@@ -0,0 +1,679 @@
+package com.js.flooringmastery.dao;
+
+import com.js.flooringmastery.dto.ExportJob;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderSnapshot;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.metrics.Metrics;
+import com.js.flooringmastery.metrics.OperationTimer;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/// OrderDao keeping orders as fixed-width records in memory-mapped segment files (records-NNNNN.dat)
+/// Strings live in a side dictionary (strings-NNNNN.dat): states and product types are stored once,
+/// customer names once per record. The heap only holds two int indexes, so a restart is one sequential
+/// scan of the records and tens of millions of orders fit in a small heap.
+///
+/// An order number identifies one live record: adding an order with a number already stored appends the new
+/// version and retires the old record, slots aren't reused.
+public class OrderDaoMappedImpl implements OrderDao {
+    /// Record layout, amounts are longs at scale 4
+    private static final int NUMBER = 0;
+    private static final int EPOCH_DAY = 4;
+    private static final int CUSTOMER = 8;
+    private static final int STATE = 16;
+    private static final int PRODUCT = 24;
+    private static final int TAX_RATE = 32;
+    private static final int AREA = 40;
+    private static final int COST_PER_SQUARE_FOOT = 48;
+    private static final int LABOR_PER_SQUARE_FOOT = 56;
+    private static final int MATERIAL_COST = 64;
+    private static final int LABOR_COST = 72;
+    private static final int TAX_AMOUNT = 80;
+    private static final int TOTAL = 88;
+    static final int FLAGS = 96;
+    static final int RECORD_SIZE = 104;
+
+    /// FLAGS values, a zero-filled slot marks the end of the records
+    private static final int EMPTY = 0;
+    private static final int LIVE = 1;
+    private static final int DELETED = 2;
+
+    private static final int AMOUNT_SCALE = 4;
+    private static final int EXPORT_CHUNK = 4096; /// Order numbers read per read-lock hold while exporting
+
+    private static final OperationTimer OPEN = Metrics.timer("mapped.open");
+    private static final OperationTimer SAVE_ORDERS_FOR_DATE = Metrics.timer("mapped.saveOrdersForDate");
+    private static final OperationTimer EXPORT_ALL_DATA = Metrics.timer("mapped.exportAllData");
+
+    private final MappedSegments records;
+    private final MappedSegments strings;
+    private final int recordsPerSegment;
+    private final Path backupFolder;
+
+    /// Readers share the mappings, writers change records and indexes one at a time
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int recordCount;         /// Slots used, live or deleted
+    private long stringEnd;          /// Where the next dictionary string goes
+    private int highestOrderNumber;  /// Highest number ever stored, removed orders included
+    private int liveOrders;
+    private long version;            /// Bumped by every change, tags snapshots
+
+    /// Record index + 1 for each order number, 0 when the number isn't stored
+    private int[] recordByNumber = new int[1024];
+    /// Each day's order numbers, sorted, replaced on every change
+    private final NavigableMap<LocalDate, int[]> numbersByDay = new TreeMap<>();
+    /// Record index of each of those numbers, same positions. Also replaced rather than changed, and a slot
+    /// isn't written again once it's complete, so a snapshot keeps the arrays and decodes them later.
+    private final NavigableMap<LocalDate, int[]> recordsByDay = new TreeMap<>();
+    /// Dictionary entries for states and product types, both ways. Strings are read without the lock by snapshots.
+    private final Map<String, Long> sharedRefs = new HashMap<>();
+    private final Map<Long, String> sharedStrings = new ConcurrentHashMap<>();
+
+    /// Used to share one Tax/Product instance between loaded orders instead of one per row
+    private final TaxDao taxDao;
+    private final ProductDao productDao;
+
+    public OrderDaoMappedImpl(String folder, TaxDao taxDao, ProductDao productDao) {
+        this(folder, taxDao, productDao, DataRoot.resolve(DataRoot.get(), "Backup").toString());
+    }
+
+    /// Exports go to DataExport.txt in backupFolder
+    public OrderDaoMappedImpl(String folder, TaxDao taxDao, ProductDao productDao, String backupFolder) {
+        this(folder, taxDao, productDao, backupFolder, "");
+    }
+
+    /// metricsPrefix goes in front of the gauge names, so each store of a StoreGroup reports its own
+    public OrderDaoMappedImpl(String folder, TaxDao taxDao, ProductDao productDao, String backupFolder,
+                              String metricsPrefix) {
+        /// 104 MB of records, 64 MB of strings per segment
+        this(folder, taxDao, productDao, backupFolder, metricsPrefix, 1 << 20, 64 << 20);
+    }
+
+    OrderDaoMappedImpl(String folder, TaxDao taxDao, ProductDao productDao, int recordsPerSegment,
+                       int stringSegmentBytes) {
+        this(folder, taxDao, productDao, DataRoot.resolve(DataRoot.get(), "Backup").toString(), "",
+                recordsPerSegment, stringSegmentBytes);
+    }
+
+    private OrderDaoMappedImpl(String folder, TaxDao taxDao, ProductDao productDao, String backupFolder,
+                               String metricsPrefix, int recordsPerSegment, int stringSegmentBytes) {
+        this.taxDao = taxDao;
+        this.productDao = productDao;
+        this.backupFolder = Paths.get(backupFolder);
+        this.recordsPerSegment = recordsPerSegment;
+        long start = System.nanoTime();
+        try {
+            this.records = new MappedSegments(Paths.get(folder), "records", recordsPerSegment * RECORD_SIZE);
+            this.strings = new MappedSegments(Paths.get(folder), "strings", stringSegmentBytes);
+            open();
+        } catch (IOException e) {
+            OPEN.recordError();
+            throw new IllegalStateException("Could not open the order store in " + folder + ".", e);
+        } finally {
+            OPEN.recordSince(start);
+        }
+        Metrics.gauge(metricsPrefix + "mapped.records", () -> recordCount);
+        Metrics.gauge(metricsPrefix + "mapped.liveOrders", () -> liveOrders);
+    }
+
+    /// Rebuilds the indexes with one pass over the records
+    private void open() {
+        for (int index = 0; index / recordsPerSegment < records.count(); index++) {
+            MappedByteBuffer segment = records.get(index / recordsPerSegment);
+            int base = (index % recordsPerSegment) * RECORD_SIZE;
+            int flags = segment.getInt(base + FLAGS);
+            if (flags == EMPTY) {
+                break;
+            }
+            recordCount = index + 1;
+            int orderNumber = segment.getInt(base + NUMBER);
+            highestOrderNumber = Math.max(highestOrderNumber, orderNumber);
+            stringEnd = Math.max(stringEnd, endOfString(segment.getLong(base + CUSTOMER)));
+            for (int field : new int[]{STATE, PRODUCT}) {
+                long ref = segment.getLong(base + field);
+                stringEnd = Math.max(stringEnd, endOfString(ref));
+                sharedStrings.computeIfAbsent(ref, this::readString);
+            }
+            if (flags == LIVE) {
+                setRecord(orderNumber, index); /// A later record for the same number wins
+            }
+        }
+        sharedStrings.forEach((ref, value) -> sharedRefs.put(value, ref));
+
+        /// Walking numbers in order leaves each day sorted
+        Map<LocalDate, int[]> days = new HashMap<>();
+        Map<LocalDate, Integer> sizes = new HashMap<>();
+        for (int orderNumber = 1; orderNumber <= highestOrderNumber; orderNumber++) {
+            int index = recordOf(orderNumber);
+            if (index >= 0) {
+                LocalDate date = dateOf(index);
+                int size = sizes.merge(date, 1, Integer::sum);
+                int[] numbers = days.computeIfAbsent(date, d -> new int[16]);
+                if (size > numbers.length) {
+                    numbers = Arrays.copyOf(numbers, numbers.length * 2);
+                    days.put(date, numbers);
+                }
+                numbers[size - 1] = orderNumber;
+                liveOrders++;
+            }
+        }
+        days.forEach((date, numbers) -> numbersByDay.put(date, Arrays.copyOf(numbers, sizes.get(date))));
+        numbersByDay.forEach((date, numbers) -> recordsByDay.put(date,
+                Arrays.stream(numbers).map(this::recordOf).toArray()));
+    }
+
+    /// Flushes the mappings (bean destroy-method)
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            records.force();
+            strings.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addOrder(Order order) {
+        lock.writeLock().lock();
+        try {
+            store(order);
+            version++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store order " + order.getOrderNumber() + ".", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Order> getAllOrders(LocalDate orderDate) {
+        lock.readLock().lock();
+        try {
+            int[] numbers = numbersByDay.getOrDefault(orderDate, new int[0]);
+            return readOrders(numbers, 0, numbers.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Order> getOrders(LocalDate orderDate, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] numbers = numbersByDay.getOrDefault(orderDate, new int[0]);
+            int from = Math.min(Math.max(offset, 0), numbers.length);
+            int to = (int) Math.min((long) from + Math.max(limit, 0), numbers.length);
+            return readOrders(numbers, from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Order> getOrdersAfter(LocalDate orderDate, int afterOrderNumber, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] numbers = numbersByDay.getOrDefault(orderDate, new int[0]);
+            int position = Arrays.binarySearch(numbers, afterOrderNumber);
+            int from = position >= 0 ? position + 1 : -position - 1;
+            int to = (int) Math.min((long) from + Math.max(limit, 0), numbers.length);
+            return readOrders(numbers, from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countOrders(LocalDate orderDate) {
+        lock.readLock().lock();
+        try {
+            return numbersByDay.getOrDefault(orderDate, new int[0]).length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public NavigableSet<LocalDate> getOrderDates() {
+        lock.readLock().lock();
+        try {
+            return Collections.unmodifiableNavigableSet(new TreeSet<>(numbersByDay.keySet()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Order getOrder(LocalDate orderDate, int orderNumber) {
+        lock.readLock().lock();
+        try {
+            int index = recordOf(orderNumber);
+            return index >= 0 && dateOf(index).equals(orderDate) ? readOrder(index) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Order findOrder(int orderNumber) {
+        lock.readLock().lock();
+        try {
+            int index = recordOf(orderNumber);
+            return index >= 0 ? readOrder(index) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeOrder(LocalDate orderDate, int orderNumber) {
+        lock.writeLock().lock();
+        try {
+            int index = recordOf(orderNumber);
+            if (index >= 0 && dateOf(index).equals(orderDate)) {
+                delete(index, orderNumber);
+                version++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /// Takes each day's record indexes under the read lock, which only copies the day map. Orders are decoded
+    /// from those records when the snapshot's lists are read, after the lock is released: the records they
+    /// point at stay as they were, whatever is stored since.
+    @Override
+    public OrderSnapshot snapshot() {
+        long snapshotVersion;
+        Map<LocalDate, int[]> records;
+        lock.readLock().lock();
+        try {
+            snapshotVersion = version;
+            records = new TreeMap<>(recordsByDay);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<LocalDate, List<Order>> days = new TreeMap<>();
+        records.forEach((date, indexes) -> days.put(date, new RecordList(indexes)));
+        return OrderSnapshot.of(snapshotVersion, days);
+    }
+
+    /// A day's orders decoded on each read, for snapshots
+    private final class RecordList extends AbstractList<Order> implements RandomAccess {
+        private final int[] indexes;
+
+        RecordList(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        @Override
+        public Order get(int position) {
+            return readOrder(indexes[position]);
+        }
+
+        @Override
+        public int size() {
+            return indexes.length;
+        }
+    }
+
+    /// Changes go straight into the mapped pages, saving makes sure they reach the disk
+    @Override
+    public void saveOrders() {
+        close();
+    }
+
+    /// Stores the given orders and drops the day's other orders, then flushes
+    @Override
+    public void saveOrdersForDate(LocalDate orderDate, List<Order> orders) throws PersistenceException {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            Set<Integer> kept = new HashSet<>();
+            for (Order order : orders) {
+                store(order);
+                kept.add(order.getOrderNumber());
+            }
+            for (int orderNumber : numbersByDay.getOrDefault(orderDate, new int[0])) {
+                if (!kept.contains(orderNumber)) {
+                    delete(recordOf(orderNumber), orderNumber);
+                }
+            }
+            version++;
+            records.force();
+            strings.force();
+        } catch (IOException e) {
+            SAVE_ORDERS_FOR_DATE.recordError();
+            System.out.println("Error saving orders: " + e.getMessage());
+            throw new PersistenceException("Could not save order data.", e);
+        } finally {
+            lock.writeLock().unlock();
+            SAVE_ORDERS_FOR_DATE.recordSince(start);
+        }
+    }
+
+    /// Numbers of removed orders aren't handed out again
+    @Override
+    public int getNextOrderNumber() {
+        lock.readLock().lock();
+        try {
+            return highestOrderNumber + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /// Compares dictionary references in the records, only matching orders are decoded
+    @Override
+    public List<Order> getOrdersAffectedBy(LocalDate fromDate, String stateAbbreviation, String productType) {
+        lock.readLock().lock();
+        try {
+            boolean anyOrder = stateAbbreviation == null && productType == null;
+            long stateRef = stateAbbreviation == null ? -1 : sharedRefs.getOrDefault(stateAbbreviation, -1L);
+            long productRef = productType == null ? -1 : sharedRefs.getOrDefault(productType, -1L);
+
+            List<Order> affected = new ArrayList<>();
+            for (int[] numbers : numbersByDay.tailMap(fromDate, true).values()) {
+                for (int orderNumber : numbers) {
+                    int index = recordOf(orderNumber);
+                    MappedByteBuffer segment = records.get(index / recordsPerSegment);
+                    int base = (index % recordsPerSegment) * RECORD_SIZE;
+                    if (anyOrder || segment.getLong(base + STATE) == stateRef
+                            || segment.getLong(base + PRODUCT) == productRef) {
+                        affected.add(readOrder(index));
+                    }
+                }
+            }
+            return affected;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /// Same file as the flat-file DAO's export, in order number order. The read lock is taken for EXPORT_CHUNK
+    /// order numbers at a time rather than the whole export, so writers aren't held up while it runs in the
+    /// background; orders past the highest number when it starts aren't exported.
+    @Override
+    public boolean exportAllData(ExportJob job) throws PersistenceException {
+        long start = System.nanoTime();
+        int lastOrderNumber;
+        long totalOrders;
+        lock.readLock().lock();
+        try {
+            lastOrderNumber = highestOrderNumber;
+            totalOrders = liveOrders;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try (ExportFile export = new ExportFile(backupFolder, job, totalOrders)) {
+            List<Order> chunk = new ArrayList<>(EXPORT_CHUNK);
+            for (int from = 1; from <= lastOrderNumber; from += EXPORT_CHUNK) {
+                int to = Math.min(from + EXPORT_CHUNK - 1, lastOrderNumber);
+                chunk.clear();
+                lock.readLock().lock();
+                try {
+                    for (int orderNumber = from; orderNumber <= to; orderNumber++) {
+                        int index = recordOf(orderNumber);
+                        if (index >= 0) {
+                            chunk.add(readOrder(index));
+                        }
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                for (Order order : chunk) {
+                    if (!export.write(order)) {
+                        return false;
+                    }
+                }
+            }
+            export.commit();
+            return true;
+        } catch (IOException e) {
+            EXPORT_ALL_DATA.recordError();
+            throw new PersistenceException("Could not export data.", e);
+        } finally {
+            EXPORT_ALL_DATA.recordSince(start);
+        }
+    }
+
+    private void store(Order order) throws IOException {
+        int orderNumber = order.getOrderNumber();
+        if (orderNumber <= 0) {
+            throw new IllegalArgumentException("Order number must be positive: " + orderNumber);
+        }
+        /// Convert everything first, so a bad amount leaves the store untouched
+        long[] amounts = {
+                unscaled(order.getTax().getTaxRate()),
+                unscaled(order.getArea()),
+                unscaled(order.getProduct().getCostPerSquareFoot()),
+                unscaled(order.getProduct().getLaborCostPerSquareFoot()),
+                unscaled(order.getMaterialCost()),
+                unscaled(order.getLaborCost()),
+                unscaled(order.getTaxAmount()),
+                unscaled(order.getTotal())
+        };
+        long stateRef = sharedRef(order.getTax().getStateAbbreviation());
+        long productRef = sharedRef(order.getProduct().getProductType());
+
+        int previous = recordOf(orderNumber);
+        long customerRef;
+        if (previous >= 0) {
+            long oldCustomerRef = longAt(previous, CUSTOMER);
+            if (!readString(oldCustomerRef).equals(order.getCustomerName())) {
+                customerRef = appendString(order.getCustomerName());
+            } else if (isStored(previous, order.getOrderDate(), stateRef, productRef, amounts)) {
+                return; /// Saving a day stores all of its orders, the unchanged ones keep their record
+            } else {
+                customerRef = oldCustomerRef;
+            }
+        } else {
+            customerRef = appendString(order.getCustomerName());
+        }
+
+        /// Every version goes to a fresh slot, the one it replaces is marked deleted once it's complete. A crash
+        /// part way leaves the old version live (or both, and open() takes the later), never a mix of the two.
+        int index = recordCount;
+        records.segment(index / recordsPerSegment); /// Map the next segment before the slot is used
+        recordCount++;
+        MappedByteBuffer segment = records.get(index / recordsPerSegment);
+        int base = (index % recordsPerSegment) * RECORD_SIZE;
+        segment.putInt(base + NUMBER, orderNumber);
+        segment.putInt(base + EPOCH_DAY, (int) order.getOrderDate().toEpochDay());
+        segment.putLong(base + CUSTOMER, customerRef);
+        segment.putLong(base + STATE, stateRef);
+        segment.putLong(base + PRODUCT, productRef);
+        for (int i = 0; i < amounts.length; i++) {
+            segment.putLong(base + TAX_RATE + i * Long.BYTES, amounts[i]); /// TAX_RATE through TOTAL
+        }
+        segment.putInt(base + FLAGS, LIVE); /// Last, so a slot is only counted once it's complete
+
+        if (previous >= 0) {
+            LocalDate oldDate = dateOf(previous);
+            records.get(previous / recordsPerSegment).putInt((previous % recordsPerSegment) * RECORD_SIZE + FLAGS,
+                    DELETED);
+            removeFromDay(oldDate, orderNumber);
+            addToDay(order.getOrderDate(), orderNumber, index);
+        } else {
+            liveOrders++;
+            addToDay(order.getOrderDate(), orderNumber, index);
+        }
+        setRecord(orderNumber, index);
+        highestOrderNumber = Math.max(highestOrderNumber, orderNumber);
+    }
+
+    /// Whether the record already holds these values (its customer name was compared by the caller)
+    private boolean isStored(int index, LocalDate orderDate, long stateRef, long productRef, long[] amounts) {
+        if (!dateOf(index).equals(orderDate) || longAt(index, STATE) != stateRef
+                || longAt(index, PRODUCT) != productRef) {
+            return false;
+        }
+        for (int i = 0; i < amounts.length; i++) {
+            if (longAt(index, TAX_RATE + i * Long.BYTES) != amounts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /// Marks the record deleted, the slot isn't reused (write lock held)
+    private void delete(int index, int orderNumber) {
+        records.get(index / recordsPerSegment).putInt((index % recordsPerSegment) * RECORD_SIZE + FLAGS, DELETED);
+        removeFromDay(dateOf(index), orderNumber);
+        recordByNumber[orderNumber] = 0;
+        liveOrders--;
+    }
+
+    private List<Order> readOrders(int[] numbers, int from, int to) {
+        List<Order> orders = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            orders.add(readOrder(recordOf(numbers[i])));
+        }
+        return Collections.unmodifiableList(orders);
+    }
+
+    private Order readOrder(int index) {
+        MappedByteBuffer segment = records.get(index / recordsPerSegment);
+        int base = (index % recordsPerSegment) * RECORD_SIZE;
+        LocalDate orderDate = LocalDate.ofEpochDay(segment.getInt(base + EPOCH_DAY));
+
+        Tax tax = OrderFileFormat.sharedTax(taxDao, sharedStrings.get(segment.getLong(base + STATE)),
+                amount(segment, base + TAX_RATE), orderDate);
+        Product product = OrderFileFormat.sharedProduct(productDao, sharedStrings.get(segment.getLong(base + PRODUCT)),
+                amount(segment, base + COST_PER_SQUARE_FOOT), amount(segment, base + LABOR_PER_SQUARE_FOOT), orderDate);
+
+        Order order = new Order(segment.getInt(base + NUMBER), readString(segment.getLong(base + CUSTOMER)),
+                tax, product, amount(segment, base + AREA), orderDate);
+        order.setMaterialCost(amount(segment, base + MATERIAL_COST));
+        order.setLaborCost(amount(segment, base + LABOR_COST));
+        order.setTaxAmount(amount(segment, base + TAX_AMOUNT));
+        order.setTotal(amount(segment, base + TOTAL));
+        return order;
+    }
+
+    private static BigDecimal amount(MappedByteBuffer segment, int position) {
+        return OrderFileFormat.trimAmount(BigDecimal.valueOf(segment.getLong(position), AMOUNT_SCALE));
+    }
+
+    private static long unscaled(BigDecimal amount) {
+        try {
+            return amount.setScale(AMOUNT_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount doesn't fit the order store: " + amount, e);
+        }
+    }
+
+    private long longAt(int index, int field) {
+        return records.get(index / recordsPerSegment).getLong((index % recordsPerSegment) * RECORD_SIZE + field);
+    }
+
+    private LocalDate dateOf(int index) {
+        int epochDay = records.get(index / recordsPerSegment).getInt((index % recordsPerSegment) * RECORD_SIZE + EPOCH_DAY);
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    /// Record index for the number, -1 if it isn't stored
+    private int recordOf(int orderNumber) {
+        return orderNumber > 0 && orderNumber < recordByNumber.length ? recordByNumber[orderNumber] - 1 : -1;
+    }
+
+    private void setRecord(int orderNumber, int index) {
+        if (orderNumber >= recordByNumber.length) {
+            recordByNumber = Arrays.copyOf(recordByNumber, Math.max(orderNumber + 1, recordByNumber.length * 2));
+        }
+        recordByNumber[orderNumber] = index + 1;
+    }
+
+    private void addToDay(LocalDate date, int orderNumber, int index) {
+        int[] numbers = numbersByDay.getOrDefault(date, new int[0]);
+        int position = -Arrays.binarySearch(numbers, orderNumber) - 1;
+        numbersByDay.put(date, inserted(numbers, position, orderNumber));
+        recordsByDay.put(date, inserted(recordsByDay.getOrDefault(date, new int[0]), position, index));
+    }
+
+    private static int[] inserted(int[] values, int position, int value) {
+        int[] updated = new int[values.length + 1];
+        System.arraycopy(values, 0, updated, 0, position);
+        updated[position] = value;
+        System.arraycopy(values, position, updated, position + 1, values.length - position);
+        return updated;
+    }
+
+    /// The day stays (possibly empty) like it does for the file DAO
+    private void removeFromDay(LocalDate date, int orderNumber) {
+        int[] numbers = numbersByDay.getOrDefault(date, new int[0]);
+        int position = Arrays.binarySearch(numbers, orderNumber);
+        if (position >= 0) {
+            numbersByDay.put(date, removed(numbers, position));
+            recordsByDay.put(date, removed(recordsByDay.get(date), position));
+        }
+    }
+
+    private static int[] removed(int[] values, int position) {
+        int[] updated = new int[values.length - 1];
+        System.arraycopy(values, 0, updated, 0, position);
+        System.arraycopy(values, position + 1, updated, position, values.length - position - 1);
+        return updated;
+    }
+
+    /// Dictionary reference for a state or product type, stored the first time it's seen
+    private long sharedRef(String value) throws IOException {
+        Long ref = sharedRefs.get(value);
+        if (ref == null) {
+            ref = appendString(value);
+            sharedRefs.put(value, ref);
+            sharedStrings.put(ref, value);
+        }
+        return ref;
+    }
+
+    /// Dictionary entries are a 2-byte length then UTF-8 bytes, never split across segments
+    private long appendString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Text too long for the order store: " + value.length() + " characters");
+        }
+        int segmentBytes = strings.segmentBytes();
+        if (stringEnd % segmentBytes + 2 + bytes.length > segmentBytes) {
+            stringEnd = (stringEnd / segmentBytes + 1) * segmentBytes;
+        }
+        MappedByteBuffer segment = strings.segment((int) (stringEnd / segmentBytes));
+        int position = (int) (stringEnd % segmentBytes);
+        segment.putShort(position, (short) bytes.length);
+        segment.put(position + 2, bytes);
+        long ref = stringEnd;
+        stringEnd += 2 + bytes.length;
+        return ref;
+    }
+
+    private String readString(long ref) {
+        int segmentBytes = strings.segmentBytes();
+        MappedByteBuffer segment = strings.get((int) (ref / segmentBytes));
+        int position = (int) (ref % segmentBytes);
+        byte[] bytes = new byte[segment.getShort(position)];
+        segment.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long endOfString(long ref) {
+        MappedByteBuffer segment = strings.get((int) (ref / strings.segmentBytes()));
+        return ref + 2 + segment.getShort((int) (ref % strings.segmentBytes()));
+    }
+}
@@ -0,0 +1,102 @@
+package com.js.flooringmastery.dao;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.CRC32C;
+
+/// Checksum sidecars for the day files (Checksums/Orders_MMddyyyy.txt.crc holding "crc32c length"),
+/// and the quarantine folder where day files that fail verification are moved with a report line
+final class OrderFileChecksums {
+    private static final String SIDECAR_SUFFIX = ".crc";
+    private static final String REPORT_FILE = "report.txt";
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path checksumFolder;
+    private final Path quarantineFolder;
+
+    OrderFileChecksums(Path checksumFolder, Path quarantineFolder) {
+        this.checksumFolder = checksumFolder;
+        this.quarantineFolder = quarantineFolder;
+    }
+
+    static long checksum(byte[] content) {
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    /// Records the checksum and length of a day file just written
+    void write(String dayFileName, long checksum, long length) throws IOException {
+        Files.createDirectories(checksumFolder);
+        Path temp = checksumFolder.resolve(dayFileName + SIDECAR_SUFFIX + ".tmp");
+        Files.writeString(temp, Long.toHexString(checksum) + " " + length + System.lineSeparator());
+        Files.move(temp, checksumFolder.resolve(dayFileName + SIDECAR_SUFFIX),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void delete(String dayFileName) throws IOException {
+        Files.deleteIfExists(checksumFolder.resolve(dayFileName + SIDECAR_SUFFIX));
+    }
+
+    /// Why the content doesn't match its recorded checksum, null if it does.
+    /// Files without a sidecar (written before checksums, or copied in by hand) pass.
+    String mismatch(String dayFileName, byte[] content) throws IOException {
+        Path sidecar = checksumFolder.resolve(dayFileName + SIDECAR_SUFFIX);
+        if (!Files.exists(sidecar)) {
+            return null;
+        }
+        String[] recorded = Files.readString(sidecar).trim().split(" ");
+        if (recorded.length != 2) {
+            return "unreadable checksum file";
+        }
+        long expectedLength = Long.parseLong(recorded[1]);
+        if (content.length != expectedLength) {
+            return "length " + content.length + " but " + expectedLength + " was saved";
+        }
+        if (checksum(content) != Long.parseUnsignedLong(recorded[0], 16)) {
+            return "checksum mismatch";
+        }
+        return null;
+    }
+
+    boolean has(String dayFileName) {
+        return Files.exists(checksumFolder.resolve(dayFileName + SIDECAR_SUFFIX));
+    }
+
+    /// Moves a bad day file (and its sidecar, if any) out of the orders folder and appends the reason to the report.
+    /// Returns where the file went.
+    synchronized Path quarantine(Path dayFile, String reason) throws IOException {
+        Files.createDirectories(quarantineFolder);
+        String dayFileName = dayFile.getFileName().toString();
+        String stamp = LocalDateTime.now().format(STAMP);
+        Path target = quarantineFolder.resolve(dayFileName + "." + stamp);
+        Files.move(dayFile, target, StandardCopyOption.REPLACE_EXISTING);
+        Path sidecar = checksumFolder.resolve(dayFileName + SIDECAR_SUFFIX);
+        if (Files.exists(sidecar)) {
+            Files.move(sidecar, quarantineFolder.resolve(dayFileName + SIDECAR_SUFFIX + "." + stamp),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        report(stamp, dayFileName, target, reason);
+        return target;
+    }
+
+    /// Same for a day that was stored inside another file (monthly segments): its content is written out
+    synchronized Path quarantine(String dayFileName, byte[] content, String reason) throws IOException {
+        Files.createDirectories(quarantineFolder);
+        String stamp = LocalDateTime.now().format(STAMP);
+        Path target = quarantineFolder.resolve(dayFileName + "." + stamp);
+        Files.write(target, content);
+        report(stamp, dayFileName, target, reason);
+        return target;
+    }
+
+    private void report(String stamp, String fileName, Path target, String reason) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(quarantineFolder.resolve(REPORT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            writer.println(stamp + " " + fileName + " -> " + target.getFileName() + ": " + reason);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.js.flooringmastery.dao;
+
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/// Line format of the Orders_MMddyyyy.txt files and the data export, shared by the order DAOs
+final class OrderFileFormat {
+    static final String DELIMITER = ",";
+    static final String HEADER = "OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,"
+            + "LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total";
+    static final String EXPORT_HEADER = HEADER + ",OrderDate";
+    static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("MMddyyyy");
+    static final DateTimeFormatter EXPORT_DATE = DateTimeFormatter.ofPattern("MM-dd-yyyy");
+
+    private OrderFileFormat() {
+    }
+
+    static String fileName(LocalDate orderDate) {
+        return "Orders_" + orderDate.format(FILE_DATE) + ".txt";
+    }
+
+    /// Reads an order line from a file and converts it into an Order object
+    static Order unmarshal(String line, LocalDate orderDate, TaxDao taxDao, ProductDao productDao) {
+        String[] tokens = line.split(DELIMITER);
+
+        /// Extract order data
+        int orderNumber = Integer.parseInt(tokens[0]);
+        String customerName = tokens[1];
+
+        /// Extract tax and product info
+        Tax tax = sharedTax(taxDao, tokens[2], new BigDecimal(tokens[3]), orderDate);
+        Product product = sharedProduct(productDao, tokens[4], new BigDecimal(tokens[6]), new BigDecimal(tokens[7]),
+                orderDate);
+
+        /// Create order object
+        Order order = new Order(orderNumber, customerName, tax, product, new BigDecimal(tokens[5]), orderDate);
+
+        /// Set costs
+        order.setMaterialCost(new BigDecimal(tokens[8]));
+        order.setLaborCost(new BigDecimal(tokens[9]));
+        order.setTaxAmount(new BigDecimal(tokens[10]));
+        order.setTotal(new BigDecimal(tokens[11]));
+
+        return order;
+    }
+
+    /// Converts an Order object into a line for saving
+    static String marshal(Order order) {
+        return String.join(DELIMITER,
+                String.valueOf(order.getOrderNumber()),
+                order.getCustomerName(),
+                order.getTax().getStateAbbreviation(),
+                order.getTax().getTaxRate().toString(),
+                order.getProduct().getProductType(),
+                order.getArea().toString(),
+                order.getProduct().getCostPerSquareFoot().toString(),
+                order.getProduct().getLaborCostPerSquareFoot().toString(),
+                order.getMaterialCost().toString(),
+                order.getLaborCost().toString(),
+                order.getTaxAmount().toString(),
+                order.getTotal().toString()
+        );
+    }
+
+    /// Like marshal but with the order date added, for the data export
+    static String marshalForExport(Order order) {
+        return marshal(order) + DELIMITER + order.getOrderDate().format(EXPORT_DATE);
+    }
+
+    /// Stored amounts come back with a fixed scale (3.5000), trim them to the 3.50 the files and rate tables use
+    static BigDecimal trimAmount(BigDecimal value) {
+        BigDecimal trimmed = value.stripTrailingZeros();
+        return trimmed.scale() < 2 ? trimmed.setScale(2) : trimmed;
+    }
+
+    /// The rate version in effect on the order date when the stored values match it, so loaded orders
+    /// share one Tax instance instead of one per row
+    static Tax sharedTax(TaxDao taxDao, String stateAbbreviation, BigDecimal taxRate, LocalDate orderDate) {
+        Tax tax = taxDao.getTaxByState(stateAbbreviation, orderDate);
+        if (tax == null || !tax.getStateAbbreviation().equals(stateAbbreviation) || !tax.getTaxRate().equals(taxRate)) {
+            tax = new Tax(stateAbbreviation, "", taxRate); // Tax name is unused in orders file
+        }
+        return tax;
+    }
+
+    /// Same as sharedTax for products
+    static Product sharedProduct(ProductDao productDao, String productType, BigDecimal costPerSquareFoot,
+                                 BigDecimal laborCostPerSquareFoot, LocalDate orderDate) {
+        Product product = productDao.getProductByType(productType, orderDate);
+        if (product == null || !product.getProductType().equals(productType)
+                || !product.getCostPerSquareFoot().equals(costPerSquareFoot)
+                || !product.getLaborCostPerSquareFoot().equals(laborCostPerSquareFoot)) {
+            product = new Product(productType, costPerSquareFoot, laborCostPerSquareFoot);
+        }
+        return product;
+    }
+}
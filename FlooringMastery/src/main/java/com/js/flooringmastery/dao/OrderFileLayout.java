@@ -0,0 +1,9 @@
+package com.js.flooringmastery.dao;
+
+/// How OrderDaoImpl lays the order days out on disk
+public enum OrderFileLayout {
+    /// One Orders_MMddyyyy.txt per day, with a checksum sidecar each
+    DAILY,
+    /// One Orders_yyyyMM.seg per month holding the month's day files behind a header index of day offsets
+    MONTHLY
+}
@@ -0,0 +1,206 @@
+package com.js.flooringmastery.dao;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+/// Memory-mapped file of (order number, day, line offset) entries sorted by order number, so an order
+/// can be found from its number alone with a binary search, without loading or scanning any day file.
+/// Entries of removed orders stay as tombstones, so the last entry is always the highest number handed out.
+/// The file is mapped shared, so processes using the same folder see each other's entries; they write them
+/// while holding OrderDaoImpl's order number lease.
+final class OrderNumberIndex {
+    private static final int ENTRY_SIZE = 16; /// int number, int epoch day, long offset
+    private static final int ENTRIES_PER_SEGMENT = 1 << 20;
+    static final long REMOVED = -1;           /// Offset of a tombstone
+
+    /// Where an order number lives: its day and the byte offset of its line in the day file
+    static final class Entry {
+        private final LocalDate orderDate;
+        private final long offset;
+
+        Entry(LocalDate orderDate, long offset) {
+            this.orderDate = orderDate;
+            this.offset = offset;
+        }
+
+        LocalDate getOrderDate() {
+            return orderDate;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+    }
+
+    private final MappedSegments segments;
+    private int size;
+
+    OrderNumberIndex(Path folder) throws IOException {
+        this.segments = new MappedSegments(folder, "order-index", ENTRIES_PER_SEGMENT * ENTRY_SIZE);
+        /// Used entries come first and numbers are positive, so the first zero number ends the index
+        int low = 0;
+        int high = segments.count() * ENTRIES_PER_SEGMENT;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (numberAt(mid) != 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        this.size = low;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /// Highest order number ever indexed (removed ones included), 0 if empty
+    synchronized int lastOrderNumber() {
+        return size == 0 ? 0 : numberAt(size - 1);
+    }
+
+    /// Picks up entries (and segments) another process appended
+    synchronized void refresh() throws IOException {
+        long capacity = (long) segments.mapNew() * ENTRIES_PER_SEGMENT;
+        while (size < capacity && numberAt(size) != 0) {
+            size++;
+        }
+    }
+
+    /// Hands out the number after the highest indexed one (and at least atLeast), recorded as a tombstone
+    /// until its day is saved, so no other process can take it
+    synchronized int reserve(int atLeast) throws IOException {
+        refresh();
+        int orderNumber = Math.max(lastOrderNumber() + 1, atLeast);
+        write(size++, orderNumber, 0, REMOVED);
+        return orderNumber;
+    }
+
+    /// Where the order is, or null if the number was never stored or the order was removed
+    synchronized Entry find(int orderNumber) {
+        int position = search(orderNumber);
+        if (position < 0 || offsetAt(position) == REMOVED) {
+            return null;
+        }
+        return new Entry(LocalDate.ofEpochDay(epochDayAt(position)), offsetAt(position));
+    }
+
+    /// Records a saved day: line offsets for its orders, tombstones for its orders no longer in it.
+    /// Existing numbers are patched in place and new highest numbers appended; a number that falls
+    /// between existing ones (imports, hand-edited files) rewrites the index.
+    synchronized void update(LocalDate orderDate, NavigableMap<Integer, Long> offsets, Collection<Integer> removed)
+            throws IOException {
+        int epochDay = (int) orderDate.toEpochDay();
+        NavigableMap<Integer, Long> inserts = new TreeMap<>();
+        for (Map.Entry<Integer, Long> order : offsets.entrySet()) {
+            int position = search(order.getKey());
+            if (position >= 0) {
+                write(position, order.getKey(), epochDay, order.getValue());
+            } else if (size == 0 || order.getKey() > numberAt(size - 1)) {
+                write(size++, order.getKey(), epochDay, order.getValue());
+            } else {
+                inserts.put(order.getKey(), order.getValue());
+            }
+        }
+        for (int orderNumber : removed) {
+            int position = search(orderNumber);
+            if (position >= 0 && epochDayAt(position) == epochDay && !offsets.containsKey(orderNumber)) {
+                write(position, orderNumber, epochDay, REMOVED);
+            }
+        }
+        if (!inserts.isEmpty()) {
+            rewriteWith(epochDay, inserts);
+        }
+    }
+
+    /// Replaces the whole index, used when it's missing or behind the day files
+    synchronized void rebuild(NavigableMap<Integer, Entry> entries) throws IOException {
+        int position = 0;
+        for (Map.Entry<Integer, Entry> entry : entries.entrySet()) {
+            write(position++, entry.getKey(), (int) entry.getValue().getOrderDate().toEpochDay(),
+                    entry.getValue().getOffset());
+        }
+        clearFrom(position);
+    }
+
+    /// Merges out-of-order numbers into the sorted entries and writes everything back
+    private void rewriteWith(int epochDay, NavigableMap<Integer, Long> inserts) throws IOException {
+        int total = size + inserts.size();
+        int[] numbers = new int[total];
+        int[] days = new int[total];
+        long[] lineOffsets = new long[total];
+        int count = 0;
+        Iterator<Map.Entry<Integer, Long>> pending = inserts.entrySet().iterator();
+        Map.Entry<Integer, Long> next = pending.next();
+        for (int position = 0; position < size; position++) {
+            while (next != null && next.getKey() < numberAt(position)) {
+                numbers[count] = next.getKey();
+                days[count] = epochDay;
+                lineOffsets[count++] = next.getValue();
+                next = pending.hasNext() ? pending.next() : null;
+            }
+            numbers[count] = numberAt(position);
+            days[count] = epochDayAt(position);
+            lineOffsets[count++] = offsetAt(position);
+        }
+        while (next != null) {
+            numbers[count] = next.getKey();
+            days[count] = epochDay;
+            lineOffsets[count++] = next.getValue();
+            next = pending.hasNext() ? pending.next() : null;
+        }
+        for (int position = 0; position < count; position++) {
+            write(position, numbers[position], days[position], lineOffsets[position]);
+        }
+        size = count;
+    }
+
+    private void clearFrom(int position) throws IOException {
+        for (int i = position; i < size; i++) {
+            write(i, 0, 0, 0);
+        }
+        size = position;
+    }
+
+    /// Position of the number, or -1
+    private int search(int orderNumber) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int number = numberAt(mid);
+            if (number < orderNumber) {
+                low = mid + 1;
+            } else if (number > orderNumber) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private void write(int position, int orderNumber, int epochDay, long offset) throws IOException {
+        MappedByteBuffer segment = segments.segment(position / ENTRIES_PER_SEGMENT);
+        int base = (position % ENTRIES_PER_SEGMENT) * ENTRY_SIZE;
+        segment.putInt(base + 4, epochDay);
+        segment.putLong(base + 8, offset);
+        segment.putInt(base, orderNumber); /// Last, an entry counts once its number is set
+    }
+
+    private int numberAt(int position) {
+        return segments.get(position / ENTRIES_PER_SEGMENT).getInt((position % ENTRIES_PER_SEGMENT) * ENTRY_SIZE);
+    }
+
+    private int epochDayAt(int position) {
+        return segments.get(position / ENTRIES_PER_SEGMENT).getInt((position % ENTRIES_PER_SEGMENT) * ENTRY_SIZE + 4);
+    }
+
+    private long offsetAt(int position) {
+        return segments.get(position / ENTRIES_PER_SEGMENT).getLong((position % ENTRIES_PER_SEGMENT) * ENTRY_SIZE + 8);
+    }
+}
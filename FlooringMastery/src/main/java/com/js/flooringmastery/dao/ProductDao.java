@@ -1,12 +1,26 @@
 package com.js.flooringmastery.dao;
 
 import com.js.flooringmastery.dto.Product;
+import java.time.LocalDate;
 import java.util.List;
 
 public interface ProductDao {
 
     List<Product> getAllProducts();
 
+    /// Product for specific type (case-insensitive)
     Product getProductByType(String productType);
 
+    /// Small integer code for the product, stable across reloads, or -1 if it isn't sold
+    int getProductCode(String productType);
+
+    Product getProductByCode(int productCode);
+
+    /// Product prices in effect on a given date (from ProductHistory.txt, falling back to Products.txt)
+    Product getProductByType(String productType, LocalDate asOf);
+
+    /// Id of the price version in effect on a given date, or -1 if none
+    int getProductVersionId(String productType, LocalDate asOf);
+
+    Product getProductVersion(int versionId);
 }
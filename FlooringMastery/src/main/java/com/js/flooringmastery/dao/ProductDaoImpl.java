@@ -1,46 +1,148 @@
 package com.js.flooringmastery.dao;
 
 import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.metrics.Metrics;
+import com.js.flooringmastery.metrics.OperationTimer;
 import org.springframework.stereotype.Repository;
 
 import java.io.*;
 import java.math.BigDecimal;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.*;
 
 @Repository
-public class ProductDaoImpl implements ProductDao {
-    private static final String PRODUCT_FILE = "SampleFileData/Data/Products.txt";
+public class ProductDaoImpl implements ProductDao, ReloadableDao {
     private static final String DELIMITER = ",";
-    private final Map<String, Product> products = new HashMap<>();
+    private static final OperationTimer RELOAD = Metrics.timer("dao.reloadProducts");
+
+    private final Path productFile;
+    private final Path productHistoryFile; /// Optional dated prices
+
+    /// Replaced as a whole on reload, so lookups never see a half-loaded table
+    private volatile RateTable<Product> products = new RateTable<>(new LookupTable<>(Collections.emptyMap()),
+            Collections.emptyMap(), LocalDate.now());
+    private volatile long dataVersion;
+    private volatile long lastReloadNanos;
 
     public ProductDaoImpl() {
-        loadProductData();
+        this(DataRoot.get());
+    }
+
+    /// Reads Data/Products.txt (and Data/ProductHistory.txt) under the given data root
+    public ProductDaoImpl(String dataRoot) {
+        this(dataRoot, "");
+    }
+
+    /// metricsPrefix goes in front of the gauge name, so each store of a StoreGroup reports its own
+    public ProductDaoImpl(String dataRoot, String metricsPrefix) {
+        this.productFile = DataRoot.resolve(dataRoot, "Data", "Products.txt");
+        this.productHistoryFile = DataRoot.resolve(dataRoot, "Data", "ProductHistory.txt");
+        reload();
+        Metrics.gauge(metricsPrefix + "dao.products.dataVersion", this::getDataVersion);
     }
 
     @Override
     public List<Product> getAllProducts() {
-        return new ArrayList<>(products.values());
+        return products.current().values();
     }
 
     @Override
     public Product getProductByType(String productType) {
-        return products.get(productType);
+        return products.current().get(productType);
+    }
+
+    @Override
+    public int getProductCode(String productType) {
+        return products.current().codeOf(productType);
+    }
+
+    @Override
+    public Product getProductByCode(int productCode) {
+        return products.current().get(productCode);
+    }
+
+    @Override
+    public Product getProductByType(String productType, LocalDate asOf) {
+        return products.asOf(productType, asOf);
+    }
+
+    @Override
+    public int getProductVersionId(String productType, LocalDate asOf) {
+        return products.versionIdAsOf(productType, asOf);
+    }
+
+    @Override
+    public Product getProductVersion(int versionId) {
+        return products.version(versionId);
+    }
+
+    @Override
+    public List<Path> getDataFiles() {
+        return List.of(productFile, productHistoryFile);
     }
 
-    private void loadProductData() {
-        try (Scanner scanner = new Scanner(Files.newBufferedReader(Paths.get(PRODUCT_FILE)))) {
+    @Override
+    public synchronized boolean reload() {
+        long start = System.nanoTime();
+        try {
+            LookupTable<Product> current = new LookupTable<>(products.current(), loadProductData());
+            products = new RateTable<>(current, loadProductHistory(), LocalDate.now());
+        } catch (IOException | RuntimeException e) {
+            RELOAD.recordError();
+            System.out.println("Error loading product data.");
+            return false;
+        }
+        RELOAD.recordSince(start);
+        lastReloadNanos = System.nanoTime() - start;
+        dataVersion++;
+        return true;
+    }
+
+    @Override
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    @Override
+    public long getLastReloadNanos() {
+        return lastReloadNanos;
+    }
+
+    private Map<String, Product> loadProductData() throws IOException {
+        Map<String, Product> loaded = new LinkedHashMap<>();
+        try (Scanner scanner = new Scanner(Files.newBufferedReader(productFile))) {
             scanner.nextLine(); /// Skip header row
 
             while (scanner.hasNextLine()) {
                 String line = scanner.nextLine();
                 Product product = unmarshalProduct(line);
-                products.put(product.getProductType(), product);
+                loaded.put(product.getProductType(), product);
+            }
+        }
+        return loaded;
+    }
+
+    /// Reads ProductType,CostPerSquareFoot,LaborCostPerSquareFoot,EffectiveDate rows, if the history file exists
+    private Map<String, NavigableMap<LocalDate, Product>> loadProductHistory() throws IOException {
+        Map<String, NavigableMap<LocalDate, Product>> history = new HashMap<>();
+        Path historyFile = productHistoryFile;
+        if (!Files.exists(historyFile)) {
+            return history;
+        }
+
+        try (Scanner scanner = new Scanner(Files.newBufferedReader(historyFile))) {
+            scanner.nextLine(); /// Skip header row
+
+            while (scanner.hasNextLine()) {
+                String line = scanner.nextLine();
+                Product product = unmarshalProduct(line);
+                LocalDate effectiveDate = LocalDate.parse(line.split(DELIMITER)[3]);
+                history.computeIfAbsent(product.getProductType(), k -> new TreeMap<>()).put(effectiveDate, product);
             }
-        } catch (IOException e) {
-            System.out.println("Error loading product data.");
         }
+        return history;
     }
 
     private Product unmarshalProduct(String line) {
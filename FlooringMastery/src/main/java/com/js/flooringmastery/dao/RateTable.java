@@ -0,0 +1,67 @@
+package com.js.flooringmastery.dao;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/// Current rates plus effective-dated versions for each state or product
+/// The current file's row is in effect from the latest dated version on or before today,
+/// dated versions after today are scheduled changes
+public final class RateTable<T> {
+    private final LookupTable<T> current;
+    private final List<T> versions = new ArrayList<>();                         /// Value for each version id
+    private final List<NavigableMap<LocalDate, Integer>> versionIdsByCode = new ArrayList<>(); /// Effective date -> version id
+
+    /// History rows for names that aren't in the current file are ignored
+    public RateTable(LookupTable<T> current, Map<String, NavigableMap<LocalDate, T>> history, LocalDate today) {
+        this.current = current;
+        for (int code = 0; code < current.codeCount(); code++) {
+            versionIdsByCode.add(new TreeMap<>());
+        }
+
+        for (Map.Entry<String, NavigableMap<LocalDate, T>> entry : history.entrySet()) {
+            int code = current.codeOf(entry.getKey());
+            if (code < 0) {
+                continue;
+            }
+            for (Map.Entry<LocalDate, T> version : entry.getValue().entrySet()) {
+                addVersion(code, version.getKey(), version.getValue());
+            }
+        }
+
+        for (int code = 0; code < versionIdsByCode.size(); code++) {
+            T value = current.get(code);
+            if (value != null) {
+                LocalDate effective = versionIdsByCode.get(code).floorKey(today);
+                addVersion(code, effective == null ? LocalDate.MIN : effective, value);
+            }
+        }
+    }
+
+    public LookupTable<T> current() {
+        return current;
+    }
+
+    /// Version in effect for the name on the given date, -1 if none
+    public int versionIdAsOf(CharSequence key, LocalDate asOf) {
+        int code = current.codeOf(key);
+        if (code < 0) {
+            return -1;
+        }
+        Map.Entry<LocalDate, Integer> entry = versionIdsByCode.get(code).floorEntry(asOf);
+        return entry == null ? -1 : entry.getValue();
+    }
+
+    public T asOf(CharSequence key, LocalDate asOf) {
+        return version(versionIdAsOf(key, asOf));
+    }
+
+    /// Version ids are only meaningful within the load that handed them out
+    public T version(int versionId) {
+        return versionId >= 0 && versionId < versions.size() ? versions.get(versionId) : null;
+    }
+
+    private void addVersion(int code, LocalDate effective, T value) {
+        versionIdsByCode.get(code).put(effective, versions.size());
+        versions.add(value);
+    }
+}
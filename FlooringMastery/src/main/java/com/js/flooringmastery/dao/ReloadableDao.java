@@ -0,0 +1,20 @@
+package com.js.flooringmastery.dao;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/// A DAO backed by a single data file that can be re-read while the program runs
+public interface ReloadableDao {
+
+    /// Files this DAO is loaded from, the main data file first
+    List<Path> getDataFiles();
+
+    /// Re-reads the data file and swaps in the new data, keeping the old data if the file can't be parsed
+    boolean reload();
+
+    /// Number of successful loads so far (1 after the constructor's load)
+    long getDataVersion();
+
+    /// How long the last successful load took
+    long getLastReloadNanos();
+}
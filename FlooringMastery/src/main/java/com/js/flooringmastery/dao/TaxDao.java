@@ -1,12 +1,26 @@
 package com.js.flooringmastery.dao;
 
 import com.js.flooringmastery.dto.Tax;
+import java.time.LocalDate;
 import java.util.List;
 
 public interface TaxDao {
 
     List<Tax> getAllTaxes();
 
-    /// Tax for specific state
+    /// Tax for specific state (case-insensitive)
     Tax getTaxByState(String stateAbbreviation);
+
+    /// Small integer code for the state, stable across reloads, or -1 if we don't sell there
+    int getStateCode(String stateAbbreviation);
+
+    Tax getTaxByCode(int stateCode);
+
+    /// Tax in effect for the state on a given date (from TaxHistory.txt, falling back to Taxes.txt)
+    Tax getTaxByState(String stateAbbreviation, LocalDate asOf);
+
+    /// Id of the rate version in effect on a given date, or -1 if none
+    int getTaxVersionId(String stateAbbreviation, LocalDate asOf);
+
+    Tax getTaxVersion(int versionId);
 }
@@ -1,46 +1,148 @@
 package com.js.flooringmastery.dao;
 
 import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.metrics.Metrics;
+import com.js.flooringmastery.metrics.OperationTimer;
 import org.springframework.stereotype.Repository;
 
 import java.io.*;
 import java.math.BigDecimal;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.*;
 
 @Repository
-public class TaxDaoImpl implements TaxDao {
-    private static final String TAX_FILE = "SampleFileData/Data/Taxes.txt";
+public class TaxDaoImpl implements TaxDao, ReloadableDao {
     private static final String DELIMITER = ",";
-    private final Map<String, Tax> taxes = new HashMap<>();
+    private static final OperationTimer RELOAD = Metrics.timer("dao.reloadTaxes");
+
+    private final Path taxFile;
+    private final Path taxHistoryFile; /// Optional dated rates
+
+    /// Replaced as a whole on reload, so lookups never see a half-loaded table
+    private volatile RateTable<Tax> taxes = new RateTable<>(new LookupTable<>(Collections.emptyMap()),
+            Collections.emptyMap(), LocalDate.now());
+    private volatile long dataVersion;
+    private volatile long lastReloadNanos;
 
     public TaxDaoImpl() {
-        loadTaxData();
+        this(DataRoot.get());
+    }
+
+    /// Reads Data/Taxes.txt (and Data/TaxHistory.txt) under the given data root
+    public TaxDaoImpl(String dataRoot) {
+        this(dataRoot, "");
+    }
+
+    /// metricsPrefix goes in front of the gauge name, so each store of a StoreGroup reports its own
+    public TaxDaoImpl(String dataRoot, String metricsPrefix) {
+        this.taxFile = DataRoot.resolve(dataRoot, "Data", "Taxes.txt");
+        this.taxHistoryFile = DataRoot.resolve(dataRoot, "Data", "TaxHistory.txt");
+        reload();
+        Metrics.gauge(metricsPrefix + "dao.taxes.dataVersion", this::getDataVersion);
     }
 
     @Override
     public List<Tax> getAllTaxes() {
-        return new ArrayList<>(taxes.values());
+        return taxes.current().values();
     }
 
     @Override
     public Tax getTaxByState(String stateAbbreviation) {
-        return taxes.get(stateAbbreviation);
+        return taxes.current().get(stateAbbreviation);
+    }
+
+    @Override
+    public int getStateCode(String stateAbbreviation) {
+        return taxes.current().codeOf(stateAbbreviation);
+    }
+
+    @Override
+    public Tax getTaxByCode(int stateCode) {
+        return taxes.current().get(stateCode);
+    }
+
+    @Override
+    public Tax getTaxByState(String stateAbbreviation, LocalDate asOf) {
+        return taxes.asOf(stateAbbreviation, asOf);
+    }
+
+    @Override
+    public int getTaxVersionId(String stateAbbreviation, LocalDate asOf) {
+        return taxes.versionIdAsOf(stateAbbreviation, asOf);
+    }
+
+    @Override
+    public Tax getTaxVersion(int versionId) {
+        return taxes.version(versionId);
+    }
+
+    @Override
+    public List<Path> getDataFiles() {
+        return List.of(taxFile, taxHistoryFile);
     }
 
-    private void loadTaxData() {
-        try (Scanner scanner = new Scanner(Files.newBufferedReader(Paths.get(TAX_FILE)))) {
+    @Override
+    public synchronized boolean reload() {
+        long start = System.nanoTime();
+        try {
+            LookupTable<Tax> current = new LookupTable<>(taxes.current(), loadTaxData());
+            taxes = new RateTable<>(current, loadTaxHistory(), LocalDate.now());
+        } catch (IOException | RuntimeException e) {
+            RELOAD.recordError();
+            System.out.println("Error loading tax data.");
+            return false;
+        }
+        RELOAD.recordSince(start);
+        lastReloadNanos = System.nanoTime() - start;
+        dataVersion++;
+        return true;
+    }
+
+    @Override
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    @Override
+    public long getLastReloadNanos() {
+        return lastReloadNanos;
+    }
+
+    private Map<String, Tax> loadTaxData() throws IOException {
+        Map<String, Tax> loaded = new LinkedHashMap<>();
+        try (Scanner scanner = new Scanner(Files.newBufferedReader(taxFile))) {
             scanner.nextLine(); /// Skip header row
 
             while (scanner.hasNextLine()) {
                 String line = scanner.nextLine();
                 Tax tax = unmarshalTax(line);
-                taxes.put(tax.getStateAbbreviation(), tax);
+                loaded.put(tax.getStateAbbreviation(), tax);
+            }
+        }
+        return loaded;
+    }
+
+    /// Reads State,StateName,TaxRate,EffectiveDate rows, if the history file exists
+    private Map<String, NavigableMap<LocalDate, Tax>> loadTaxHistory() throws IOException {
+        Map<String, NavigableMap<LocalDate, Tax>> history = new HashMap<>();
+        Path historyFile = taxHistoryFile;
+        if (!Files.exists(historyFile)) {
+            return history;
+        }
+
+        try (Scanner scanner = new Scanner(Files.newBufferedReader(historyFile))) {
+            scanner.nextLine(); /// Skip header row
+
+            while (scanner.hasNextLine()) {
+                String line = scanner.nextLine();
+                Tax tax = unmarshalTax(line);
+                LocalDate effectiveDate = LocalDate.parse(line.split(DELIMITER)[3]);
+                history.computeIfAbsent(tax.getStateAbbreviation(), k -> new TreeMap<>()).put(effectiveDate, tax);
             }
-        } catch (IOException e) {
-            System.out.println("Error loading tax data.");
         }
+        return history;
     }
 
     /// Converts strings from txt file into Tax object
@@ -0,0 +1,49 @@
+package com.js.flooringmastery.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/// One stored order whose cost columns don't match what the pricing rules give for its area and rates
+public class AuditMismatch {
+    private final int orderNumber;
+    private final LocalDate orderDate;
+    private final String customerName;
+    private final List<String> fields;
+    private final BigDecimal storedTotal;
+    private final BigDecimal expectedTotal;
+
+    public AuditMismatch(Order order, List<String> fields, BigDecimal expectedTotal) {
+        this.orderNumber = order.getOrderNumber();
+        this.orderDate = order.getOrderDate();
+        this.customerName = order.getCustomerName();
+        this.fields = List.copyOf(fields);
+        this.storedTotal = order.getTotal();
+        this.expectedTotal = expectedTotal;
+    }
+
+    public int getOrderNumber() {
+        return orderNumber;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    /// Columns that differ: MaterialCost, LaborCost, Tax and/or Total
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public BigDecimal getStoredTotal() {
+        return storedTotal;
+    }
+
+    public BigDecimal getExpectedTotal() {
+        return expectedTotal;
+    }
+}
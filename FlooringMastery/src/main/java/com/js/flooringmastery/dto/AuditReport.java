@@ -0,0 +1,39 @@
+package com.js.flooringmastery.dto;
+
+import java.util.List;
+
+/// Result of checking every stored order's costs against the pricing rules
+public class AuditReport {
+    private final long ordersScanned;
+    private final int daysScanned;
+    private final List<AuditMismatch> mismatches;
+    private final long elapsedNanos;
+
+    public AuditReport(long ordersScanned, int daysScanned, List<AuditMismatch> mismatches, long elapsedNanos) {
+        this.ordersScanned = ordersScanned;
+        this.daysScanned = daysScanned;
+        this.mismatches = List.copyOf(mismatches);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getOrdersScanned() {
+        return ordersScanned;
+    }
+
+    public int getDaysScanned() {
+        return daysScanned;
+    }
+
+    /// Sorted by order number
+    public List<AuditMismatch> getMismatches() {
+        return mismatches;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getOrdersPerSecond() {
+        return elapsedNanos == 0 ? 0 : ordersScanned * 1e9 / elapsedNanos;
+    }
+}
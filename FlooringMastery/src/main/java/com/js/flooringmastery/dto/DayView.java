@@ -0,0 +1,73 @@
+package com.js.flooringmastery.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/// One day's orders with their totals, worked out once. Immutable, so a cached view can be shown any number
+/// of times; a change to the day produces a new view rather than altering this one.
+public class DayView {
+    private final LocalDate orderDate;
+    private final List<Order> orders;
+    private final BigDecimal area;
+    private final BigDecimal materialCost;
+    private final BigDecimal laborCost;
+    private final BigDecimal taxAmount;
+    private final BigDecimal total;
+
+    /// orders must be read-only and sorted by order number
+    public DayView(LocalDate orderDate, List<Order> orders) {
+        this.orderDate = orderDate;
+        this.orders = orders;
+        BigDecimal area = BigDecimal.ZERO;
+        BigDecimal materialCost = BigDecimal.ZERO;
+        BigDecimal laborCost = BigDecimal.ZERO;
+        BigDecimal taxAmount = BigDecimal.ZERO;
+        BigDecimal total = BigDecimal.ZERO;
+        for (Order order : orders) {
+            area = add(area, order.getArea());
+            materialCost = add(materialCost, order.getMaterialCost());
+            laborCost = add(laborCost, order.getLaborCost());
+            taxAmount = add(taxAmount, order.getTaxAmount());
+            total = add(total, order.getTotal());
+        }
+        this.area = area;
+        this.materialCost = materialCost;
+        this.laborCost = laborCost;
+        this.taxAmount = taxAmount;
+        this.total = total;
+    }
+
+    /// Orders not priced yet count as nothing
+    private static BigDecimal add(BigDecimal sum, BigDecimal value) {
+        return value == null ? sum : sum.add(value);
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public BigDecimal getArea() {
+        return area;
+    }
+
+    public BigDecimal getMaterialCost() {
+        return materialCost;
+    }
+
+    public BigDecimal getLaborCost() {
+        return laborCost;
+    }
+
+    public BigDecimal getTaxAmount() {
+        return taxAmount;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+}
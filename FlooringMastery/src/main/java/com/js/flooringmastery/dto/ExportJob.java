@@ -0,0 +1,96 @@
+package com.js.flooringmastery.dto;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/// A data export running in the background. The exporting thread reports what it has written,
+/// the console reads it at any time and can ask the export to stop.
+public class ExportJob {
+    public enum Status { RUNNING, DONE, CANCELLED, FAILED }
+
+    private final int id;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong ordersWritten = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private volatile long totalOrders = -1; /// Unknown until the export has counted them
+    private volatile boolean cancelRequested;
+    private volatile Status status = Status.RUNNING;
+    private volatile long endNanos;
+    private volatile String error;
+
+    public ExportJob(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /// Asks the export to stop, false if it has already finished
+    public boolean cancel() {
+        if (status != Status.RUNNING) {
+            return false;
+        }
+        cancelRequested = true;
+        return true;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setTotalOrders(long totalOrders) {
+        this.totalOrders = totalOrders;
+    }
+
+    /// Called by the exporting thread after each write
+    public void written(int orders, long bytes) {
+        ordersWritten.addAndGet(orders);
+        bytesWritten.addAndGet(bytes);
+    }
+
+    public void finish(Status status, String error) {
+        this.endNanos = System.nanoTime();
+        this.error = error;
+        this.status = status;
+    }
+
+    public long getOrdersWritten() {
+        return ordersWritten.get();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /// -1 while unknown
+    public long getTotalOrders() {
+        return totalOrders;
+    }
+
+    /// Why the export failed, null otherwise
+    public String getError() {
+        return error;
+    }
+
+    public long getElapsedNanos() {
+        return (status == Status.RUNNING ? System.nanoTime() : endNanos) - startNanos;
+    }
+
+    public double getOrdersPerSecond() {
+        long elapsed = getElapsedNanos();
+        return elapsed == 0 ? 0 : getOrdersWritten() * 1e9 / elapsed;
+    }
+
+    /// Estimated time left at the rate so far, -1 when it can't be told yet
+    public long getEtaNanos() {
+        long written = getOrdersWritten();
+        if (status != Status.RUNNING || totalOrders < 0 || written == 0) {
+            return -1;
+        }
+        return (long) (Math.max(totalOrders - written, 0) * (double) getElapsedNanos() / written);
+    }
+}
@@ -27,6 +27,15 @@ public class Order {
         this.orderDate = orderDate;
     }
 
+    /// Copy constructor, used to work on an order without touching the stored one
+    public Order(Order other) {
+        this(other.orderNumber, other.customerName, other.tax, other.product, other.area, other.orderDate);
+        this.materialCost = other.materialCost;
+        this.laborCost = other.laborCost;
+        this.taxAmount = other.taxAmount;
+        this.total = other.total;
+    }
+
     /// Getters and Setters
     public int getOrderNumber() {
         return orderNumber;
@@ -0,0 +1,53 @@
+package com.js.flooringmastery.dto;
+
+import java.time.LocalDate;
+
+/// A change to a stored order, published by the service once the writer has applied it and saved its day.
+/// Changes to a day that failed to save are not published.
+public class OrderEvent {
+
+    public enum Type {
+        CREATED,
+        EDITED,
+        REMOVED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final Order order;
+    private final long publishedNanos;
+
+    public OrderEvent(long sequence, Type type, Order order, long publishedNanos) {
+        this.sequence = sequence;
+        this.type = type;
+        this.order = order;
+        this.publishedNanos = publishedNanos;
+    }
+
+    /// Position on the bus, one more than the previous event
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /// The order as stored after the change, or as it was before removal. Shared with readers, don't change it.
+    public Order getOrder() {
+        return order;
+    }
+
+    public LocalDate getOrderDate() {
+        return order.getOrderDate();
+    }
+
+    public int getOrderNumber() {
+        return order.getOrderNumber();
+    }
+
+    /// System.nanoTime() when it was published, for measuring delivery delay
+    public long getPublishedNanos() {
+        return publishedNanos;
+    }
+}
@@ -0,0 +1,42 @@
+package com.js.flooringmastery.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/// One page of a day's orders, plus what's needed to ask for the next page
+public class OrderPage {
+    private final LocalDate orderDate;
+    private final List<Order> orders;
+    private final int totalOrders;
+    private final boolean hasMore;
+
+    public OrderPage(LocalDate orderDate, List<Order> orders, int totalOrders, boolean hasMore) {
+        this.orderDate = orderDate;
+        this.orders = orders;
+        this.totalOrders = totalOrders;
+        this.hasMore = hasMore;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    /// Read-only
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    /// Orders in the whole day when the page was read
+    public int getTotalOrders() {
+        return totalOrders;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /// Order number to pass as "after" for the next page, or -1 if this page is empty
+    public int getLastOrderNumber() {
+        return orders.isEmpty() ? -1 : orders.get(orders.size() - 1).getOrderNumber();
+    }
+}
@@ -0,0 +1,111 @@
+package com.js.flooringmastery.dto;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/// Immutable point-in-time view of every day's orders, tagged with the version of the change that produced it.
+/// Days are kept in month buckets: a change copies only its month's bucket and the month index and shares
+/// every other bucket with the previous snapshot, so publishing a change is cheap and holding on to a
+/// snapshot (exports, audits) costs nothing while writers carry on.
+public final class OrderSnapshot {
+    private static final OrderSnapshot EMPTY = new OrderSnapshot(0, Collections.emptyNavigableMap(), 0);
+
+    private final long version;
+    private final NavigableMap<YearMonth, NavigableMap<LocalDate, List<Order>>> months; /// Never modified
+    private final int dayCount;
+
+    private OrderSnapshot(long version, NavigableMap<YearMonth, NavigableMap<LocalDate, List<Order>>> months,
+                          int dayCount) {
+        this.version = version;
+        this.months = months;
+        this.dayCount = dayCount;
+    }
+
+    public static OrderSnapshot empty() {
+        return EMPTY;
+    }
+
+    /// Snapshot of the given days (each list already sorted by order number and read-only)
+    public static OrderSnapshot of(long version, Map<LocalDate, List<Order>> days) {
+        NavigableMap<YearMonth, NavigableMap<LocalDate, List<Order>>> months = new TreeMap<>();
+        for (Map.Entry<LocalDate, List<Order>> day : days.entrySet()) {
+            months.computeIfAbsent(YearMonth.from(day.getKey()), month -> new TreeMap<>())
+                    .put(day.getKey(), day.getValue());
+        }
+        months.replaceAll((month, bucket) -> Collections.unmodifiableNavigableMap(bucket));
+        return new OrderSnapshot(version, Collections.unmodifiableNavigableMap(months), days.size());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getDayCount() {
+        return dayCount;
+    }
+
+    /// The day's orders, or null if the day isn't in the snapshot
+    public List<Order> getOrders(LocalDate orderDate) {
+        NavigableMap<LocalDate, List<Order>> bucket = months.get(YearMonth.from(orderDate));
+        return bucket == null ? null : bucket.get(orderDate);
+    }
+
+    public boolean hasDay(LocalDate orderDate) {
+        return getOrders(orderDate) != null;
+    }
+
+    /// Every day, oldest first
+    public NavigableMap<LocalDate, List<Order>> getDays() {
+        return getDays(null, null);
+    }
+
+    /// Days from `from` (inclusive) to `to` (exclusive), null for no bound; only the months in range are visited
+    public NavigableMap<LocalDate, List<Order>> getDays(LocalDate from, LocalDate to) {
+        NavigableMap<YearMonth, NavigableMap<LocalDate, List<Order>>> range = months;
+        if (from != null) {
+            range = range.tailMap(YearMonth.from(from), true);
+        }
+        if (to != null) {
+            range = range.headMap(YearMonth.from(to), true);
+        }
+        NavigableMap<LocalDate, List<Order>> days = new TreeMap<>();
+        for (NavigableMap<LocalDate, List<Order>> bucket : range.values()) {
+            for (Map.Entry<LocalDate, List<Order>> day : bucket.entrySet()) {
+                if ((from == null || !day.getKey().isBefore(from)) && (to == null || day.getKey().isBefore(to))) {
+                    days.put(day.getKey(), day.getValue());
+                }
+            }
+        }
+        return days;
+    }
+
+    /// This snapshot with the day replaced (or added), as the next version
+    public OrderSnapshot withDay(LocalDate orderDate, List<Order> orders) {
+        YearMonth month = YearMonth.from(orderDate);
+        NavigableMap<LocalDate, List<Order>> bucket = new TreeMap<>(months.getOrDefault(month,
+                Collections.emptyNavigableMap()));
+        boolean added = bucket.put(orderDate, orders) == null;
+        NavigableMap<YearMonth, NavigableMap<LocalDate, List<Order>>> updated = new TreeMap<>(months);
+        updated.put(month, Collections.unmodifiableNavigableMap(bucket));
+        return new OrderSnapshot(version + 1, Collections.unmodifiableNavigableMap(updated),
+                added ? dayCount + 1 : dayCount);
+    }
+
+    /// This snapshot without the day, as the next version (or itself if the day isn't there)
+    public OrderSnapshot withoutDay(LocalDate orderDate) {
+        if (!hasDay(orderDate)) {
+            return this;
+        }
+        YearMonth month = YearMonth.from(orderDate);
+        NavigableMap<LocalDate, List<Order>> bucket = new TreeMap<>(months.get(month));
+        bucket.remove(orderDate);
+        NavigableMap<YearMonth, NavigableMap<LocalDate, List<Order>>> updated = new TreeMap<>(months);
+        if (bucket.isEmpty()) {
+            updated.remove(month);
+        } else {
+            updated.put(month, Collections.unmodifiableNavigableMap(bucket));
+        }
+        return new OrderSnapshot(version + 1, Collections.unmodifiableNavigableMap(updated), dayCount - 1);
+    }
+}
@@ -0,0 +1,55 @@
+package com.js.flooringmastery.dto;
+
+import java.math.BigDecimal;
+
+/// What an order would cost at today's rates. Nothing is stored and no order number is taken.
+public class Quote {
+    private final Tax tax;
+    private final Product product;
+    private final BigDecimal area;
+    private final BigDecimal materialCost;
+    private final BigDecimal laborCost;
+    private final BigDecimal taxAmount;
+    private final BigDecimal total;
+
+    public Quote(Tax tax, Product product, BigDecimal area, BigDecimal materialCost, BigDecimal laborCost,
+                 BigDecimal taxAmount, BigDecimal total) {
+        this.tax = tax;
+        this.product = product;
+        this.area = area;
+        this.materialCost = materialCost;
+        this.laborCost = laborCost;
+        this.taxAmount = taxAmount;
+        this.total = total;
+    }
+
+    /// The state's rate the quote was priced with
+    public Tax getTax() {
+        return tax;
+    }
+
+    /// The product's prices the quote was priced with
+    public Product getProduct() {
+        return product;
+    }
+
+    public BigDecimal getArea() {
+        return area;
+    }
+
+    public BigDecimal getMaterialCost() {
+        return materialCost;
+    }
+
+    public BigDecimal getLaborCost() {
+        return laborCost;
+    }
+
+    public BigDecimal getTaxAmount() {
+        return taxAmount;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+}
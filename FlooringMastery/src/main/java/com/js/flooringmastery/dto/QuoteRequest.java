@@ -0,0 +1,28 @@
+package com.js.flooringmastery.dto;
+
+import java.math.BigDecimal;
+
+/// One combination to price: an area of a product in a state
+public class QuoteRequest {
+    private final String stateAbbreviation;
+    private final String productType;
+    private final BigDecimal area;
+
+    public QuoteRequest(String stateAbbreviation, String productType, BigDecimal area) {
+        this.stateAbbreviation = stateAbbreviation;
+        this.productType = productType;
+        this.area = area;
+    }
+
+    public String getStateAbbreviation() {
+        return stateAbbreviation;
+    }
+
+    public String getProductType() {
+        return productType;
+    }
+
+    public BigDecimal getArea() {
+        return area;
+    }
+}
@@ -0,0 +1,39 @@
+package com.js.flooringmastery.dto;
+
+/// How far a read replica is behind the primary, as of its last poll
+public class ReplicaStatus {
+    private final long daysApplied;
+    private final long lagMillis;
+    private final long backlogBytes;
+    private final long millisSincePoll;
+
+    public ReplicaStatus(long daysApplied, long lagMillis, long backlogBytes, long millisSincePoll) {
+        this.daysApplied = daysApplied;
+        this.lagMillis = lagMillis;
+        this.backlogBytes = backlogBytes;
+        this.millisSincePoll = millisSincePoll;
+    }
+
+    /// Days reloaded since the replica started
+    public long getDaysApplied() {
+        return daysApplied;
+    }
+
+    /// From the primary saving the newest change applied to the replica showing it, -1 before any
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /// Change log not read yet, 0 when the replica has caught up
+    public long getBacklogBytes() {
+        return backlogBytes;
+    }
+
+    public long getMillisSincePoll() {
+        return millisSincePoll;
+    }
+
+    public boolean isCaughtUp() {
+        return backlogBytes == 0;
+    }
+}
@@ -0,0 +1,81 @@
+package com.js.flooringmastery.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/// One order whose values change when repriced against the current tax and product data
+public class RepriceChange {
+    private final int orderNumber;
+    private final LocalDate orderDate;
+    private final String customerName;
+    private final BigDecimal oldTaxRate;
+    private final BigDecimal newTaxRate;
+    private final BigDecimal oldCostPerSquareFoot;
+    private final BigDecimal newCostPerSquareFoot;
+    private final BigDecimal oldLaborCostPerSquareFoot;
+    private final BigDecimal newLaborCostPerSquareFoot;
+    private final BigDecimal oldTotal;
+    private final BigDecimal newTotal;
+
+    public RepriceChange(Order oldOrder, Order newOrder) {
+        this.orderNumber = oldOrder.getOrderNumber();
+        this.orderDate = oldOrder.getOrderDate();
+        this.customerName = oldOrder.getCustomerName();
+        this.oldTaxRate = oldOrder.getTax().getTaxRate();
+        this.newTaxRate = newOrder.getTax().getTaxRate();
+        this.oldCostPerSquareFoot = oldOrder.getProduct().getCostPerSquareFoot();
+        this.newCostPerSquareFoot = newOrder.getProduct().getCostPerSquareFoot();
+        this.oldLaborCostPerSquareFoot = oldOrder.getProduct().getLaborCostPerSquareFoot();
+        this.newLaborCostPerSquareFoot = newOrder.getProduct().getLaborCostPerSquareFoot();
+        this.oldTotal = oldOrder.getTotal();
+        this.newTotal = newOrder.getTotal();
+    }
+
+    public int getOrderNumber() {
+        return orderNumber;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public BigDecimal getOldTaxRate() {
+        return oldTaxRate;
+    }
+
+    public BigDecimal getNewTaxRate() {
+        return newTaxRate;
+    }
+
+    public BigDecimal getOldCostPerSquareFoot() {
+        return oldCostPerSquareFoot;
+    }
+
+    public BigDecimal getNewCostPerSquareFoot() {
+        return newCostPerSquareFoot;
+    }
+
+    public BigDecimal getOldLaborCostPerSquareFoot() {
+        return oldLaborCostPerSquareFoot;
+    }
+
+    public BigDecimal getNewLaborCostPerSquareFoot() {
+        return newLaborCostPerSquareFoot;
+    }
+
+    public BigDecimal getOldTotal() {
+        return oldTotal;
+    }
+
+    public BigDecimal getNewTotal() {
+        return newTotal;
+    }
+
+    public BigDecimal getDifference() {
+        return newTotal.subtract(oldTotal);
+    }
+}
@@ -0,0 +1,42 @@
+package com.js.flooringmastery.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/// Result of a bulk reprice, either a dry run (nothing saved) or applied
+public class RepriceReport {
+    private final boolean dryRun;
+    private final int ordersScanned;
+    private final List<RepriceChange> changes;
+    private final SortedSet<LocalDate> touchedDates;
+
+    public RepriceReport(boolean dryRun, int ordersScanned, List<RepriceChange> changes, Set<LocalDate> touchedDates) {
+        this.dryRun = dryRun;
+        this.ordersScanned = ordersScanned;
+        this.changes = List.copyOf(changes);
+        this.touchedDates = Collections.unmodifiableSortedSet(new TreeSet<>(touchedDates));
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public int getOrdersScanned() {
+        return ordersScanned;
+    }
+
+    public List<RepriceChange> getChanges() {
+        return changes;
+    }
+
+    public SortedSet<LocalDate> getTouchedDates() {
+        return touchedDates;
+    }
+
+    public BigDecimal getTotalDifference() {
+        return changes.stream()
+                .map(RepriceChange::getDifference)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,65 @@
+package com.js.flooringmastery.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/// One store's order totals over a date range, or the sum over several stores
+public class StoreSummary {
+    private final String storeId;
+    private final int days;
+    private final long orders;
+    private final BigDecimal area;
+    private final BigDecimal taxAmount;
+    private final BigDecimal total;
+
+    public StoreSummary(String storeId, int days, long orders, BigDecimal area, BigDecimal taxAmount,
+                        BigDecimal total) {
+        this.storeId = storeId;
+        this.days = days;
+        this.orders = orders;
+        this.area = area;
+        this.taxAmount = taxAmount;
+        this.total = total;
+    }
+
+    /// Adds up the summaries under one id, days counts store-days
+    public static StoreSummary combine(String storeId, List<StoreSummary> summaries) {
+        int days = 0;
+        long orders = 0;
+        BigDecimal area = BigDecimal.ZERO;
+        BigDecimal taxAmount = BigDecimal.ZERO;
+        BigDecimal total = BigDecimal.ZERO;
+        for (StoreSummary summary : summaries) {
+            days += summary.days;
+            orders += summary.orders;
+            area = area.add(summary.area);
+            taxAmount = taxAmount.add(summary.taxAmount);
+            total = total.add(summary.total);
+        }
+        return new StoreSummary(storeId, days, orders, area, taxAmount, total);
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public BigDecimal getArea() {
+        return area;
+    }
+
+    public BigDecimal getTaxAmount() {
+        return taxAmount;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,8 @@
+package com.js.flooringmastery.exception;
+
+/// A change was applied but its day could not be saved, so it is not on disk yet
+public class OrderNotSavedException extends RuntimeException {
+    public OrderNotSavedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
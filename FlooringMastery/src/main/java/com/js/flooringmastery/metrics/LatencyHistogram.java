@@ -0,0 +1,77 @@
+package com.js.flooringmastery.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Log-linear latency histogram (HDR-style): 8 buckets per power of two, so percentiles are within 12.5%
+/// Recording is a couple of atomic increments, safe from any thread
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /// Upper bound of the bucket holding the given percentile (0-100)
+    public long getPercentileNanos(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= target && seen > 0) {
+                return Math.min(lowerBoundOf(bucket + 1) - 1, getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (highestBit - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (highestBit - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int highestBit = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        if (highestBit >= 63) {
+            return Long.MAX_VALUE;
+        }
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (highestBit - SUB_BITS);
+    }
+}
@@ -0,0 +1,62 @@
+package com.js.flooringmastery.metrics;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/// Process-wide registry of timers, counters and gauges
+/// Classes look their timers up once (static final fields) so the hot path never touches the registry
+public final class Metrics {
+    private static final Map<String, OperationTimer> TIMERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentSkipListMap<>();
+
+    private Metrics() {}
+
+    public static OperationTimer timer(String name) {
+        return TIMERS.computeIfAbsent(name, OperationTimer::new);
+    }
+
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    /// Registers a value read when the report is built (replaces any gauge with the same name)
+    public static void gauge(String name, LongSupplier value) {
+        GAUGES.put(name, value);
+    }
+
+    /// Drops the gauges whose names start with the prefix, so a closed instance they read isn't kept reachable
+    public static void removeGauges(String prefix) {
+        GAUGES.keySet().removeIf(name -> name.startsWith(prefix));
+    }
+
+    /// Plain-text table of every metric, used by the menu and the metrics file
+    public static String report() {
+        StringBuilder out = new StringBuilder();
+        out.append("Metrics at ").append(LocalDateTime.now().withNano(0)).append(System.lineSeparator());
+        out.append(String.format("%-28s %9s %7s %10s %10s %10s %10s %10s%n",
+                "Operation", "Count", "Errors", "Mean(us)", "p50(us)", "p99(us)", "p99.9(us)", "Max(us)"));
+        for (OperationTimer timer : TIMERS.values()) {
+            LatencyHistogram latency = timer.getLatency();
+            out.append(String.format("%-28s %9d %7d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    timer.getName(),
+                    latency.getCount(),
+                    timer.getErrors(),
+                    latency.getMeanNanos() / 1000.0,
+                    latency.getPercentileNanos(50) / 1000.0,
+                    latency.getPercentileNanos(99) / 1000.0,
+                    latency.getPercentileNanos(99.9) / 1000.0,
+                    latency.getMaxNanos() / 1000.0));
+        }
+        for (Map.Entry<String, LongAdder> counter : COUNTERS.entrySet()) {
+            out.append(String.format("%-28s %9d%n", counter.getKey(), counter.getValue().sum()));
+        }
+        for (Map.Entry<String, LongSupplier> gauge : GAUGES.entrySet()) {
+            out.append(String.format("%-28s %9d%n", gauge.getKey(), gauge.getValue().getAsLong()));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,56 @@
+package com.js.flooringmastery.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/// Periodically writes Metrics.report() to a file on a background thread
+public class MetricsReporter {
+    private final Path metricsFile;
+    private final long intervalSeconds;
+    private ScheduledExecutorService scheduler;
+
+    public MetricsReporter(String metricsFile, long intervalSeconds) {
+        this.metricsFile = Paths.get(metricsFile);
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::writeReport, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        writeReport(); /// Final dump on shutdown
+    }
+
+    /// Writes to a temp file and renames it, so readers never see a half-written report
+    public void writeReport() {
+        try {
+            Path folder = metricsFile.toAbsolutePath().getParent();
+            Files.createDirectories(folder);
+            Path temp = Files.createTempFile(folder, "metrics", ".tmp");
+            Files.writeString(temp, Metrics.report());
+            Files.move(temp, metricsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Error writing metrics file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.js.flooringmastery.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/// Latency and call/error counts for one named operation
+public class OperationTimer {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    OperationTimer(String name) {
+        this.name = name;
+    }
+
+    /// Call with the System.nanoTime() taken when the operation started
+    public void recordSince(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+}
@@ -0,0 +1,71 @@
+package com.js.flooringmastery.service;
+
+import com.js.flooringmastery.dto.DayView;
+import com.js.flooringmastery.metrics.Metrics;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/// Least recently used day views, read through on a miss and dropped day by day when the writer changes a day.
+/// The hit, miss and eviction counters are there to size it.
+final class DayViewCache {
+    private static final LongAdder HITS = Metrics.counter("dayViews.hits");
+    private static final LongAdder MISSES = Metrics.counter("dayViews.misses");
+    private static final LongAdder EVICTIONS = Metrics.counter("dayViews.evictions");
+
+    private final Map<LocalDate, DayView> views;
+    /// Bumped by every invalidation. A view loaded while one happened may be stale, so it isn't kept.
+    private long invalidations;
+
+    DayViewCache(int capacity) {
+        this(capacity, "");
+    }
+
+    /// metricsPrefix goes in front of the size gauge's name
+    DayViewCache(int capacity, String metricsPrefix) {
+        this.views = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, DayView> eldest) {
+                if (size() > capacity) {
+                    EVICTIONS.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Metrics.gauge(metricsPrefix + "dayViews.size", this::size);
+    }
+
+    /// The cached view, or one loaded outside the lock (so a slow day doesn't hold up other days)
+    DayView get(LocalDate orderDate, Function<LocalDate, DayView> load) {
+        long seen;
+        synchronized (this) {
+            DayView view = views.get(orderDate);
+            if (view != null) {
+                HITS.increment();
+                return view;
+            }
+            seen = invalidations;
+        }
+        MISSES.increment();
+        DayView view = load.apply(orderDate);
+        synchronized (this) {
+            if (invalidations == seen) {
+                views.put(orderDate, view);
+            }
+        }
+        return view;
+    }
+
+    synchronized void invalidate(LocalDate orderDate) {
+        invalidations++;
+        views.remove(orderDate);
+    }
+
+    synchronized int size() {
+        return views.size();
+    }
+}
@@ -0,0 +1,114 @@
+package com.js.flooringmastery.service;
+
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/// The pricing rules: material, labor, tax and total for an area of a product in a state.
+/// Shared by order calculation and the stored-totals audit so both always agree.
+final class OrderCosts {
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    static final int MAX_UNSCALED_SCALE = 6; /// Largest scale of an area or rate ofUnscaled takes
+    private static final int MAX_AREA_DIGITS = 12;
+    private static final long[] POWERS_OF_TEN = new long[2 * MAX_UNSCALED_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final BigDecimal materialCost;
+    private final BigDecimal laborCost;
+    private final BigDecimal taxAmount;
+    private final BigDecimal total;
+
+    private OrderCosts(BigDecimal materialCost, BigDecimal laborCost, BigDecimal taxAmount, BigDecimal total) {
+        this.materialCost = materialCost;
+        this.laborCost = laborCost;
+        this.taxAmount = taxAmount;
+        this.total = total;
+    }
+
+    static OrderCosts of(BigDecimal area, Product product, Tax tax) {
+        return of(area, product, taxFraction(tax));
+    }
+
+    /// Same with the tax rate already divided down, for callers that price many areas at one rate
+    static OrderCosts of(BigDecimal area, Product product, BigDecimal taxFraction) {
+        BigDecimal materialCost = area
+                .multiply(product.getCostPerSquareFoot())
+                .setScale(2, RoundingMode.HALF_UP);
+
+        BigDecimal laborCost = area
+                .multiply(product.getLaborCostPerSquareFoot())
+                .setScale(2, RoundingMode.HALF_UP);
+
+        BigDecimal taxAmount = (materialCost.add(laborCost))
+                .multiply(taxFraction)
+                .setScale(2, RoundingMode.HALF_UP);
+
+        BigDecimal total = materialCost.add(laborCost).add(taxAmount).setScale(2, RoundingMode.HALF_UP);
+
+        return new OrderCosts(materialCost, laborCost, taxAmount, total);
+    }
+
+    /// Same result worked out on unscaled longs (cents for the results), which skips the BigDecimal temporaries.
+    /// Rates are given as unscaled value and scale, taxFraction at scale 4. Returns null when that can't be done
+    /// exactly (a negative amount, or too many digits for a long), callers then use of().
+    static OrderCosts ofUnscaled(BigDecimal area, long costPerSquareFoot, int costScale,
+                                 long laborCostPerSquareFoot, int laborScale, long taxFraction) {
+        if (area.signum() < 0 || area.scale() < 0 || area.scale() > MAX_UNSCALED_SCALE
+                || area.precision() > MAX_AREA_DIGITS) {
+            return null;
+        }
+        long unscaledArea = area.unscaledValue().longValue();
+        try {
+            long materialCents = toCents(Math.multiplyExact(unscaledArea, costPerSquareFoot), area.scale() + costScale);
+            long laborCents = toCents(Math.multiplyExact(unscaledArea, laborCostPerSquareFoot),
+                    area.scale() + laborScale);
+            long taxCents = toCents(Math.multiplyExact(materialCents + laborCents, taxFraction), 2 + 4);
+            return new OrderCosts(cents(materialCents), cents(laborCents), cents(taxCents),
+                    cents(materialCents + laborCents + taxCents));
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /// Rounds a non-negative unscaled value at the given scale to cents, HALF_UP like setScale(2)
+    private static long toCents(long unscaled, int scale) {
+        if (scale <= 2) {
+            return Math.multiplyExact(unscaled, POWERS_OF_TEN[2 - scale]);
+        }
+        long divisor = POWERS_OF_TEN[scale - 2];
+        return Math.addExact(unscaled, divisor / 2) / divisor;
+    }
+
+    private static BigDecimal cents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /// Tax rate percentage as a fraction, kept at 4 places so the rate itself isn't rounded
+    static BigDecimal taxFraction(Tax tax) {
+        return tax.getTaxRate().divide(HUNDRED, 4, RoundingMode.HALF_UP);
+    }
+
+    BigDecimal getMaterialCost() {
+        return materialCost;
+    }
+
+    BigDecimal getLaborCost() {
+        return laborCost;
+    }
+
+    BigDecimal getTaxAmount() {
+        return taxAmount;
+    }
+
+    BigDecimal getTotal() {
+        return total;
+    }
+}
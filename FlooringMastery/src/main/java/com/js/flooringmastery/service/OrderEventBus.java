@@ -0,0 +1,231 @@
+package com.js.flooringmastery.service;
+
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderEvent;
+import com.js.flooringmastery.metrics.Metrics;
+import com.js.flooringmastery.metrics.OperationTimer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/// Order changes for whatever wants to follow them (aggregates, indexes, notifications) without being wired
+/// into OrderServiceImpl. Publishing writes the event into a fixed ring and returns; each subscriber reads the
+/// ring at its own pace on its own thread, so a slow subscriber costs createOrder nothing until it falls a
+/// whole ring behind. What happens then is the subscriber's Backpressure.
+public class OrderEventBus {
+    public static final int DEFAULT_CAPACITY = 4096;
+    private static final long IDLE_PARK_NANOS = 1_000_000; /// Longest a caught-up subscriber sleeps between checks
+    private static final long BLOCKED_PARK_NANOS = 100_000;
+
+    private static final OperationTimer PUBLISH = Metrics.timer("events.publish");
+    private static final LongAdder PUBLISHED = Metrics.counter("events.published");
+    private static final LongAdder PUBLISHER_WAITS = Metrics.counter("events.publisherWaits");
+
+    /// What publishing does when a subscriber is a full ring behind
+    public enum Backpressure {
+        BLOCK, /// The publisher waits for the subscriber: nothing is lost, the writer slows down
+        DROP   /// The publisher overwrites: the subscriber skips the oldest events and counts them as dropped
+    }
+
+    private final AtomicReferenceArray<OrderEvent> ring;
+    private final int mask;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile long cursor = -1; /// Last sequence published
+    private volatile Thread blockedPublisher;
+    private volatile boolean closed;
+
+    public OrderEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /// capacity is rounded up to a power of two
+    public OrderEventBus(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /// Adds the event after the last one and wakes the subscribers. Synchronized so events keep one order;
+    /// the service publishes from its writer thread once the changed days are saved, in the order the changes
+    /// were applied.
+    public synchronized void publish(OrderEvent.Type type, Order order) {
+        long start = System.nanoTime();
+        long sequence = cursor + 1;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.policy == Backpressure.BLOCK) {
+                subscription.awaitRoom(sequence);
+            }
+        }
+        ring.set((int) sequence & mask, new OrderEvent(sequence, type, order, start));
+        cursor = sequence;
+        PUBLISHED.increment();
+        for (Subscription subscription : subscriptions) {
+            subscription.wake();
+        }
+        PUBLISH.recordSince(start);
+    }
+
+    /// Starts delivering events published from now on to the listener, on a thread of its own. Errors thrown
+    /// by the listener are reported and the event counts as delivered. A BLOCK listener must not wait for the
+    /// order writer (create or edit orders itself), the writer could be waiting for it.
+    public Subscription subscribe(String name, Backpressure policy, Consumer<OrderEvent> listener) {
+        if (closed) {
+            throw new IllegalStateException("The event bus is closed.");
+        }
+        Subscription subscription = new Subscription(name, policy, listener);
+        synchronized (this) {
+            subscription.next = cursor + 1;
+            subscriptions.add(subscription);
+        }
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /// Events published so far
+    public long getPublished() {
+        return cursor + 1;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /// Lets every subscriber finish the events already published, then stops their threads
+    public void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.stop();
+        }
+    }
+
+    /// One listener's position on the bus
+    public final class Subscription {
+        private final String name;
+        private final Backpressure policy;
+        private final Consumer<OrderEvent> listener;
+        private final Thread thread;
+        private final OperationTimer handle;
+        private final OperationTimer delay;
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private volatile long next; /// Sequence it reads next
+        private volatile boolean idle;
+        private volatile boolean stopping;
+
+        private Subscription(String name, Backpressure policy, Consumer<OrderEvent> listener) {
+            this.name = name;
+            this.policy = policy;
+            this.listener = listener;
+            this.thread = new Thread(this::run, "order-events-" + name);
+            this.thread.setDaemon(true);
+            this.handle = Metrics.timer("events." + name + ".handle");
+            this.delay = Metrics.timer("events." + name + ".delay"); /// Published to handled
+            Metrics.gauge("events." + name + ".lag", this::getLag);
+            Metrics.gauge("events." + name + ".delivered", delivered::sum);
+            Metrics.gauge("events." + name + ".dropped", dropped::sum);
+        }
+
+        private void run() {
+            while (true) {
+                long sequence = next;
+                if (sequence > cursor) {
+                    if (stopping) {
+                        return;
+                    }
+                    idle = true;
+                    if (sequence > cursor && !stopping) { /// Check again now that publish will wake us
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    idle = false;
+                    continue;
+                }
+                OrderEvent event = ring.get((int) sequence & mask);
+                if (event.getSequence() != sequence) {
+                    /// Overwritten (DROP only): skip to the oldest event still in the ring
+                    long oldest = cursor - mask;
+                    dropped.add(oldest - sequence);
+                    next = oldest;
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    handle.recordError();
+                    System.out.println("Error in event subscriber " + name + ": " + e.getMessage());
+                }
+                handle.recordSince(start);
+                delay.recordSince(event.getPublishedNanos());
+                delivered.increment();
+                next = sequence + 1;
+                Thread publisher = blockedPublisher;
+                if (publisher != null) {
+                    LockSupport.unpark(publisher);
+                }
+            }
+        }
+
+        /// Called by the publisher before writing sequence into the ring
+        private void awaitRoom(long sequence) {
+            if (sequence - next <= mask) {
+                return;
+            }
+            PUBLISHER_WAITS.increment();
+            blockedPublisher = Thread.currentThread();
+            while (sequence - next > mask && !stopping) {
+                LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+            }
+            blockedPublisher = null;
+        }
+
+        private void wake() {
+            if (idle) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void stop() {
+            stopping = true;
+            LockSupport.unpark(thread);
+            if (Thread.currentThread() == thread) {
+                return; /// Closed from its own listener, the loop ends after this event
+            }
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /// Stops this listener after the events already published, the others keep going
+        public void close() {
+            subscriptions.remove(this);
+            stop();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Backpressure getPolicy() {
+            return policy;
+        }
+
+        /// Events published but not handled yet
+        public long getLag() {
+            return Math.max(0, cursor + 1 - next);
+        }
+
+        public long getDelivered() {
+            return delivered.sum();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.js.flooringmastery.service;
+
+import com.js.flooringmastery.dao.OrderDaoImpl;
+import com.js.flooringmastery.dto.ReplicaStatus;
+import com.js.flooringmastery.metrics.Metrics;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/// A read-only copy of the primary's orders in another process. It follows the change log the primary's
+/// saves append to (see OrderDaoImpl) on its own thread and reloads each changed day into its own DAO,
+/// so displays, searches, audits and exports run here without slowing down order entry there.
+public class OrderReplica {
+    private static final long POLL_MILLIS = 100;
+    private static final LongAdder DAYS_APPLIED = Metrics.counter("replica.daysApplied");
+
+    private final OrderDaoImpl orderDao;
+    private final OrderServiceImpl service;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-replica");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long daysApplied;
+    private volatile long lagMillis = -1;
+    private volatile long lastPollMillis = System.currentTimeMillis();
+
+    public OrderReplica(OrderDaoImpl orderDao, OrderServiceImpl service) {
+        this.orderDao = orderDao;
+        this.service = service;
+        Metrics.gauge("replica.lagMillis", () -> lagMillis);
+        Metrics.gauge("replica.backlogBytes", orderDao::getChangeLogBacklog);
+    }
+
+    public void start() {
+        poller.scheduleWithFixedDelay(this::poll, 0, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /// Applies whatever the primary saved since the last poll
+    void poll() {
+        try {
+            Set<LocalDate> applied = service.reloadChangedDays();
+            long now = System.currentTimeMillis();
+            if (!applied.isEmpty()) {
+                daysApplied += applied.size();
+                DAYS_APPLIED.add(applied.size());
+                lagMillis = Math.max(0, now - orderDao.getLastChangeSavedMillis()); /// Same machine, same clock
+            }
+            lastPollMillis = now;
+        } catch (RuntimeException e) {
+            System.out.println("Error following the primary: " + e.getMessage());
+        }
+    }
+
+    /// Reads only: its service's writes would go to the shared files like the primary's
+    public OrderService getService() {
+        return service;
+    }
+
+    public ReplicaStatus getStatus() {
+        return new ReplicaStatus(daysApplied, lagMillis, orderDao.getChangeLogBacklog(),
+                System.currentTimeMillis() - lastPollMillis);
+    }
+
+    public void close() {
+        poller.shutdownNow();
+    }
+}
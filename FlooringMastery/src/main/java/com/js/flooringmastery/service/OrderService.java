@@ -1,7 +1,15 @@
 package com.js.flooringmastery.service;
 
+import com.js.flooringmastery.dto.AuditReport;
+import com.js.flooringmastery.dto.DayView;
+import com.js.flooringmastery.dto.ExportJob;
 import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderPage;
 import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Quote;
+import com.js.flooringmastery.dto.QuoteRequest;
+import com.js.flooringmastery.dto.RepriceReport;
+import com.js.flooringmastery.exception.PersistenceException;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -9,10 +17,24 @@ import java.math.BigDecimal;
 
 public interface OrderService {
 
+    /// All of the day's orders, read-only
     List<Order> getOrdersByDate(LocalDate orderDate);
 
+    /// The day's orders with their totals, cached until the day changes
+    DayView getDayView(LocalDate orderDate);
+
+    /// Page of the day's orders by position
+    OrderPage getOrdersPage(LocalDate orderDate, int offset, int limit);
+
+    /// Page of the day's orders after an order number, stable while orders are added or removed
+    OrderPage getOrdersAfter(LocalDate orderDate, int afterOrderNumber, int limit);
+
     Order getOrder(LocalDate orderDate, int orderNumber);
 
+    /// Order by number alone, whatever its date
+    Order getOrderByNumber(int orderNumber);
+
+    /// Mutations throw OrderNotSavedException when the change was applied but its day couldn't be saved
     Order createOrder(Order order);
 
     Order editOrder(Order existingOrder, String customerName, String state, String productType, BigDecimal area);
@@ -27,5 +49,28 @@ public interface OrderService {
 
     boolean isValidProduct(String productType);
 
-    void exportAllData();
+    /// Prices an area of a product in a state at today's rates without creating an order: nothing is stored
+    /// and no order number is taken. Throws InvalidOrderDataException for a state, product or area we can't sell.
+    Quote quote(String state, String productType, BigDecimal area);
+
+    /// Quotes for many combinations, in the same order. Throws on the first one that can't be priced.
+    List<Quote> quoteBatch(List<QuoteRequest> requests);
+
+    /// Exports in the caller's thread, throws if the export can't be written
+    void exportAllData() throws PersistenceException;
+
+    /// Starts exporting in the background and returns at once. If an export is already running, that job.
+    ExportJob startExport();
+
+    /// The most recently started export, null if there hasn't been one
+    ExportJob getExportJob();
+
+    /// Asks the export to stop, false if there's no such job or it has finished
+    boolean cancelExport(int jobId);
+
+    /// Recalculates orders on or after fromDate for a state and/or product (any case) against the current rates
+    RepriceReport repriceOrders(LocalDate fromDate, String state, String productType, boolean dryRun);
+
+    /// Checks every stored order's costs against the pricing rules for its area and stored rates
+    AuditReport auditOrders();
 }
@@ -3,39 +3,183 @@ package com.js.flooringmastery.service;
 import com.js.flooringmastery.dao.OrderDao;
 import com.js.flooringmastery.dao.ProductDao;
 import com.js.flooringmastery.dao.TaxDao;
+import com.js.flooringmastery.dto.AuditMismatch;
+import com.js.flooringmastery.dto.AuditReport;
+import com.js.flooringmastery.dto.DayView;
+import com.js.flooringmastery.dto.ExportJob;
 import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderEvent;
+import com.js.flooringmastery.dto.OrderPage;
 import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Quote;
+import com.js.flooringmastery.dto.QuoteRequest;
+import com.js.flooringmastery.dto.RepriceChange;
+import com.js.flooringmastery.dto.RepriceReport;
 import com.js.flooringmastery.dto.Tax;
 import com.js.flooringmastery.exception.InvalidOrderDataException;
 import com.js.flooringmastery.exception.NoSuchOrderException;
+import com.js.flooringmastery.exception.OrderNotSavedException;
 import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.metrics.Metrics;
+import com.js.flooringmastery.metrics.OperationTimer;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderServiceImpl implements OrderService {
+    private static final OperationTimer CREATE_ORDER = Metrics.timer("service.createOrder");
+    private static final OperationTimer EDIT_ORDER = Metrics.timer("service.editOrder");
+    private static final OperationTimer REMOVE_ORDER = Metrics.timer("service.removeOrder");
+    private static final OperationTimer AUDIT_ORDERS = Metrics.timer("service.auditOrders");
+    private static final OperationTimer QUOTE_BATCH = Metrics.timer("service.quoteBatch");
+    private static final LongAdder QUOTES = Metrics.counter("service.quotes");
+    private static final LongAdder UNSAVED_EVENTS = Metrics.counter("events.unsaved"); /// Held back, their day failed to save
+    private static final int DAY_VIEW_CACHE_DAYS = 64;
+    private static final long REFRESH_INTERVAL_NANOS = 200_000_000; /// How old another process's saves can look
+
     private final OrderDao orderDao;
     private final ProductDao productDao;
     private final TaxDao taxDao;
 
+    /// Mutations run one at a time on the writer thread, so two callers can't take the same next order number,
+    /// and published orders are replaced by edited copies rather than changed under readers
+    private final OrderWriter writer;
+
+    /// Background exports run one at a time on their own thread, off the writer and the console
+    private final ExecutorService exportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-export");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile ExportJob exportJob;
+    private int lastExportId;
+
+    /// Days shown recently, dropped as soon as the writer changes them
+    private final DayViewCache dayViews;
+    private volatile long lastRefresh = System.nanoTime() - REFRESH_INTERVAL_NANOS;
+
+    /// Rates for quotes, so pricing a quote needs no lookups
+    private final RateFactors rateFactors;
+
+    /// Every saved change goes out here for subscribers, published by the writer thread
+    private final OrderEventBus events;
+    /// Changes applied by the writer whose day isn't saved yet. Writer thread only.
+    private final List<Map.Entry<OrderEvent.Type, Order>> pendingEvents = new ArrayList<>();
+
     public OrderServiceImpl(OrderDao orderDao, ProductDao productDao, TaxDao taxDao) {
+        this(orderDao, productDao, taxDao, new OrderEventBus());
+    }
+
+    public OrderServiceImpl(OrderDao orderDao, ProductDao productDao, TaxDao taxDao, OrderEventBus events) {
+        this(orderDao, productDao, taxDao, events, "");
+    }
+
+    /// metricsPrefix goes in front of the writer's and day cache's gauge names, so each store of a StoreGroup
+    /// reports its own
+    public OrderServiceImpl(OrderDao orderDao, ProductDao productDao, TaxDao taxDao, OrderEventBus events,
+                            String metricsPrefix) {
         this.orderDao = orderDao;
         this.productDao = productDao;
         this.taxDao = taxDao;
+        this.writer = new OrderWriter(this::persistDay, this::publishSaved, metricsPrefix);
+        this.dayViews = new DayViewCache(DAY_VIEW_CACHE_DAYS, metricsPrefix);
+        this.rateFactors = new RateFactors(taxDao, productDao);
+        this.events = events;
+    }
+
+    public OrderEventBus getEvents() {
+        return events;
+    }
+
+    /// Finishes queued mutations and stops the writer thread, then lets event subscribers catch up.
+    /// A running export is cancelled, leaving the previous export file in place.
+    public void close() {
+        writer.close();
+        events.close();
+        ExportJob job = exportJob;
+        if (job != null) {
+            job.cancel();
+        }
+        exportExecutor.shutdown();
+        try {
+            exportExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /// Picks up the days other processes using the same order files saved, at most every 200 ms
+    private void refreshChangedDays() {
+        long now = System.nanoTime();
+        if (now - lastRefresh < REFRESH_INTERVAL_NANOS) {
+            return;
+        }
+        lastRefresh = now;
+        reloadChangedDays();
+    }
+
+    /// Reloads the days other processes saved now and drops their cached views, returns them
+    Set<LocalDate> reloadChangedDays() {
+        Set<LocalDate> changed = orderDao.refreshChangedDays();
+        for (LocalDate orderDate : changed) {
+            dayViews.invalidate(orderDate);
+        }
+        return changed;
     }
 
     /// Fetching orders
     @Override
     public List<Order> getOrdersByDate(LocalDate orderDate) {
-        return orderDao.getAllOrders(orderDate);
+        return getDayView(orderDate).getOrders();
+    }
+
+    @Override
+    public DayView getDayView(LocalDate orderDate) {
+        refreshChangedDays();
+        return dayViews.get(orderDate,
+                date -> new DayView(date, Collections.unmodifiableList(orderDao.getAllOrders(date))));
+    }
+
+    @Override
+    public OrderPage getOrdersPage(LocalDate orderDate, int offset, int limit) {
+        refreshChangedDays();
+        List<Order> orders = orderDao.getOrders(orderDate, offset, limit);
+        int total = orderDao.countOrders(orderDate);
+        return new OrderPage(orderDate, orders, total, Math.max(offset, 0) + orders.size() < total);
+    }
+
+    @Override
+    public OrderPage getOrdersAfter(LocalDate orderDate, int afterOrderNumber, int limit) {
+        refreshChangedDays();
+        /// One extra order tells us whether there's another page
+        List<Order> orders = orderDao.getOrdersAfter(orderDate, afterOrderNumber, limit + 1);
+        boolean hasMore = orders.size() > limit;
+        return new OrderPage(orderDate, hasMore ? orders.subList(0, limit) : orders,
+                orderDao.countOrders(orderDate), hasMore);
     }
 
     @Override
     public Order getOrder(LocalDate orderDate, int orderNumber) {
+        refreshChangedDays();
         Order order = orderDao.getOrder(orderDate, orderNumber);
         if (order == null) {
             throw new NoSuchOrderException("Order not found!");
@@ -43,6 +187,16 @@ public class OrderServiceImpl implements OrderService {
         return order;
     }
 
+    @Override
+    public Order getOrderByNumber(int orderNumber) {
+        refreshChangedDays();
+        Order order = orderDao.findOrder(orderNumber);
+        if (order == null) {
+            throw new NoSuchOrderException("Order not found!");
+        }
+        return order;
+    }
+
     @Override
     public List<Product> getAllProducts() {
         return productDao.getAllProducts();
@@ -51,16 +205,32 @@ public class OrderServiceImpl implements OrderService {
     /// Creating & Editing orders
     @Override
     public Order createOrder(Order order) {
+        long start = System.nanoTime();
+        try {
+            return writer.submit(touchedDates -> {
+                Order created = addNewOrder(order);
+                touchedDates.add(created.getOrderDate());
+                pendingEvents.add(Map.entry(OrderEvent.Type.CREATED, created));
+                return created;
+            });
+        } catch (RuntimeException e) {
+            CREATE_ORDER.recordError();
+            throw e;
+        } finally {
+            CREATE_ORDER.recordSince(start);
+        }
+    }
+
+    private Order addNewOrder(Order order) {
         validateOrder(order);
 
-        /// Retrieve tax details for the given state from the tax DAO
-        Tax tax = taxDao.getTaxByState(order.getTax().getStateAbbreviation());
+        /// Retrieve the tax and product in effect on the order date, as a reprice would
+        Tax tax = taxDao.getTaxByState(order.getTax().getStateAbbreviation(), order.getOrderDate());
         if (tax == null) {
             throw new InvalidOrderDataException("Invalid state: " + order.getTax().getStateAbbreviation());
         }
 
-        /// Retrieve product details from the product DAO
-        Product product = productDao.getProductByType(order.getProduct().getProductType());
+        Product product = productDao.getProductByType(order.getProduct().getProductType(), order.getOrderDate());
         if (product == null) {
             throw new InvalidOrderDataException("Invalid product type. Please choose a valid product.");
         }
@@ -74,17 +244,39 @@ public class OrderServiceImpl implements OrderService {
             throw new IllegalStateException("Order cost values were not calculated properly.");
         }
 
-        int nextOrderNumber = orderDao.getNextOrderNumber();
+        int nextOrderNumber = orderDao.allocateOrderNumber();
         order.setOrderNumber(nextOrderNumber);
         orderDao.addOrder(order);
 
-        saveOrders(order.getOrderDate());
-
         return order;
     }
 
     @Override
     public Order editOrder(Order existingOrder, String customerName, String state, String productType, BigDecimal area) {
+        long start = System.nanoTime();
+        try {
+            return writer.submit(touchedDates -> {
+                Order edited = applyEdit(existingOrder, customerName, state, productType, area);
+                touchedDates.add(edited.getOrderDate());
+                pendingEvents.add(Map.entry(OrderEvent.Type.EDITED, edited));
+                return edited;
+            });
+        } catch (RuntimeException e) {
+            EDIT_ORDER.recordError();
+            throw e;
+        } finally {
+            EDIT_ORDER.recordSince(start);
+        }
+    }
+
+    /// Edits a copy of the order as stored now and stores it in place of that one, which stays as it was.
+    /// An order removed since the caller read it isn't brought back, and an edit made since then is kept.
+    private Order applyEdit(Order order, String customerName, String state, String productType, BigDecimal area) {
+        Order stored = orderDao.getOrder(order.getOrderDate(), order.getOrderNumber());
+        if (stored == null) {
+            throw new NoSuchOrderException("Order not found!");
+        }
+        Order existingOrder = new Order(stored);
         boolean needsRecalculation = false;
 
         /// Validate customer name
@@ -92,9 +284,9 @@ public class OrderServiceImpl implements OrderService {
             existingOrder.setCustomerName(customerName);
         }
 
-        /// Validate state
+        /// Validate state, priced at the rate in effect on the order date
         if (!state.isBlank()) {
-            Tax tax = taxDao.getTaxByState(state);
+            Tax tax = taxDao.getTaxByState(state, existingOrder.getOrderDate());
             if (tax != null) {
                 existingOrder.setTax(tax);
                 needsRecalculation = true;
@@ -105,7 +297,7 @@ public class OrderServiceImpl implements OrderService {
 
         /// Validate product
         if (!productType.isBlank()) {
-            Product product = productDao.getProductByType(productType);
+            Product product = productDao.getProductByType(productType, existingOrder.getOrderDate());
             if (product != null) {
                 existingOrder.setProduct(product);
                 needsRecalculation = true;
@@ -125,7 +317,7 @@ public class OrderServiceImpl implements OrderService {
             calculateOrderValues(existingOrder);
         }
 
-        saveOrders(existingOrder.getOrderDate());
+        orderDao.addOrder(existingOrder); /// Same order number replaces the stored order
 
         return existingOrder;
     }
@@ -133,8 +325,21 @@ public class OrderServiceImpl implements OrderService {
     /// Deleting & Validating orders
     @Override
     public void removeOrder(LocalDate orderDate, int orderNumber) {
-        Order order = getOrder(orderDate, orderNumber);
-        orderDao.removeOrder(orderDate, orderNumber);
+        long start = System.nanoTime();
+        try {
+            writer.submit(touchedDates -> {
+                Order removed = getOrder(orderDate, orderNumber); /// Throws if there's no such order
+                orderDao.removeOrder(orderDate, orderNumber);
+                touchedDates.add(orderDate);
+                pendingEvents.add(Map.entry(OrderEvent.Type.REMOVED, removed));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            REMOVE_ORDER.recordError();
+            throw e;
+        } finally {
+            REMOVE_ORDER.recordSince(start);
+        }
     }
 
     /// Helpers for validating user inputs
@@ -160,14 +365,14 @@ public class OrderServiceImpl implements OrderService {
         }
 
         /// Validate State: Must exist in the tax file
-        Tax tax = taxDao.getTaxByState(order.getTax().getStateAbbreviation());
+        Tax tax = taxDao.getTaxByState(order.getTax().getStateAbbreviation(), order.getOrderDate());
         if (tax == null) {
             throw new InvalidOrderDataException("Invalid state: " + order.getTax().getStateAbbreviation() + ". We cannot sell there.");
         }
         order.setTax(tax);
 
         /// Validate Product Type: Must match available products (case-insensitive)
-        Product product = productDao.getProductByType(order.getProduct().getProductType());
+        Product product = productDao.getProductByType(order.getProduct().getProductType(), order.getOrderDate());
         if (product == null) {
             throw new InvalidOrderDataException("Invalid product: " + order.getProduct().getProductType() + ". Please select an available product.");
         }
@@ -181,24 +386,162 @@ public class OrderServiceImpl implements OrderService {
 
     /// Helper Method for Calculating Material Cost, Labor Cost, Tax, and Total
     public void calculateOrderValues(Order order) {
-        BigDecimal materialCost = order.getArea()
-                .multiply(order.getProduct().getCostPerSquareFoot())
-                .setScale(2, RoundingMode.HALF_UP);
+        OrderCosts costs = OrderCosts.of(order.getArea(), order.getProduct(), order.getTax());
+        order.setMaterialCost(costs.getMaterialCost());
+        order.setLaborCost(costs.getLaborCost());
+        order.setTaxAmount(costs.getTaxAmount());
+        order.setTotal(costs.getTotal());
+    }
+
+    /// Bulk reprice after Taxes.txt or Products.txt rates change, throws InvalidOrderDataException for a state
+    /// or product that isn't sold. Recalculates in parallel on copies, then (unless dry run) applies and saves each touched day once
+    @Override
+    public RepriceReport repriceOrders(LocalDate fromDate, String state, String productType, boolean dryRun) {
+        String stateFilter = null;
+        if (state != null && !state.isBlank()) {
+            /// Lookups ignore case, the DAOs' filters match the stored key exactly
+            Tax tax = taxDao.getTaxByState(state);
+            if (tax == null) {
+                throw new InvalidOrderDataException("Invalid state: " + state);
+            }
+            stateFilter = tax.getStateAbbreviation();
+        }
+        String productFilter = null;
+        if (productType != null && !productType.isBlank()) {
+            Product product = productDao.getProductByType(productType);
+            if (product == null) {
+                throw new InvalidOrderDataException("Invalid product: " + productType);
+            }
+            productFilter = product.getProductType();
+        }
+
+        List<Order> candidates = orderDao.getOrdersAffectedBy(fromDate, stateFilter, productFilter);
+
+        /// Pair each stored order with its repriced copy, keeping only the ones that change
+        Map<Order, Order> repriced = candidates.parallelStream()
+                .map(order -> Map.entry(order, repriceCopy(order)))
+                .filter(entry -> entry.getValue() != null && hasChanged(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        Set<Order> applied = repriced.keySet();
+        if (!dryRun) {
+            /// The repriced copies replace the stored orders, each touched day is saved once. An order edited
+            /// or removed since it was priced stays as it is now.
+            applied = writer.submit(touchedDates -> {
+                Set<Order> replaced = new HashSet<>();
+                for (Map.Entry<Order, Order> entry : repriced.entrySet()) {
+                    Order priced = entry.getKey();
+                    if (isSameVersion(priced, orderDao.getOrder(priced.getOrderDate(), priced.getOrderNumber()))) {
+                        orderDao.addOrder(entry.getValue());
+                        pendingEvents.add(Map.entry(OrderEvent.Type.EDITED, entry.getValue()));
+                        touchedDates.add(priced.getOrderDate());
+                        replaced.add(priced);
+                    }
+                }
+                return replaced;
+            });
+        }
 
-        BigDecimal laborCost = order.getArea()
-                .multiply(order.getProduct().getLaborCostPerSquareFoot())
-                .setScale(2, RoundingMode.HALF_UP);
+        List<RepriceChange> changes = new ArrayList<>();
+        TreeSet<LocalDate> changedDates = new TreeSet<>();
+        for (Order order : candidates) {
+            Order updated = repriced.get(order);
+            if (updated != null && applied.contains(order)) {
+                changes.add(new RepriceChange(order, updated));
+                changedDates.add(order.getOrderDate());
+            }
+        }
 
-        BigDecimal taxAmount = (materialCost.add(laborCost))
-                .multiply(order.getTax().getTaxRate().divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP)) /// to not round tax rate
-                .setScale(2, RoundingMode.HALF_UP);
+        return new RepriceReport(dryRun, candidates.size(), changes, changedDates);
+    }
 
-        BigDecimal total = materialCost.add(laborCost).add(taxAmount).setScale(2, RoundingMode.HALF_UP);
+    /// Checks every stored order's cost columns against the pricing rules applied to its own area and stored
+    /// rates (not today's rates, that's repricing). Days are scanned in parallel and nothing is copied or saved.
+    /// Days come from one snapshot, so orders created or edited during the scan don't show up half-way through;
+    /// archived days aren't in it and are read as they are, they don't change.
+    @Override
+    public AuditReport auditOrders() {
+        long start = System.nanoTime();
+        try {
+            NavigableMap<LocalDate, List<Order>> days = new TreeMap<>(orderDao.snapshot().getDays());
+            for (LocalDate date : orderDao.getOrderDates()) {
+                if (!days.containsKey(date)) {
+                    days.put(date, orderDao.getAllOrders(date));
+                }
+            }
+            LongAdder scanned = new LongAdder();
+            List<AuditMismatch> mismatches = days.values().parallelStream()
+                    .flatMap(orders -> {
+                        scanned.add(orders.size());
+                        return orders.stream();
+                    })
+                    .map(this::auditOrder)
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparingInt(AuditMismatch::getOrderNumber))
+                    .toList();
+            return new AuditReport(scanned.sum(), days.size(), mismatches, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            AUDIT_ORDERS.recordError();
+            throw e;
+        } finally {
+            AUDIT_ORDERS.recordSince(start);
+        }
+    }
 
-        order.setMaterialCost(materialCost);
-        order.setLaborCost(laborCost);
-        order.setTaxAmount(taxAmount);
-        order.setTotal(total);
+    /// The order's mismatch, or null if its stored costs are what the pricing rules give
+    private AuditMismatch auditOrder(Order order) {
+        OrderCosts expected = OrderCosts.of(order.getArea(), order.getProduct(), order.getTax());
+        List<String> fields = new ArrayList<>(0);
+        if (!sameAmount(order.getMaterialCost(), expected.getMaterialCost())) {
+            fields.add("MaterialCost");
+        }
+        if (!sameAmount(order.getLaborCost(), expected.getLaborCost())) {
+            fields.add("LaborCost");
+        }
+        if (!sameAmount(order.getTaxAmount(), expected.getTaxAmount())) {
+            fields.add("Tax");
+        }
+        if (!sameAmount(order.getTotal(), expected.getTotal())) {
+            fields.add("Total");
+        }
+        return fields.isEmpty() ? null : new AuditMismatch(order, fields, expected.getTotal());
+    }
+
+    /// Copy of the order priced with the rates in effect on its date, or null if either no longer exists
+    private Order repriceCopy(Order order) {
+        Tax tax = taxDao.getTaxByState(order.getTax().getStateAbbreviation(), order.getOrderDate());
+        Product product = productDao.getProductByType(order.getProduct().getProductType(), order.getOrderDate());
+        if (tax == null || product == null) {
+            return null;
+        }
+        Order copy = new Order(order);
+        copy.setTax(tax);
+        copy.setProduct(product);
+        calculateOrderValues(copy);
+        return copy;
+    }
+
+    private boolean hasChanged(Order oldOrder, Order newOrder) {
+        return !sameAmount(oldOrder.getTotal(), newOrder.getTotal())
+                || !sameAmount(oldOrder.getTax().getTaxRate(), newOrder.getTax().getTaxRate())
+                || !sameAmount(oldOrder.getProduct().getCostPerSquareFoot(), newOrder.getProduct().getCostPerSquareFoot())
+                || !sameAmount(oldOrder.getProduct().getLaborCostPerSquareFoot(), newOrder.getProduct().getLaborCostPerSquareFoot());
+    }
+
+    /// Whether the stored order is still the one that was read, the same instance or (for DAOs that read a new
+    /// copy each time) the same values
+    private boolean isSameVersion(Order read, Order stored) {
+        return stored != null && (stored == read
+                || (Objects.equals(read.getCustomerName(), stored.getCustomerName())
+                && sameAmount(read.getArea(), stored.getArea())
+                && read.getTax().getStateAbbreviation().equals(stored.getTax().getStateAbbreviation())
+                && read.getProduct().getProductType().equals(stored.getProduct().getProductType())
+                && !hasChanged(read, stored)));
+    }
+
+    /// Compares by value so 250 and 250.00 are equal
+    private boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return Objects.equals(a, b) || (a != null && b != null && a.compareTo(b) == 0);
     }
 
     ///  Manual save by controller
@@ -217,14 +560,116 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    /// Saves a day the writer changed, an emptied day too so a removed last order is gone from the file.
+    /// Its cached view goes before the save and again after it, since the save can merge in orders another
+    /// process saved and a view loaded in between wouldn't have them; both before the callers are answered.
+    /// A failed save throws, so the writer knows the day's changes aren't on disk.
+    private void persistDay(LocalDate orderDate) {
+        dayViews.invalidate(orderDate);
+        try {
+            orderDao.saveOrdersForDate(orderDate, orderDao.getAllOrders(orderDate));
+        } catch (PersistenceException e) {
+            throw new OrderNotSavedException(e.getMessage(), e); /// The writer fails the callers and holds back the day's events
+        } finally {
+            dayViews.invalidate(orderDate);
+        }
+    }
+
+    /// Publishes the events of the days just saved, in the order they were applied. A day whose save failed
+    /// isn't on disk, so its events are dropped rather than told to subscribers.
+    private void publishSaved(Set<LocalDate> saved, Set<LocalDate> failed) {
+        Iterator<Map.Entry<OrderEvent.Type, Order>> pending = pendingEvents.iterator();
+        while (pending.hasNext()) {
+            Map.Entry<OrderEvent.Type, Order> event = pending.next();
+            LocalDate orderDate = event.getValue().getOrderDate();
+            if (saved.contains(orderDate)) {
+                events.publish(event.getKey(), event.getValue());
+                pending.remove();
+            } else if (failed.contains(orderDate)) {
+                UNSAVED_EVENTS.increment();
+                pending.remove();
+            }
+        }
+    }
+
+    /// Counted rather than timed: a quote takes about as long as reading the clock twice
+    @Override
+    public Quote quote(String state, String productType, BigDecimal area) {
+        QUOTES.increment();
+        if (area == null || area.compareTo(BigDecimal.valueOf(100)) < 0) {
+            throw new InvalidOrderDataException("Invalid area. Minimum order size is 100 sq ft.");
+        }
+        RateFactors.Entry rates = rateFactors.get(state, productType);
+        if (rates == null) {
+            if (taxDao.getTaxByState(state) == null) {
+                throw new InvalidOrderDataException("Invalid state: " + state + ". We cannot sell there.");
+            }
+            throw new InvalidOrderDataException("Invalid product: " + productType + ". Please select an available product.");
+        }
+        OrderCosts costs = rates.price(area);
+        return new Quote(rates.getTax(), rates.getProduct(), area, costs.getMaterialCost(), costs.getLaborCost(),
+                costs.getTaxAmount(), costs.getTotal());
+    }
+
+    @Override
+    public List<Quote> quoteBatch(List<QuoteRequest> requests) {
+        long start = System.nanoTime();
+        try {
+            List<Quote> quotes = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                QuoteRequest request = requests.get(i);
+                try {
+                    quotes.add(quote(request.getStateAbbreviation(), request.getProductType(), request.getArea()));
+                } catch (InvalidOrderDataException e) {
+                    throw new InvalidOrderDataException("Quote " + (i + 1) + ": " + e.getMessage());
+                }
+            }
+            return quotes;
+        } catch (RuntimeException e) {
+            QUOTE_BATCH.recordError();
+            throw e;
+        } finally {
+            QUOTE_BATCH.recordSince(start);
+        }
+    }
+
     ///  Stretch goal
     @Override
-    public void exportAllData() {
+    public void exportAllData() throws PersistenceException {
+        orderDao.exportAllData();
+    }
+
+    @Override
+    public synchronized ExportJob startExport() {
+        ExportJob running = exportJob;
+        if (running != null && running.getStatus() == ExportJob.Status.RUNNING) {
+            return running;
+        }
+        ExportJob job = new ExportJob(++lastExportId);
+        exportJob = job;
+        exportExecutor.execute(() -> runExport(job));
+        return job;
+    }
+
+    /// Failures are kept on the job rather than printed, the console is busy with whatever the clerk is doing
+    private void runExport(ExportJob job) {
         try {
-            orderDao.exportAllData();
-        } catch (PersistenceException e) {
-            System.out.println("Error exporting orders: " + e.getMessage());
+            boolean written = orderDao.exportAllData(job);
+            job.finish(written ? ExportJob.Status.DONE : ExportJob.Status.CANCELLED, null);
+        } catch (PersistenceException | RuntimeException e) {
+            job.finish(ExportJob.Status.FAILED, e.getMessage());
         }
     }
 
+    @Override
+    public ExportJob getExportJob() {
+        return exportJob;
+    }
+
+    @Override
+    public boolean cancelExport(int jobId) {
+        ExportJob job = exportJob;
+        return job != null && job.getId() == jobId && job.cancel();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+package com.js.flooringmastery.service;
+
+import com.js.flooringmastery.exception.OrderNotSavedException;
+import com.js.flooringmastery.metrics.Metrics;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/// Single writer for order mutations. Callers submit commands to a bounded queue and wait; one thread takes
+/// whatever has queued up, applies the commands in submission order, then saves each day they touched once
+/// before answering the callers. Readers never wait on it, they see the DAO's published (immutable) days.
+final class OrderWriter {
+    private static final int QUEUE_CAPACITY = 1024; /// Callers block when this many commands are waiting
+    private static final int MAX_BATCH = 256;
+
+    private static final LongAdder BATCHES = Metrics.counter("writer.batches");
+    private static final LongAdder COMMANDS = Metrics.counter("writer.commands");
+
+    /// A mutation, run on the writer thread. Adds the dates it changed to touchedDates.
+    interface Command<T> {
+        T apply(Set<LocalDate> touchedDates);
+    }
+
+    /// Runs on the writer thread once the touched days are saved, with the days whose save failed
+    interface SaveListener {
+        void saved(Set<LocalDate> saved, Set<LocalDate> failed);
+    }
+
+    private static final class Task<T> {
+        private final Command<T> command;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final Set<LocalDate> touchedDates = new TreeSet<>();
+        private T value;
+
+        Task(Command<T> command) {
+            this.command = command;
+        }
+    }
+
+    private static final Task<Void> STOP = new Task<>(touchedDates -> null);
+
+    private final BlockingQueue<Task<?>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Consumer<LocalDate> saveDay;
+    private final SaveListener saveListener;
+    private volatile Thread thread;
+
+    /// saveDay persists a day after a batch changed it
+    OrderWriter(Consumer<LocalDate> saveDay) {
+        this(saveDay, (saved, failed) -> {});
+    }
+
+    /// saveDay throws if the day couldn't be saved, the listener hears which days were
+    OrderWriter(Consumer<LocalDate> saveDay, SaveListener saveListener) {
+        this(saveDay, saveListener, "");
+    }
+
+    /// metricsPrefix goes in front of the gauge name
+    OrderWriter(Consumer<LocalDate> saveDay, SaveListener saveListener, String metricsPrefix) {
+        this.saveDay = saveDay;
+        this.saveListener = saveListener;
+        Metrics.gauge(metricsPrefix + "writer.queueDepth", queue::size);
+    }
+
+    /// Applies the command on the writer thread and returns its result once its days are saved.
+    /// Exceptions thrown by the command are rethrown here, and an OrderNotSavedException if one of its days
+    /// failed to save; the change stays applied and goes to disk with that day's next save.
+    <T> T submit(Command<T> command) {
+        if (Thread.currentThread() == thread) {
+            /// A command submitting another: run it inline and save its days now
+            Set<LocalDate> touchedDates = new TreeSet<>();
+            T value = command.apply(touchedDates);
+            Map<LocalDate, RuntimeException> failures = save(touchedDates);
+            if (!failures.isEmpty()) {
+                throw notSaved(touchedDates, failures);
+            }
+            return value;
+        }
+        Task<T> task = new Task<>(command);
+        try {
+            start();
+            queue.put(task);
+            return task.result.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the order writer.", e);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private synchronized void start() {
+        if (thread == null) {
+            thread = new Thread(this::run, "order-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /// Lets queued commands finish, then stops the thread
+    synchronized void close() {
+        if (thread != null) {
+            try {
+                queue.put(STOP);
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    private void run() {
+        List<Task<?>> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            boolean stop = applyBatch(batch);
+            batch.clear();
+            if (stop) {
+                return;
+            }
+        }
+    }
+
+    /// Applies every command, saves the touched days once, then completes the callers. A caller whose command
+    /// touched a day that failed to save gets an OrderNotSavedException. Returns true on STOP.
+    private boolean applyBatch(List<Task<?>> batch) {
+        BATCHES.increment();
+        COMMANDS.add(batch.size());
+        Set<LocalDate> touchedDates = new TreeSet<>();
+        List<Task<?>> applied = new ArrayList<>(batch.size());
+        boolean stop = false;
+        for (Task<?> task : batch) {
+            if (task == STOP) {
+                stop = true;
+                continue;
+            }
+            if (apply(task)) {
+                applied.add(task);
+            }
+            touchedDates.addAll(task.touchedDates); /// A failed command's partial changes are saved too
+        }
+        Map<LocalDate, RuntimeException> failures = save(touchedDates);
+        for (Task<?> task : applied) {
+            if (Collections.disjoint(task.touchedDates, failures.keySet())) {
+                complete(task);
+            } else {
+                task.result.completeExceptionally(notSaved(task.touchedDates, failures));
+            }
+        }
+        return stop;
+    }
+
+    /// Saves each day once, then tells the listener how it went. Returns the days that failed with their error.
+    private Map<LocalDate, RuntimeException> save(Set<LocalDate> touchedDates) {
+        Set<LocalDate> saved = new TreeSet<>();
+        Map<LocalDate, RuntimeException> failures = new TreeMap<>();
+        for (LocalDate date : touchedDates) {
+            try {
+                saveDay.accept(date);
+                saved.add(date);
+            } catch (RuntimeException e) {
+                failures.put(date, e);
+                System.out.println("Error saving orders for " + date + ": " + e.getMessage());
+            }
+        }
+        try {
+            saveListener.saved(saved, failures.keySet());
+        } catch (RuntimeException e) {
+            System.out.println("Error after saving orders: " + e.getMessage());
+        }
+        return failures;
+    }
+
+    /// The error for a command whose days include one that failed to save, naming the first such day
+    private static OrderNotSavedException notSaved(Set<LocalDate> touchedDates,
+                                                   Map<LocalDate, RuntimeException> failures) {
+        for (LocalDate date : touchedDates) {
+            RuntimeException failure = failures.get(date);
+            if (failure != null) {
+                return new OrderNotSavedException("Orders for " + date + " could not be saved: "
+                        + failure.getMessage(), failure);
+            }
+        }
+        throw new IllegalArgumentException("No failed day among " + touchedDates);
+    }
+
+    private static <T> boolean apply(Task<T> task) {
+        try {
+            task.value = task.command.apply(task.touchedDates);
+            return true;
+        } catch (RuntimeException e) {
+            task.result.completeExceptionally(e);
+            return false;
+        }
+    }
+
+    private static <T> void complete(Task<T> task) {
+        task.result.complete(task.value);
+    }
+}
@@ -0,0 +1,125 @@
+package com.js.flooringmastery.service;
+
+import com.js.flooringmastery.dao.ProductDao;
+import com.js.flooringmastery.dao.ReloadableDao;
+import com.js.flooringmastery.dao.TaxDao;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.metrics.Metrics;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Current tax and product rates per (state, product), looked up once and kept with the tax rate already
+/// turned into the fraction the pricing rules multiply by, and as unscaled longs so a quote is priced
+/// without BigDecimal arithmetic. Each entry remembers the data versions it was
+/// read at and is looked up again once Taxes.txt or Products.txt has been reloaded. Entries are kept under the
+/// names as those files spell them, so other spellings ("tx" for TX) share one and can't grow the map.
+final class RateFactors {
+    private static final LongAdder HITS = Metrics.counter("quotes.factorHits");
+    private static final LongAdder MISSES = Metrics.counter("quotes.factorMisses");
+
+    /// Rates for one state and product
+    static final class Entry {
+        private final Tax tax;
+        private final Product product;
+        private final BigDecimal taxFraction;
+        private final long taxVersion;
+        private final long productVersion;
+        /// The same rates as unscaled longs for OrderCosts.ofUnscaled, or unscaled false if they don't fit one
+        private final boolean unscaled;
+        private final long cost;
+        private final long laborCost;
+        private final long fraction;
+
+        private Entry(Tax tax, Product product, long taxVersion, long productVersion) {
+            this.tax = tax;
+            this.product = product;
+            this.taxFraction = OrderCosts.taxFraction(tax);
+            this.taxVersion = taxVersion;
+            this.productVersion = productVersion;
+            this.unscaled = fitsLong(product.getCostPerSquareFoot()) && fitsLong(product.getLaborCostPerSquareFoot())
+                    && fitsLong(taxFraction);
+            this.cost = unscaled ? product.getCostPerSquareFoot().unscaledValue().longValue() : 0;
+            this.laborCost = unscaled ? product.getLaborCostPerSquareFoot().unscaledValue().longValue() : 0;
+            this.fraction = unscaled ? taxFraction.unscaledValue().longValue() : 0;
+        }
+
+        private static boolean fitsLong(BigDecimal value) {
+            return value.signum() >= 0 && value.scale() >= 0 && value.scale() <= OrderCosts.MAX_UNSCALED_SCALE
+                    && value.unscaledValue().bitLength() < 48;
+        }
+
+        /// The pricing rules for an area at these rates, in long arithmetic when the numbers allow it
+        OrderCosts price(BigDecimal area) {
+            OrderCosts costs = unscaled ? OrderCosts.ofUnscaled(area, cost, product.getCostPerSquareFoot().scale(),
+                    laborCost, product.getLaborCostPerSquareFoot().scale(), fraction) : null;
+            return costs != null ? costs : OrderCosts.of(area, product, taxFraction);
+        }
+
+        Tax getTax() {
+            return tax;
+        }
+
+        Product getProduct() {
+            return product;
+        }
+
+        BigDecimal getTaxFraction() {
+            return taxFraction;
+        }
+    }
+
+    private final TaxDao taxDao;
+    private final ProductDao productDao;
+    /// State, then product type: two lookups and no key to build per quote
+    private final Map<String, Map<String, Entry>> entries = new ConcurrentHashMap<>();
+
+    RateFactors(TaxDao taxDao, ProductDao productDao) {
+        this.taxDao = taxDao;
+        this.productDao = productDao;
+    }
+
+    /// Rates for the pair (names in any case), null if we don't sell in the state or don't sell the product
+    Entry get(String stateAbbreviation, String productType) {
+        long taxVersion = dataVersion(taxDao);
+        long productVersion = dataVersion(productDao);
+        Entry entry = kept(stateAbbreviation, productType, taxVersion, productVersion);
+        if (entry != null) {
+            HITS.increment();
+            return entry;
+        }
+        Tax tax = taxDao.getTaxByState(stateAbbreviation);
+        Product product = productDao.getProductByType(productType);
+        if (tax == null || product == null) {
+            MISSES.increment();
+            return null;
+        }
+        /// Another spelling of a pair already kept finds it under the names the files use
+        entry = kept(tax.getStateAbbreviation(), product.getProductType(), taxVersion, productVersion);
+        if (entry != null) {
+            HITS.increment();
+            return entry;
+        }
+        MISSES.increment();
+        entry = new Entry(tax, product, taxVersion, productVersion);
+        entries.computeIfAbsent(tax.getStateAbbreviation(), state -> new ConcurrentHashMap<>())
+                .put(product.getProductType(), entry);
+        return entry;
+    }
+
+    /// The entry kept under these names, or null if there is none read at these data versions
+    private Entry kept(String stateAbbreviation, String productType, long taxVersion, long productVersion) {
+        Map<String, Entry> byProduct = entries.get(stateAbbreviation);
+        Entry entry = byProduct == null ? null : byProduct.get(productType);
+        return entry != null && entry.taxVersion == taxVersion && entry.productVersion == productVersion
+                ? entry : null;
+    }
+
+    /// DAOs that can't be reloaded never change, version 0
+    private static long dataVersion(Object dao) {
+        return dao instanceof ReloadableDao reloadable ? reloadable.getDataVersion() : 0;
+    }
+}
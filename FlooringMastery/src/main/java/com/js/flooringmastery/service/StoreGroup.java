@@ -0,0 +1,269 @@
+package com.js.flooringmastery.service;
+
+import com.js.flooringmastery.dao.DataFileWatcher;
+import com.js.flooringmastery.dao.DataRoot;
+import com.js.flooringmastery.dao.OrderDao;
+import com.js.flooringmastery.dao.OrderDaoDatabaseImpl;
+import com.js.flooringmastery.dao.OrderDaoImpl;
+import com.js.flooringmastery.dao.OrderDaoMappedImpl;
+import com.js.flooringmastery.dao.OrderFileLayout;
+import com.js.flooringmastery.dao.ProductDaoImpl;
+import com.js.flooringmastery.dao.ReloadableDao;
+import com.js.flooringmastery.dao.TaxDaoImpl;
+import com.js.flooringmastery.dto.AuditReport;
+import com.js.flooringmastery.dto.DayView;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderSnapshot;
+import com.js.flooringmastery.dto.StoreSummary;
+import com.js.flooringmastery.metrics.Metrics;
+import com.js.flooringmastery.metrics.OperationTimer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/// Several stores in one process. Each store has its own data root (Stores/<id> under the main one) with
+/// its own Data, Orders and Backup folders, and its own tax, product and order DAOs and service, so
+/// nothing is shared between stores. Every store uses the order backend of the active profile (and the file
+/// layout of flooring.layout), and reports its gauges as stores.<id>.<gauge>. Stores load in parallel, and the
+/// queries across stores run one task per store on the same threads.
+public class StoreGroup {
+    private static final OperationTimer LOAD = Metrics.timer("stores.load");
+    private static final OperationTimer SUMMARIZE = Metrics.timer("stores.summarize");
+    private static final List<String> BACKENDS = List.of("default", "database", "mapped");
+
+    private final Map<String, Store> stores = new LinkedHashMap<>();
+    private final ExecutorService executor;
+    private final DataFileWatcher watcher;
+
+    /// storeIds is a comma separated list, as set by flooring.stores
+    public StoreGroup(String dataRoot, String storeIds) {
+        this(dataRoot, storeIds, "default", OrderFileLayout.DAILY);
+    }
+
+    /// backend is the order storage profile (default, database or mapped), layout the default one's file layout
+    public StoreGroup(String dataRoot, String storeIds, String backend, OrderFileLayout layout) {
+        this(dataRoot, Arrays.stream(storeIds.split(",")).map(String::trim).filter(id -> !id.isEmpty()).toList(),
+                backend, layout);
+    }
+
+    public StoreGroup(String dataRoot, List<String> storeIds) {
+        this(dataRoot, storeIds, "default", OrderFileLayout.DAILY);
+    }
+
+    public StoreGroup(String dataRoot, List<String> storeIds, String backend, OrderFileLayout layout) {
+        if (!BACKENDS.contains(backend)) {
+            throw new IllegalArgumentException("No order backend " + backend + ", use one of " + BACKENDS + ".");
+        }
+        this.executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(storeIds.size(), Runtime.getRuntime().availableProcessors())), runnable -> {
+                    Thread thread = new Thread(runnable, "store-group");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        long start = System.nanoTime();
+        try {
+            Map<String, Future<Store>> loading = new LinkedHashMap<>();
+            for (String storeId : storeIds) {
+                String storeRoot = DataRoot.resolve(dataRoot, "Stores", storeId).toString();
+                loading.put(storeId, executor.submit(() -> {
+                    try {
+                        return new Store(storeId, storeRoot, backend, layout);
+                    } catch (RuntimeException e) {
+                        throw new IllegalStateException("Could not load store " + storeId + ".", e);
+                    }
+                }));
+            }
+            RuntimeException failure = null;
+            for (Map.Entry<String, Future<Store>> entry : loading.entrySet()) {
+                try {
+                    stores.put(entry.getKey(), await(entry.getValue(), "Could not load the stores."));
+                } catch (RuntimeException e) {
+                    failure = failure == null ? e : failure; /// Wait for the rest so they can be closed
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (RuntimeException e) {
+            LOAD.recordError();
+            close(); /// The stores that did load
+            throw e;
+        } finally {
+            LOAD.recordSince(start);
+        }
+
+        List<ReloadableDao> reloadable = new ArrayList<>();
+        for (Store store : stores.values()) {
+            reloadable.add(store.taxDao);
+            reloadable.add(store.productDao);
+        }
+        this.watcher = new DataFileWatcher(reloadable);
+    }
+
+    /// Reloads a store's taxes or products when its Data files change
+    public void start() throws IOException {
+        watcher.start();
+    }
+
+    public List<String> getStoreIds() {
+        return List.copyOf(stores.keySet());
+    }
+
+    public OrderService getService(String storeId) {
+        Store store = stores.get(storeId);
+        if (store == null) {
+            throw new IllegalArgumentException("No store " + storeId + ".");
+        }
+        return store.service;
+    }
+
+    /// Each store's totals for the days in [from, to], in store order
+    public List<StoreSummary> summarize(LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        try {
+            return forEachStore((storeId, store) -> store.summarize(storeId, from, to));
+        } catch (RuntimeException e) {
+            SUMMARIZE.recordError();
+            throw e;
+        } finally {
+            SUMMARIZE.recordSince(start);
+        }
+    }
+
+    /// The day in every store, by store id
+    public Map<String, DayView> getDayViews(LocalDate orderDate) {
+        return byStore(forEachStore((storeId, store) -> store.service.getDayView(orderDate)));
+    }
+
+    /// Every store audited at once, by store id
+    public Map<String, AuditReport> auditAll() {
+        return byStore(forEachStore((storeId, store) -> store.service.auditOrders()));
+    }
+
+    /// Finishes each store's queued writes, then stops the threads
+    public void close() {
+        if (watcher != null) { /// Null when loading failed
+            try {
+                watcher.stop();
+            } catch (IOException e) {
+                System.out.println("Error stopping the store data watcher: " + e.getMessage());
+            }
+        }
+        for (Map.Entry<String, Store> entry : stores.entrySet()) {
+            entry.getValue().service.close();
+            try {
+                entry.getValue().closeOrders.close();
+            } catch (IOException e) {
+                System.out.println("Error closing store orders: " + e.getMessage());
+            }
+            Metrics.removeGauges(metricsPrefix(entry.getKey()));
+        }
+        executor.shutdown();
+    }
+
+    /// Runs the query on every store in parallel, results in store order
+    private <T> List<T> forEachStore(StoreQuery<T> query) {
+        List<Future<T>> running = new ArrayList<>();
+        for (Map.Entry<String, Store> entry : stores.entrySet()) {
+            running.add(executor.submit(() -> query.run(entry.getKey(), entry.getValue())));
+        }
+        List<T> results = new ArrayList<>(running.size());
+        for (Future<T> result : running) {
+            results.add(await(result, "Store query failed."));
+        }
+        return results;
+    }
+
+    private <T> Map<String, T> byStore(List<T> results) {
+        Map<String, T> byStore = new LinkedHashMap<>();
+        Iterator<T> result = results.iterator();
+        for (String storeId : stores.keySet()) {
+            byStore.put(storeId, result.next());
+        }
+        return byStore;
+    }
+
+    private static <T> T await(Future<T> future, String message) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(message, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(message, e.getCause());
+        }
+    }
+
+    private static String metricsPrefix(String storeId) {
+        return "stores." + storeId + ".";
+    }
+
+    private interface StoreQuery<T> {
+        T run(String storeId, Store store);
+    }
+
+    /// One store's DAO set and service
+    private static final class Store {
+        private final TaxDaoImpl taxDao;
+        private final ProductDaoImpl productDao;
+        private final OrderDao orderDao;
+        private final Closeable closeOrders;
+        private final OrderServiceImpl service;
+
+        private Store(String storeId, String storeRoot, String backend, OrderFileLayout layout) {
+            String prefix = metricsPrefix(storeId);
+            this.taxDao = new TaxDaoImpl(storeRoot, prefix);
+            this.productDao = new ProductDaoImpl(storeRoot, prefix);
+            switch (backend) {
+                case "database" -> {
+                    OrderDaoDatabaseImpl database = OrderDaoDatabaseImpl.inDataRoot(storeRoot, taxDao, productDao);
+                    this.orderDao = database;
+                    this.closeOrders = database::close;
+                }
+                case "mapped" -> {
+                    OrderDaoMappedImpl mapped = new OrderDaoMappedImpl(
+                            DataRoot.resolve(storeRoot, "Mapped").toString(), taxDao, productDao,
+                            DataRoot.resolve(storeRoot, "Backup").toString(), prefix);
+                    this.orderDao = mapped;
+                    this.closeOrders = mapped::close;
+                }
+                default -> {
+                    OrderDaoImpl files = new OrderDaoImpl(taxDao, productDao, layout, storeRoot, prefix);
+                    this.orderDao = files;
+                    this.closeOrders = files::close;
+                }
+            }
+            this.service = new OrderServiceImpl(orderDao, productDao, taxDao, new OrderEventBus(), prefix);
+        }
+
+        /// Sums one snapshot of the orders, so a long range neither reloads days nor pushes the console's
+        /// views out of the day view cache. Archived days aren't in the snapshot and are read from the DAO.
+        private StoreSummary summarize(String storeId, LocalDate from, LocalDate to) {
+            OrderSnapshot snapshot = orderDao.snapshot();
+            NavigableMap<LocalDate, List<Order>> hot = snapshot.getDays(from, to.isBefore(LocalDate.MAX)
+                    ? to.plusDays(1) : null);
+            int days = 0;
+            long orders = 0;
+            BigDecimal area = BigDecimal.ZERO;
+            BigDecimal taxAmount = BigDecimal.ZERO;
+            BigDecimal total = BigDecimal.ZERO;
+            for (LocalDate date : orderDao.getOrderDates().subSet(from, true, to, true)) {
+                List<Order> dayOrders = hot.get(date);
+                DayView view = new DayView(date, dayOrders != null ? dayOrders : orderDao.getAllOrders(date));
+                days++;
+                orders += view.getOrders().size();
+                area = area.add(view.getArea());
+                taxAmount = taxAmount.add(view.getTaxAmount());
+                total = total.add(view.getTotal());
+            }
+            return new StoreSummary(storeId, days, orders, area, taxAmount, total);
+        }
+    }
+}
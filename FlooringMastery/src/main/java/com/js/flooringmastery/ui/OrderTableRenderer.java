@@ -0,0 +1,73 @@
+package com.js.flooringmastery.ui;
+
+import com.js.flooringmastery.dto.Order;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/// Renders orders as fixed-width table rows straight into a StringBuilder
+/// Column padding is done by hand instead of String.format, which re-parses its pattern on every call
+class OrderTableRenderer {
+    private static final int[] WIDTHS = {7, 20, 3, 7, 10, 10, 11, 11, 10, 12};
+    private static final String[] HEADERS = {"Order", "Customer", "St", "Rate%", "Product",
+            "Area", "Material", "Labor", "Tax", "Total"};
+    private static final String SEPARATOR;
+
+    static {
+        int width = 0;
+        for (int w : WIDTHS) {
+            width += w + 1;
+        }
+        SEPARATOR = "-".repeat(width);
+    }
+
+    void appendHeader(StringBuilder out) {
+        for (int i = 0; i < HEADERS.length; i++) {
+            if (i < 5) {
+                padRight(out, HEADERS[i], WIDTHS[i]);
+            } else {
+                padLeft(out, HEADERS[i], WIDTHS[i]);
+            }
+        }
+        out.append('\n').append(SEPARATOR).append('\n');
+    }
+
+    void appendRow(StringBuilder out, Order order) {
+        padRight(out, Integer.toString(order.getOrderNumber()), WIDTHS[0]);
+        padRight(out, order.getCustomerName(), WIDTHS[1]);
+        padRight(out, order.getTax().getStateAbbreviation(), WIDTHS[2]);
+        padRight(out, twoDecimals(order.getTax().getTaxRate()), WIDTHS[3]);
+        padRight(out, order.getProduct().getProductType(), WIDTHS[4]);
+        padLeft(out, twoDecimals(order.getArea()), WIDTHS[5]);
+        padLeft(out, twoDecimals(order.getMaterialCost()), WIDTHS[6]);
+        padLeft(out, twoDecimals(order.getLaborCost()), WIDTHS[7]);
+        padLeft(out, twoDecimals(order.getTaxAmount()), WIDTHS[8]);
+        padLeft(out, twoDecimals(order.getTotal()), WIDTHS[9]);
+        out.append('\n');
+    }
+
+    void appendSeparator(StringBuilder out) {
+        out.append(SEPARATOR).append('\n');
+    }
+
+    private static String twoDecimals(BigDecimal value) {
+        return value == null ? "-" : value.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    /// Long values are cut to the column so the table stays aligned, one space separates columns
+    private static void padRight(StringBuilder out, String value, int width) {
+        int length = Math.min(value.length(), width);
+        out.append(value, 0, length);
+        for (int i = length; i <= width; i++) {
+            out.append(' ');
+        }
+    }
+
+    private static void padLeft(StringBuilder out, String value, int width) {
+        int length = Math.min(value.length(), width);
+        for (int i = length; i < width; i++) {
+            out.append(' ');
+        }
+        out.append(value, 0, length).append(' ');
+    }
+}
@@ -1,14 +1,32 @@
 package com.js.flooringmastery.ui;
 
+import com.js.flooringmastery.dto.AuditMismatch;
+import com.js.flooringmastery.dto.AuditReport;
+import com.js.flooringmastery.dto.DayView;
+import com.js.flooringmastery.dto.ExportJob;
 import com.js.flooringmastery.dto.Order;
 import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.ReplicaStatus;
+import com.js.flooringmastery.dto.RepriceChange;
+import com.js.flooringmastery.dto.RepriceReport;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 public class OrderView {
+    private static final int PAGE_SIZE = 50;
+    private static final int AUDIT_ROWS = 50;
+
     private final UserIO io;
+    private final OrderTableRenderer tableRenderer = new OrderTableRenderer();
+    private final StringBuilder pageBuffer = new StringBuilder(PAGE_SIZE * 128); /// Reused for every page
+    /// Table rows of the day view pages already shown, by page. Views are immutable and replaced when their day
+    /// changes, so the rows stay right for as long as the service keeps handing out the same view, and go once
+    /// it doesn't. Pages nobody paged to are never rendered.
+    private final Map<DayView, String[]> renderedPages = new WeakHashMap<>();
 
     public OrderView(UserIO io) {
         this.io = io;
@@ -22,10 +40,41 @@ public class OrderView {
         io.print("* 3. Edit an Order");
         io.print("* 4. Remove an Order");
         io.print("* 5. Export All Data");
-        io.print("* 6. Quit");
+        io.print("* 6. Reprice Orders");
+        io.print("* 7. Display Metrics");
+        io.print("* 8. Audit Stored Totals");
+        io.print("* 9. Export Progress");
+        io.print("* 10. Cancel Export");
+        io.print("* 11. Quit");
+        io.print("*");
+        io.print("* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *");
+        return io.readInt("Select an option: ", 1, 11);
+    }
+
+    /// Replica mode: the orders are the primary's, so only reads are offered
+    public int displayReplicaMenu() {
+        io.print("* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *");
+        io.print("* <<Flooring Program - Read Replica>>");
+        io.print("* 1. Display Orders");
+        io.print("* 2. Find an Order by Number");
+        io.print("* 3. Export All Data");
+        io.print("* 4. Export Progress");
+        io.print("* 5. Audit Stored Totals");
+        io.print("* 6. Display Metrics");
+        io.print("* 7. Replication Status");
+        io.print("* 8. Quit");
         io.print("*");
         io.print("* * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *");
-        return io.readInt("Select an option: ", 1, 6);
+        return io.readInt("Select an option: ", 1, 8);
+    }
+
+    public void displayReplicaStatus(ReplicaStatus status) {
+        io.print(String.format(" %s | Lag: %s | Backlog: %d bytes | Days applied: %d | Last poll %d ms ago",
+                status.isCaughtUp() ? "Caught up" : "Behind",
+                status.getLagMillis() < 0 ? "no changes yet" : status.getLagMillis() + " ms",
+                status.getBacklogBytes(),
+                status.getDaysApplied(),
+                status.getMillisSincePoll()));
     }
 
     public LocalDate getOrderDate() {
@@ -57,14 +106,72 @@ public class OrderView {
         return input.isBlank() ? null : new BigDecimal(input);
     }
 
-    public void displayOrders(List<Order> orders) {
+    public LocalDate getRepriceCutoffDate() {
+        return io.readLocalDate("Reprice orders on or after date (YYYY-MM-DD): ");
+    }
+
+    public String getRepriceState() {
+        return io.readString("Enter state abbreviation whose rate changed (or press Enter for any): ");
+    }
+
+    public String getRepriceProductType() {
+        return io.readString("Enter product type whose price changed (or press Enter for any): ");
+    }
+
+    public boolean confirmReprice() {
+        return io.readString("Apply these changes? (y/n): ").equalsIgnoreCase("y");
+    }
+
+    /// Shows a cached day view a page at a time, each page's rows rendered the first time it is shown, then its totals
+    public void displayDayView(DayView day) {
+        List<Order> orders = day.getOrders();
         if (orders.isEmpty()) {
             io.print("No orders found.");
             return;
         }
+        String[] pages = renderedPages.computeIfAbsent(day,
+                view -> new String[(orders.size() + PAGE_SIZE - 1) / PAGE_SIZE]);
+        for (int page = 0; page < pages.length; page++) {
+            int from = page * PAGE_SIZE;
+            int to = Math.min(from + PAGE_SIZE, orders.size());
+            if (pages[page] == null) {
+                pages[page] = renderRows(orders.subList(from, to));
+            }
+            pageBuffer.setLength(0);
+            tableRenderer.appendHeader(pageBuffer);
+            pageBuffer.append(pages[page]);
+            tableRenderer.appendSeparator(pageBuffer);
+            appendPageFooter(from, to - from, orders.size());
+            if (to == orders.size()) {
+                pageBuffer.append(String.format("%n Day totals: Area %.2f SqFt | Material $%.2f | Labor $%.2f "
+                                + "| Tax $%.2f | Total $%.2f",
+                        day.getArea(), day.getMaterialCost(), day.getLaborCost(), day.getTaxAmount(),
+                        day.getTotal()));
+            }
+            io.print(pageBuffer.toString());
+            if (to < orders.size() && !askForNextPage()) {
+                return;
+            }
+        }
+    }
+
+    private String renderRows(List<Order> orders) {
+        StringBuilder rows = new StringBuilder(orders.size() * 128);
         for (Order order : orders) {
-            displayOrderSummary(order);
+            tableRenderer.appendRow(rows, order);
         }
+        return rows.toString();
+    }
+
+    public boolean askForNextPage() {
+        return !io.readString("Press Enter for the next page, or Q to stop: ").equalsIgnoreCase("q");
+    }
+
+    private void appendPageFooter(int firstPosition, int count, int totalOrders) {
+        int pages = Math.max(1, (totalOrders + PAGE_SIZE - 1) / PAGE_SIZE);
+        pageBuffer.append(" Orders ").append(firstPosition + 1).append('-').append(firstPosition + count)
+                .append(" of ").append(totalOrders)
+                .append(" (page ").append(firstPosition / PAGE_SIZE + 1).append(" of ").append(pages).append(')');
     }
 
     public void displayOrder(Order order) {
@@ -87,6 +194,96 @@ public class OrderView {
         io.print("-------------------------------------------------");
     }
 
+    /// Outputs the diff of a reprice, one line per changed order, with the product rates when they changed too
+    public void displayRepriceReport(RepriceReport report) {
+        io.print(report.isDryRun() ? "\nReprice preview (nothing saved):" : "\nReprice applied:");
+        io.print("-------------------------------------------------");
+        for (RepriceChange change : report.getChanges()) {
+            StringBuilder line = new StringBuilder(String.format(" #%-6d %s %-20s Rate %s%% -> %s%%",
+                    change.getOrderNumber(),
+                    change.getOrderDate(),
+                    change.getCustomerName(),
+                    change.getOldTaxRate(),
+                    change.getNewTaxRate()));
+            appendRateChange(line, "Cost/SqFt", change.getOldCostPerSquareFoot(), change.getNewCostPerSquareFoot());
+            appendRateChange(line, "Labor/SqFt", change.getOldLaborCostPerSquareFoot(),
+                    change.getNewLaborCostPerSquareFoot());
+            line.append(String.format(" | Total $%s -> $%s (%+.2f)",
+                    change.getOldTotal(),
+                    change.getNewTotal(),
+                    change.getDifference()));
+            io.print(line.toString());
+        }
+        io.print("-------------------------------------------------");
+        io.print(String.format(" Orders scanned: %d | Orders changed: %d | Days affected: %d | Net change: $%+.2f",
+                report.getOrdersScanned(),
+                report.getChanges().size(),
+                report.getTouchedDates().size(),
+                report.getTotalDifference()));
+    }
+
+    private static void appendRateChange(StringBuilder line, String name, BigDecimal oldRate, BigDecimal newRate) {
+        if (oldRate.compareTo(newRate) != 0) {
+            line.append(" | ").append(name).append(" $").append(oldRate).append(" -> $").append(newRate);
+        }
+    }
+
+    /// Lists at most the first AUDIT_ROWS mismatches, the totals line covers all of them
+    public void displayAuditReport(AuditReport report) {
+        io.print("\nStored totals audit:");
+        io.print("-------------------------------------------------");
+        List<AuditMismatch> mismatches = report.getMismatches();
+        for (AuditMismatch mismatch : mismatches.subList(0, Math.min(AUDIT_ROWS, mismatches.size()))) {
+            io.print(String.format(" #%-6d %s %-20s %s | Total $%s, expected $%s",
+                    mismatch.getOrderNumber(),
+                    mismatch.getOrderDate(),
+                    mismatch.getCustomerName(),
+                    String.join("/", mismatch.getFields()),
+                    mismatch.getStoredTotal(),
+                    mismatch.getExpectedTotal()));
+        }
+        if (mismatches.size() > AUDIT_ROWS) {
+            io.print(String.format(" ... and %d more", mismatches.size() - AUDIT_ROWS));
+        }
+        io.print("-------------------------------------------------");
+        io.print(String.format(" Orders scanned: %d | Days: %d | Mismatches: %d | %.1f ms (%.0f orders/s)",
+                report.getOrdersScanned(),
+                report.getDaysScanned(),
+                mismatches.size(),
+                report.getElapsedNanos() / 1e6,
+                report.getOrdersPerSecond()));
+    }
+
+    /// Progress of a background export: orders and bytes so far, rate, and time left while it runs
+    public void displayExportJob(ExportJob job) {
+        if (job == null) {
+            io.print("No export has been started.");
+            return;
+        }
+        long total = job.getTotalOrders();
+        String written = total < 0 ? String.valueOf(job.getOrdersWritten())
+                : String.format("%d of %d (%.0f%%)", job.getOrdersWritten(), total,
+                total == 0 ? 100.0 : job.getOrdersWritten() * 100.0 / total);
+        io.print(String.format(" Export #%d %s | Orders: %s | %.1f KB | %.0f orders/s | %.1f s",
+                job.getId(),
+                job.getStatus(),
+                written,
+                job.getBytesWritten() / 1024.0,
+                job.getOrdersPerSecond(),
+                job.getElapsedNanos() / 1e9));
+        if (job.getEtaNanos() >= 0) {
+            io.print(String.format(" About %.1f s left", job.getEtaNanos() / 1e9));
+        }
+        if (job.getError() != null) {
+            io.print(" Error: " + job.getError());
+        }
+    }
+
+    public void displayMetrics(String report) {
+        io.print("\nPerformance Metrics:");
+        io.print(report);
+    }
+
     /// Outputs summary of order after adding the order
     public void displayOrderSummary(Order order) {
         io.print(String.format(" Order Number:    %d", order.getOrderNumber()));
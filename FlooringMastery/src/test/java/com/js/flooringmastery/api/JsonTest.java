@@ -0,0 +1,49 @@
+package com.js.flooringmastery.api;
+
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTest {
+
+    @Test
+    void testParseFlatObject() {
+        Map<String, String> fields = Json.parseObject(
+                "{ \"date\": \"2030-01-15\", \"customerName\": \"Ada \\\"A\\\" Lovelace\", \"area\": 249.5, \"state\": null }");
+
+        assertEquals("2030-01-15", fields.get("date"));
+        assertEquals("Ada \"A\" Lovelace", fields.get("customerName"));
+        assertEquals("249.5", fields.get("area"));
+        assertTrue(fields.containsKey("state"));
+        assertNull(fields.get("state"));
+    }
+
+    @Test
+    void testParseRejectsMalformedInput() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"date\" \"2030-01-15\"}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"date\": {\"nested\": 1}}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"date\": \"2030\\"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"date\": \"\\u20"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parseObject("{\"date\": \"\\u20zz\"}"));
+    }
+
+    @Test
+    void testOrderEscapesStrings() {
+        Order order = new Order(1, "Ada\\Lovelace", new Tax("CA", "California", new BigDecimal("25.00")),
+                new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15")),
+                new BigDecimal("249.00"), LocalDate.of(2030, 1, 15));
+
+        String json = Json.order(order);
+
+        assertTrue(json.startsWith("{\"orderNumber\":1,\"orderDate\":\"2030-01-15\",\"customerName\":\"Ada\\\\Lovelace\""));
+        assertTrue(json.contains("\"taxRate\":25.00"));
+        assertTrue(json.contains("\"total\":null"));
+    }
+}
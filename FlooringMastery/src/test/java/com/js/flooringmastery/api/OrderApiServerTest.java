@@ -0,0 +1,38 @@
+package com.js.flooringmastery.api;
+
+import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doThrow;
+
+class OrderApiServerTest {
+
+    @Test
+    void testFailedExportAnswers500() throws Exception {
+        OrderService service = Mockito.mock(OrderService.class);
+        doThrow(new PersistenceException("Could not export data.", new IOException("Disk full")))
+                .when(service).exportAllData();
+        OrderApiServer server = new OrderApiServer(service);
+        server.start(0);
+        try {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/api/export"))
+                            .POST(HttpRequest.BodyPublishers.noBody()).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(500, response.statusCode());
+            assertTrue(response.body().contains("Could not export data."));
+        } finally {
+            server.stop();
+        }
+    }
+}
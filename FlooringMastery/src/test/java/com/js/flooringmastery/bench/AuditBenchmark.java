@@ -0,0 +1,64 @@
+package com.js.flooringmastery.bench;
+
+import com.js.flooringmastery.dao.OrderDao;
+import com.js.flooringmastery.dto.AuditReport;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderSnapshot;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.service.OrderServiceImpl;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.mockito.Mockito.when;
+
+/// Throughput of the stored-totals audit over generated orders held in memory (no file I/O)
+/// Run from the FlooringMastery folder: java -cp target/classes:target/test-classes:<test deps> com.js.flooringmastery.bench.AuditBenchmark [days] [ordersPerDay]
+public class AuditBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int ordersPerDay = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        Tax[] taxes = {new Tax("TX", "Texas", new BigDecimal("4.45")), new Tax("WA", "Washington", new BigDecimal("9.25")),
+                new Tax("KY", "Kentucky", new BigDecimal("6.00")), new Tax("CA", "California", new BigDecimal("25.00"))};
+        Product[] products = {new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10")),
+                new Product("Laminate", new BigDecimal("1.75"), new BigDecimal("2.10")),
+                new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15")),
+                new Product("Wood", new BigDecimal("5.15"), new BigDecimal("4.75"))};
+
+        OrderDao orderDao = Mockito.mock(OrderDao.class);
+        OrderServiceImpl service = new OrderServiceImpl(orderDao, null, null);
+        Random random = new Random(42);
+        NavigableMap<LocalDate, List<Order>> ordersByDay = new TreeMap<>();
+        int orderNumber = 1;
+        for (int day = 0; day < days; day++) {
+            LocalDate date = LocalDate.of(2040, 1, 1).plusDays(day);
+            List<Order> orders = new ArrayList<>(ordersPerDay);
+            for (int i = 0; i < ordersPerDay; i++) {
+                Order order = new Order(orderNumber++, "Customer", taxes[random.nextInt(taxes.length)],
+                        products[random.nextInt(products.length)], BigDecimal.valueOf(10_000 + random.nextInt(90_000), 2),
+                        date);
+                service.calculateOrderValues(order);
+                if (random.nextInt(1_000) == 0) {
+                    order.setTotal(order.getTotal().add(BigDecimal.ONE)); /// About one in a thousand is off
+                }
+                orders.add(order);
+            }
+            ordersByDay.put(date, List.copyOf(orders));
+        }
+        when(orderDao.snapshot()).thenReturn(OrderSnapshot.of(1, ordersByDay));
+        when(orderDao.getOrderDates()).thenReturn(ordersByDay.navigableKeySet());
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            AuditReport report = service.auditOrders();
+            System.out.printf("Round %d: %d orders over %d days, %d mismatches, %.1f ms (%.0f orders/s)%n", round,
+                    report.getOrdersScanned(), report.getDaysScanned(), report.getMismatches().size(),
+                    report.getElapsedNanos() / 1e6, report.getOrdersPerSecond());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.js.flooringmastery.bench;
+
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderEvent;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.metrics.LatencyHistogram;
+import com.js.flooringmastery.service.OrderEventBus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.locks.LockSupport;
+
+/// What publishing an order event costs the writer: with no subscribers, with a subscriber that keeps up, and
+/// with one that waits 500 us on each event (as if writing it somewhere) under each backpressure policy. Events
+/// come faster than that, so the slow one falls behind and either holds the publisher up (BLOCK) or loses the
+/// oldest events (DROP).
+/// Run from the FlooringMastery folder: java -cp target/classes:target/test-classes:<test deps> com.js.flooringmastery.bench.EventBusBenchmark [events]
+public class EventBusBenchmark {
+    private static final long PUBLISH_INTERVAL_NANOS = 10_000;
+    private static final long SLOW_HANDLE_NANOS = 500_000;
+
+    public static void main(String[] args) {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        Order order = new Order(1, "Ann", new Tax("TX", "Texas", new BigDecimal("4.45")),
+                new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10")), new BigDecimal("100"),
+                LocalDate.now());
+
+        run("No subscribers", events, order, null, 0);
+        run("Fast subscriber, BLOCK", events, order, OrderEventBus.Backpressure.BLOCK, 0);
+        run("Slow subscriber, DROP", events, order, OrderEventBus.Backpressure.DROP, SLOW_HANDLE_NANOS);
+        run("Slow subscriber, BLOCK", events, order, OrderEventBus.Backpressure.BLOCK, SLOW_HANDLE_NANOS);
+    }
+
+    private static void run(String label, int events, Order order, OrderEventBus.Backpressure policy,
+                            long handleNanos) {
+        OrderEventBus bus = new OrderEventBus(1024);
+        OrderEventBus.Subscription subscription = policy == null ? null
+                : bus.subscribe("bench", policy, event -> {
+                    if (handleNanos > 0) {
+                        LockSupport.parkNanos(handleNanos);
+                    }
+                });
+        LatencyHistogram publish = new LatencyHistogram();
+        long startAll = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            long start = System.nanoTime();
+            bus.publish(OrderEvent.Type.CREATED, order);
+            publish.record(System.nanoTime() - start);
+            LockSupport.parkNanos(PUBLISH_INTERVAL_NANOS);
+        }
+        long publishMillis = (System.nanoTime() - startAll) / 1_000_000;
+        bus.close();
+        System.out.printf("%-24s publish p50 %6.1f us  p99 %8.1f us  max %9.1f us  %5d ms  delivered %6d  dropped %6d%n",
+                label, publish.getPercentileNanos(50) / 1000.0, publish.getPercentileNanos(99) / 1000.0,
+                publish.getMaxNanos() / 1000.0, publishMillis,
+                subscription == null ? 0 : subscription.getDelivered(),
+                subscription == null ? 0 : subscription.getDropped());
+    }
+}
@@ -0,0 +1,77 @@
+package com.js.flooringmastery.bench;
+
+import com.js.flooringmastery.dao.*;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.service.OrderServiceImpl;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/// Startup and save cost of the daily file layout against monthly segments on years of history.
+/// Writes thousands of order files into SampleFileData/Orders, so run it from a scratch copy of the
+/// FlooringMastery folder: java -cp target/classes:target/test-classes:<deps> com.js.flooringmastery.bench.FileLayoutBenchmark [years] [ordersPerDay]
+public class FileLayoutBenchmark {
+    private static final int ROUNDS = 3;
+    private static final int SAVES = 200;
+
+    public static void main(String[] args) throws PersistenceException {
+        int years = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int ordersPerDay = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        TaxDao taxDao = new TaxDaoImpl();
+        ProductDao productDao = new ProductDaoImpl();
+        OrderServiceImpl pricing = new OrderServiceImpl(null, productDao, taxDao);
+        List<Tax> taxes = taxDao.getAllTaxes();
+        List<Product> products = productDao.getAllProducts();
+
+        /// Every day of the years before the sample data's far-future test dates
+        LocalDate firstDay = LocalDate.of(2050, 1, 1);
+        LocalDate endDay = firstDay.plusYears(years);
+        Random random = new Random(42);
+        OrderDaoImpl generator = new OrderDaoImpl(taxDao, productDao, OrderFileLayout.DAILY);
+        int orderNumber = 2_000_000;
+        List<List<Order>> generated = new ArrayList<>();
+        for (LocalDate date = firstDay; date.isBefore(endDay); date = date.plusDays(1)) {
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < ordersPerDay; i++) {
+                Order order = new Order(orderNumber++, "Customer " + i, taxes.get(random.nextInt(taxes.size())),
+                        products.get(random.nextInt(products.size())),
+                        BigDecimal.valueOf(100 + random.nextInt(900)), date);
+                pricing.calculateOrderValues(order);
+                orders.add(order);
+            }
+            generator.saveOrdersForDate(date, orders);
+            generated.add(orders);
+        }
+        System.out.printf("%d days x %d orders written%n", generated.size(), ordersPerDay);
+
+        for (OrderFileLayout layout : OrderFileLayout.values()) {
+            if (layout != OrderFileLayout.DAILY) {
+                long start = System.nanoTime();
+                int days = OrderDaoImpl.convertLayout(OrderFileLayout.DAILY, layout);
+                System.out.printf("Converted %d days to %s in %.1f ms%n", days, layout, (System.nanoTime() - start) / 1e6);
+            }
+            for (int round = 1; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                OrderDaoImpl dao = new OrderDaoImpl(taxDao, productDao, layout);
+                long startup = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < SAVES; i++) {
+                    List<Order> orders = generated.get(random.nextInt(generated.size()));
+                    dao.saveOrdersForDate(orders.get(0).getOrderDate(), orders);
+                }
+                long saves = System.nanoTime() - start;
+                System.out.printf("  %-8s round %d: startup %8.1f ms | saveOrdersForDate %8.1f us/op%n", layout, round,
+                        startup / 1e6, saves / 1e3 / SAVES);
+            }
+        }
+        OrderDaoImpl.convertLayout(OrderFileLayout.MONTHLY, OrderFileLayout.DAILY); /// Leave the folder as it was
+    }
+}
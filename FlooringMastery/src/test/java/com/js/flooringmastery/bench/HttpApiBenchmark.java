@@ -0,0 +1,105 @@
+package com.js.flooringmastery.bench;
+
+import com.js.flooringmastery.api.OrderApiServer;
+import com.js.flooringmastery.metrics.LatencyHistogram;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Read-only load test of the order API on localhost, reports requests/sec and latency percentiles
+/// Usage: HttpApiBenchmark [clients] [seconds] [port]  (without a port an in-process server is started)
+/// Run from the FlooringMastery folder so SampleFileData resolves
+public class HttpApiBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        ClassPathXmlApplicationContext ctx = null;
+        int port;
+        if (args.length > 2) {
+            port = Integer.parseInt(args[2]);
+        } else {
+            ctx = new ClassPathXmlApplicationContext("applicationContext.xml");
+            OrderApiServer server = ctx.getBean("orderApiServer", OrderApiServer.class);
+            server.start(0);
+            port = server.getPort();
+        }
+
+        String base = "http://localhost:" + port + "/api/orders";
+        URI[] targets = {
+                URI.create(base + "?date=2013-06-02"),
+                URI.create(base + "?date=2013-06-01"),
+                URI.create(base + "/2013-06-02/2")
+        };
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1) /// No h2c upgrade attempt, the JDK server only speaks 1.1
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(clients))
+                .build();
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder failures = new LongAdder();
+
+        /// Warm up, then measure
+        runClients(client, targets, clients, 2, new LatencyHistogram(), new LongAdder());
+        long start = System.nanoTime();
+        runClients(client, targets, clients, seconds, latency, failures);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Clients: %d, duration: %.1f s%n", clients, elapsedSeconds);
+        System.out.printf("Requests: %d (%d failed), %.0f requests/sec%n",
+                latency.getCount(), failures.sum(), latency.getCount() / elapsedSeconds);
+        System.out.printf("Latency us: mean %.1f, p50 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                latency.getMeanNanos() / 1000.0,
+                latency.getPercentileNanos(50) / 1000.0,
+                latency.getPercentileNanos(99) / 1000.0,
+                latency.getPercentileNanos(99.9) / 1000.0,
+                latency.getMaxNanos() / 1000.0);
+
+        if (ctx != null) {
+            ctx.close();
+        }
+        System.exit(0);
+    }
+
+    private static void runClients(HttpClient client, URI[] targets, int clients, int seconds,
+                                   LatencyHistogram latency, LongAdder failures) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService workers = Executors.newFixedThreadPool(clients);
+        List<Future<?>> running = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int offset = c;
+            running.add(workers.submit(() -> {
+                for (int i = offset; System.nanoTime() < deadline; i++) {
+                    HttpRequest request = HttpRequest.newBuilder(targets[i % targets.length]).GET().build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200) {
+                            failures.increment();
+                        }
+                    } catch (Exception e) {
+                        failures.increment();
+                    }
+                    latency.record(System.nanoTime() - start);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : running) {
+            future.get();
+        }
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,67 @@
+package com.js.flooringmastery.bench;
+
+import com.js.flooringmastery.dao.LookupTable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/// Compares LookupTable against the HashMap lookups it replaced
+/// Run from the FlooringMastery folder: java -cp target/classes:target/test-classes com.js.flooringmastery.bench.LookupBenchmark
+public class LookupBenchmark {
+    private static final int ROUNDS = 5;
+    private static final int LOOKUPS = 20_000_000;
+
+    public static void main(String[] args) {
+        String[] states = {"TX", "WA", "KY", "CA", "NY", "FL", "OH", "PA", "IL", "MI"};
+        Map<String, String> exact = new HashMap<>();
+        Map<String, String> upperCased = new HashMap<>();
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (String state : states) {
+            exact.put(state, state);
+            upperCased.put(state.toUpperCase(Locale.ROOT), state);
+            entries.put(state, state);
+        }
+        LookupTable<String> table = new LookupTable<>(entries);
+
+        /// Mixed-case input, like a clerk typing at the console
+        String[] inputs = new String[states.length * 2];
+        for (int i = 0; i < states.length; i++) {
+            inputs[i * 2] = states[i];
+            inputs[i * 2 + 1] = states[i].toLowerCase(Locale.ROOT);
+        }
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            System.out.printf("Round %d%n", round);
+            time("HashMap exact case (misses lowercase)", () -> {
+                int found = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    if (exact.get(inputs[i % inputs.length]) != null) found++;
+                }
+                return found;
+            });
+            time("HashMap with toUpperCase per call", () -> {
+                int found = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    if (upperCased.get(inputs[i % inputs.length].toUpperCase(Locale.ROOT)) != null) found++;
+                }
+                return found;
+            });
+            time("LookupTable case-insensitive", () -> {
+                int found = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    if (table.get(inputs[i % inputs.length]) != null) found++;
+                }
+                return found;
+            });
+        }
+    }
+
+    private static void time(String name, java.util.function.IntSupplier work) {
+        long start = System.nanoTime();
+        int found = work.getAsInt();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("  %-40s %8.1f ns/lookup (%d found)%n", name, (double) elapsed / LOOKUPS, found);
+    }
+}
@@ -0,0 +1,144 @@
+package com.js.flooringmastery.bench;
+
+import com.js.flooringmastery.dao.OrderDaoImpl;
+import com.js.flooringmastery.dao.OrderFileLayout;
+import com.js.flooringmastery.dao.ProductDaoImpl;
+import com.js.flooringmastery.dao.TaxDaoImpl;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.metrics.Metrics;
+import com.js.flooringmastery.service.OrderServiceImpl;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+
+/// Several JVMs creating orders on the same few days of one data root at once, then a check that every
+/// order is there exactly once with its own number. Each worker also reads the days while it writes, so
+/// it reloads what the others saved.
+/// Run from the FlooringMastery folder: java -cp target/classes:target/test-classes:<test deps> com.js.flooringmastery.bench.MultiProcessBenchmark [processes] [orders per process]
+public class MultiProcessBenchmark {
+    private static final int DAYS = 3;
+
+    /// Orders found and distinct order numbers after the workers finished
+    public static final class Result {
+        private final int orders;
+        private final int distinctNumbers;
+        private final Set<String> customers;
+
+        Result(int orders, int distinctNumbers, Set<String> customers) {
+            this.orders = orders;
+            this.distinctNumbers = distinctNumbers;
+            this.customers = customers;
+        }
+
+        public int getOrders() {
+            return orders;
+        }
+
+        public int getDistinctNumbers() {
+            return distinctNumbers;
+        }
+
+        public Set<String> getCustomers() {
+            return customers;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--worker")) {
+            work(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        int processes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int orders = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        Path root = Files.createTempDirectory("flooring-multi");
+        long start = System.nanoTime();
+        Result result = run(root, processes, orders);
+        long nanos = System.nanoTime() - start;
+        for (int worker = 1; worker <= processes; worker++) {
+            System.out.print(Files.readString(workerLog(root, worker)));
+        }
+        System.out.printf("%d processes x %d orders: %d stored, %d distinct numbers, %s in %d ms (%,.0f orders/sec)%n",
+                processes, orders, result.getOrders(), result.getDistinctNumbers(),
+                result.getCustomers().size() == processes * orders ? "none lost" : "LOST ORDERS",
+                nanos / 1_000_000, processes * orders / (nanos / 1e9));
+    }
+
+    /// Copies Data into the root, runs the workers and reads back what they stored. Each worker's output goes
+    /// to its log in the root, not this process's console (surefire reads that).
+    public static Result run(Path root, int processes, int ordersPerProcess) throws IOException, InterruptedException {
+        Path data = Files.createDirectories(root.resolve("Data"));
+        Files.copy(Paths.get("SampleFileData/Data/Taxes.txt"), data.resolve("Taxes.txt"));
+        Files.copy(Paths.get("SampleFileData/Data/Products.txt"), data.resolve("Products.txt"));
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> workers = new ArrayList<>();
+        for (int worker = 1; worker <= processes; worker++) {
+            workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    MultiProcessBenchmark.class.getName(), "--worker", root.toString(), String.valueOf(worker),
+                    String.valueOf(ordersPerProcess))
+                    .redirectErrorStream(true)
+                    .redirectOutput(workerLog(root, worker).toFile())
+                    .start());
+        }
+        for (int worker = 1; worker <= processes; worker++) {
+            Process process = workers.get(worker - 1);
+            if (process.waitFor() != 0) {
+                throw new IllegalStateException("Worker " + worker + " failed with exit code " + process.exitValue()
+                        + ", see " + workerLog(root, worker));
+            }
+        }
+
+        TaxDaoImpl taxDao = new TaxDaoImpl(root.toString());
+        ProductDaoImpl productDao = new ProductDaoImpl(root.toString());
+        OrderDaoImpl orderDao = new OrderDaoImpl(taxDao, productDao, OrderFileLayout.DAILY, root.toString());
+        try {
+            int orders = 0;
+            Set<Integer> numbers = new HashSet<>();
+            Set<String> customers = new HashSet<>();
+            for (LocalDate date : orderDao.getOrderDates()) {
+                for (Order order : orderDao.getAllOrders(date)) {
+                    orders++;
+                    numbers.add(order.getOrderNumber());
+                    customers.add(order.getCustomerName());
+                }
+            }
+            return new Result(orders, numbers.size(), customers);
+        } finally {
+            orderDao.close();
+        }
+    }
+
+    private static Path workerLog(Path root, int worker) {
+        return root.resolve("worker-" + worker + ".log");
+    }
+
+    private static void work(String root, int worker, int orders) throws IOException {
+        TaxDaoImpl taxDao = new TaxDaoImpl(root);
+        ProductDaoImpl productDao = new ProductDaoImpl(root);
+        OrderDaoImpl orderDao = new OrderDaoImpl(taxDao, productDao, OrderFileLayout.DAILY, root);
+        OrderServiceImpl service = new OrderServiceImpl(orderDao, productDao, taxDao);
+        LocalDate first = LocalDate.now().plusDays(10);
+        try {
+            for (int i = 0; i < orders; i++) {
+                LocalDate date = first.plusDays(i % DAYS);
+                service.createOrder(new Order(0, "Worker" + worker + " Order" + i,
+                        new Tax("TX", "Texas", BigDecimal.ZERO), new Product("Carpet", BigDecimal.ZERO, BigDecimal.ZERO),
+                        new BigDecimal("100"), date));
+                service.getDayView(date);
+            }
+        } finally {
+            service.close();
+            orderDao.close();
+        }
+        System.out.printf("Worker %d: %d days merged, %d days reloaded%n", worker,
+                Metrics.counter("dao.daysMerged").sum(), Metrics.counter("dao.daysReloaded").sum());
+    }
+}
@@ -0,0 +1,106 @@
+package com.js.flooringmastery.bench;
+
+import com.js.flooringmastery.dto.DayView;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.ui.OrderView;
+import com.js.flooringmastery.ui.UserIO;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/// Orders rendered per second: old per-order summary (11 format + print calls) vs a new day view shown as
+/// paged tables, and the same day view shown again (each page's rows rendered on the first round only)
+/// Output goes to an unbuffered stream on /dev/null, like System.out without the terminal
+public class OrderViewBenchmark {
+    private static final int ORDERS = 10_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        List<Order> orders = new ArrayList<>();
+        Tax tax = new Tax("CA", "California", new BigDecimal("25.00"));
+        Product product = new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15"));
+        for (int i = 1; i <= ORDERS; i++) {
+            Order order = new Order(i, "Customer " + i, tax, product, new BigDecimal("249.00"), LocalDate.of(2030, 1, 1));
+            order.setMaterialCost(new BigDecimal("871.50"));
+            order.setLaborCost(new BigDecimal("1033.35"));
+            order.setTaxAmount(new BigDecimal("476.21"));
+            order.setTotal(new BigDecimal("2381.06"));
+            orders.add(order);
+        }
+
+        DayView cached = new DayView(LocalDate.of(2030, 1, 1), List.copyOf(orders));
+
+        try (PrintStream sink = new PrintStream(new FileOutputStream(nullDevice()), false)) {
+            OrderView view = new OrderView(new SinkIO(sink));
+            for (int round = 1; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (Order order : orders) {
+                    view.displayOrderSummary(order);
+                }
+                report(round, "per-order summary", System.nanoTime() - start);
+
+                DayView fresh = new DayView(LocalDate.of(2030, 1, 1), List.copyOf(orders));
+                start = System.nanoTime();
+                view.displayDayView(fresh);
+                report(round, "new day view", System.nanoTime() - start);
+
+                start = System.nanoTime();
+                view.displayDayView(cached);
+                report(round, "cached day view", System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static File nullDevice() {
+        return new File(System.getProperty("os.name").startsWith("Windows") ? "NUL" : "/dev/null");
+    }
+
+    private static void report(int round, String name, long nanos) {
+        System.out.printf("Round %d %-18s %,12.0f orders/sec%n", round, name, ORDERS / (nanos / 1e9));
+    }
+
+    /// Prints like the console (one println per call) and always pages forward
+    private static class SinkIO implements UserIO {
+        private final PrintStream out;
+
+        SinkIO(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void print(String message) {
+            out.println(message);
+            out.flush();
+        }
+
+        @Override
+        public String readString(String prompt) {
+            return "";
+        }
+
+        @Override
+        public int readInt(String prompt, int min, int max) {
+            return min;
+        }
+
+        @Override
+        public double readDouble(String prompt, double min, double max) {
+            return min;
+        }
+
+        @Override
+        public BigDecimal readBigDecimal(String prompt) {
+            return BigDecimal.ZERO;
+        }
+
+        @Override
+        public LocalDate readLocalDate(String prompt) {
+            return LocalDate.now();
+        }
+    }
+}
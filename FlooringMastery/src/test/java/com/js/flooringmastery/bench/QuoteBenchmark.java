@@ -0,0 +1,80 @@
+package com.js.flooringmastery.bench;
+
+import com.js.flooringmastery.dao.OrderDao;
+import com.js.flooringmastery.dao.ProductDao;
+import com.js.flooringmastery.dao.ProductDaoImpl;
+import com.js.flooringmastery.dao.TaxDao;
+import com.js.flooringmastery.dao.TaxDaoImpl;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Quote;
+import com.js.flooringmastery.dto.QuoteRequest;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.service.OrderServiceImpl;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/// Quotes per second over every state/product pair in SampleFileData/Data: looking the rates up and pricing an
+/// Order each time (what a quote cost before), single quotes with memoized rates, and batches of 50
+/// Run from the FlooringMastery folder: java -cp target/classes:target/test-classes:<test deps> com.js.flooringmastery.bench.QuoteBenchmark [quotes]
+public class QuoteBenchmark {
+    private static final int ROUNDS = 5;
+    private static final int BATCH_SIZE = 50;
+
+    public static void main(String[] args) {
+        int quotes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        TaxDao taxDao = new TaxDaoImpl();
+        ProductDao productDao = new ProductDaoImpl();
+        OrderServiceImpl service = new OrderServiceImpl(Mockito.mock(OrderDao.class), productDao, taxDao);
+
+        List<String> states = taxDao.getAllTaxes().stream().map(Tax::getStateAbbreviation).toList();
+        List<String> products = productDao.getAllProducts().stream().map(Product::getProductType).toList();
+        Random random = new Random(42);
+        List<QuoteRequest> requests = new ArrayList<>(quotes);
+        for (int i = 0; i < quotes; i++) {
+            requests.add(new QuoteRequest(states.get(random.nextInt(states.size())),
+                    products.get(random.nextInt(products.size())), BigDecimal.valueOf(10_000 + random.nextInt(90_000), 2)));
+        }
+        LocalDate date = LocalDate.of(2040, 1, 1);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            BigDecimal checksum = BigDecimal.ZERO;
+            long start = System.nanoTime();
+            for (QuoteRequest request : requests) {
+                Order order = new Order(0, "Quote", taxDao.getTaxByState(request.getStateAbbreviation()),
+                        productDao.getProductByType(request.getProductType()), request.getArea(), date);
+                service.calculateOrderValues(order);
+                checksum = checksum.add(order.getTotal());
+            }
+            report(round, "lookup + price order", System.nanoTime() - start, quotes, checksum);
+
+            checksum = BigDecimal.ZERO;
+            start = System.nanoTime();
+            for (QuoteRequest request : requests) {
+                checksum = checksum.add(service.quote(request.getStateAbbreviation(), request.getProductType(),
+                        request.getArea()).getTotal());
+            }
+            report(round, "quote", System.nanoTime() - start, quotes, checksum);
+
+            checksum = BigDecimal.ZERO;
+            start = System.nanoTime();
+            for (int from = 0; from < quotes; from += BATCH_SIZE) {
+                for (Quote quote : service.quoteBatch(requests.subList(from, Math.min(from + BATCH_SIZE, quotes)))) {
+                    checksum = checksum.add(quote.getTotal());
+                }
+            }
+            report(round, "quoteBatch of " + BATCH_SIZE, System.nanoTime() - start, quotes, checksum);
+        }
+    }
+
+    /// The checksum keeps the work from being optimized away, and shows the three agree
+    private static void report(int round, String name, long nanos, int quotes, BigDecimal checksum) {
+        System.out.printf("Round %d %-22s %,12.0f quotes/sec (sum %s)%n", round, name, quotes / (nanos / 1e9), checksum);
+    }
+}
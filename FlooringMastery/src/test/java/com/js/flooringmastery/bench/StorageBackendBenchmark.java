@@ -0,0 +1,111 @@
+package com.js.flooringmastery.bench;
+
+import com.js.flooringmastery.dao.*;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.service.OrderServiceImpl;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/// Compares the flat-file OrderDaoImpl, the embedded database OrderDaoDatabaseImpl and the memory-mapped
+/// OrderDaoMappedImpl. Writes Orders_*.txt files, a database and mapped segments into SampleFileData,
+/// so run it from a scratch copy of the FlooringMastery folder: java -cp target/classes:target/test-classes:<h2 jar> com.js.flooringmastery.bench.StorageBackendBenchmark [days] [ordersPerDay]
+public class StorageBackendBenchmark {
+    private static final int ROUNDS = 3;
+    private static final int READS = 20_000;
+
+    public static void main(String[] args) throws PersistenceException {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int ordersPerDay = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        TaxDao taxDao = new TaxDaoImpl();
+        ProductDao productDao = new ProductDaoImpl();
+        OrderServiceImpl pricing = new OrderServiceImpl(null, productDao, taxDao);
+        List<Tax> taxes = taxDao.getAllTaxes();
+        List<Product> products = productDao.getAllProducts();
+
+        /// Generated days well past the sample data, written through every backend
+        LocalDate firstDay = LocalDate.of(2040, 1, 1);
+        Random random = new Random(42);
+        List<List<Order>> generated = new ArrayList<>();
+        int orderNumber = 1_000_000;
+        for (int day = 0; day < days; day++) {
+            List<Order> orders = new ArrayList<>();
+            for (int i = 0; i < ordersPerDay; i++) {
+                Order order = new Order(orderNumber++, "Customer " + i, taxes.get(random.nextInt(taxes.size())),
+                        products.get(random.nextInt(products.size())),
+                        BigDecimal.valueOf(100 + random.nextInt(900)), firstDay.plusDays(day));
+                pricing.calculateOrderValues(order);
+                orders.add(order);
+            }
+            generated.add(orders);
+        }
+
+        OrderDaoDatabaseImpl database = new OrderDaoDatabaseImpl("jdbc:h2:./SampleFileData/Database/bench",
+                taxDao, productDao);
+        OrderDaoMappedImpl mapped = new OrderDaoMappedImpl("SampleFileData/Mapped/bench", taxDao, productDao);
+        try {
+            OrderDao[] backends = {new OrderDaoImpl(taxDao, productDao), database, mapped};
+            for (int round = 1; round <= ROUNDS; round++) {
+                System.out.printf("Round %d (%d days x %d orders)%n", round, days, ordersPerDay);
+                for (OrderDao dao : backends) {
+                    String name = dao.getClass().getSimpleName();
+                    time(name + " saveOrdersForDate", days, () -> {
+                        for (List<Order> orders : generated) {
+                            dao.saveOrdersForDate(orders.get(0).getOrderDate(), orders);
+                        }
+                    });
+                    time(name + " getOrdersAfter (page of 20)", READS, () -> {
+                        for (int i = 0; i < READS; i++) {
+                            List<Order> day = generated.get(i % days);
+                            dao.getOrdersAfter(day.get(0).getOrderDate(), day.get(i % ordersPerDay).getOrderNumber(), 20);
+                        }
+                    });
+                    time(name + " getOrder", READS, () -> {
+                        for (int i = 0; i < READS; i++) {
+                            Order order = generated.get(i % days).get(i % ordersPerDay);
+                            dao.getOrder(order.getOrderDate(), order.getOrderNumber());
+                        }
+                    });
+                    time(name + " getNextOrderNumber", 20, () -> {
+                        for (int i = 0; i < 20; i++) {
+                            dao.getNextOrderNumber();
+                        }
+                    });
+                    time(name + " getOrdersAffectedBy (state)", 20, () -> {
+                        for (int i = 0; i < 20; i++) {
+                            dao.getOrdersAffectedBy(firstDay, taxes.get(i % taxes.size()).getStateAbbreviation(), null);
+                        }
+                    });
+                }
+            }
+        } finally {
+            database.close();
+            mapped.close();
+        }
+
+        /// Restart cost: reopening rebuilds the indexes from the records
+        long start = System.nanoTime();
+        OrderDaoMappedImpl reopened = new OrderDaoMappedImpl("SampleFileData/Mapped/bench", taxDao, productDao);
+        System.out.printf("OrderDaoMappedImpl reopen with %d orders: %.1f ms%n", days * ordersPerDay,
+                (System.nanoTime() - start) / 1e6);
+        reopened.close();
+    }
+
+    private interface Work {
+        void run() throws PersistenceException;
+    }
+
+    private static void time(String name, int operations, Work work) throws PersistenceException {
+        long start = System.nanoTime();
+        work.run();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("  %-50s %10.1f us/op%n", name, elapsed / 1_000.0 / operations);
+    }
+}
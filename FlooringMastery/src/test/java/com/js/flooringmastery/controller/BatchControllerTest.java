@@ -0,0 +1,84 @@
+package com.js.flooringmastery.controller;
+
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.exception.NoSuchOrderException;
+import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BatchControllerTest {
+    private OrderService service;
+    private BatchController batch;
+
+    @BeforeEach
+    void setUp() {
+        service = Mockito.mock(OrderService.class);
+        batch = new BatchController(service);
+    }
+
+    @Test
+    void testRunWritesOneResultLinePerCommand() throws Exception {
+        when(service.createOrder(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setOrderNumber(42);
+            order.setTotal(new BigDecimal("100.00"));
+            return order;
+        });
+        when(service.getOrder(LocalDate.of(2030, 1, 1), 7)).thenThrow(new NoSuchOrderException("Order not found!"));
+
+        String commands = """
+                # comment lines and blank lines are skipped
+
+                create|2030-01-01|Ada Lovelace|CA|Tile|249.00
+                edit|2030-01-01|7|||Wood|
+                export
+                """;
+        StringWriter output = new StringWriter();
+
+        int errors = batch.run(new BufferedReader(new StringReader(commands)), output);
+
+        String[] lines = output.toString().split("\\R");
+        assertEquals(1, errors);
+        assertEquals("OK|create|42|2030-01-01|100.00", lines[0]);
+        assertEquals("ERR|4|edit|Order not found!", lines[1]);
+        assertEquals("OK|export", lines[2]);
+        assertTrue(lines[3].startsWith("DONE|3|1|"));
+        verify(service, times(1)).exportAllData();
+    }
+
+    @Test
+    void testFailedExportIsAnError() throws Exception {
+        doThrow(new PersistenceException("Could not export data.", new IOException("Disk full")))
+                .when(service).exportAllData();
+        StringWriter output = new StringWriter();
+
+        int errors = batch.run(new BufferedReader(new StringReader("export\n")), output);
+
+        assertEquals(1, errors);
+        assertTrue(output.toString().startsWith("ERR|1|export|Could not export data."));
+    }
+
+    @Test
+    void testRunRejectsWrongFieldCount() throws Exception {
+        StringWriter output = new StringWriter();
+
+        int errors = batch.run(new BufferedReader(new StringReader("remove|2030-01-01\n")), output);
+
+        assertEquals(1, errors);
+        assertTrue(output.toString().startsWith("ERR|1|remove|Expected 3 fields"));
+        verify(service, never()).removeOrder(any(), Mockito.anyInt());
+    }
+}
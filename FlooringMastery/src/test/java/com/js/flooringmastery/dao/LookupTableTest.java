@@ -0,0 +1,46 @@
+package com.js.flooringmastery.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LookupTableTest {
+
+    @Test
+    void testLookupIgnoresCase() {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("Wood", "wood value");
+        entries.put("Tile", "tile value");
+        LookupTable<String> table = new LookupTable<>(entries);
+
+        assertEquals("wood value", table.get("wood"));
+        assertEquals("wood value", table.get("WOOD"));
+        assertEquals(1, table.codeOf("tILE"));
+        assertEquals("Tile", table.keyOf(1));
+        assertNull(table.get("Steel"));
+        assertEquals(-1, table.codeOf("Wood "));
+    }
+
+    @Test
+    void testCodesStayStableAcrossReloads() {
+        LookupTable<String> first = new LookupTable<>(new LinkedHashMap<>(Map.of("TX", "Texas")));
+
+        Map<String, String> reloaded = new LinkedHashMap<>();
+        reloaded.put("WA", "Washington");
+        reloaded.put("tx", "Texas again");
+        LookupTable<String> second = new LookupTable<>(first, reloaded);
+
+        assertEquals(0, second.codeOf("TX"));
+        assertEquals(1, second.codeOf("WA"));
+        assertEquals("Texas again", second.get(0));
+
+        LookupTable<String> third = new LookupTable<>(second, Map.of("WA", "Washington"));
+        assertEquals(-1, third.codeOf("TX"), "Dropped names are no longer found");
+        assertEquals(1, third.codeOf("wa"));
+        assertEquals(List.of("Washington"), third.values());
+    }
+}
@@ -0,0 +1,137 @@
+package com.js.flooringmastery.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonthlySegmentStoreTest {
+    @TempDir
+    Path folder;
+
+    private OrderFileChecksums checksums;
+
+    @BeforeEach
+    void setUp() {
+        checksums = new OrderFileChecksums(folder.resolve("Checksums"), folder.resolve("Quarantine"));
+    }
+
+    private static byte[] day(int... orderNumbers) {
+        StringBuilder content = new StringBuilder(OrderFileFormat.HEADER).append('\n');
+        for (int orderNumber : orderNumbers) {
+            content.append(orderNumber).append(",Customer,TX,4.45,Wood,100.00,5.15,4.75,515.00,475.00,44.06,1034.06\n");
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static NavigableMap<LocalDate, String> loadAll(DayFileStore store) {
+        NavigableMap<LocalDate, String> loaded = new ConcurrentSkipListMap<>();
+        store.loadAll((orderDate, content) -> {
+            loaded.put(orderDate, new String(content, StandardCharsets.UTF_8));
+            return null;
+        });
+        return loaded;
+    }
+
+    @Test
+    void testOneFilePerMonthWithDaysReadableOnTheirOwn() throws Exception {
+        MonthlySegmentStore store = new MonthlySegmentStore(folder, checksums);
+        LocalDate first = LocalDate.of(2030, 4, 1);
+        LocalDate second = LocalDate.of(2030, 4, 2);
+        LocalDate nextMonth = LocalDate.of(2030, 5, 1);
+        store.write(first, day(1, 2));
+        store.write(second, day(3));
+        store.write(nextMonth, day(4));
+        store.write(first, day(1)); /// Rewrites the day inside its month
+
+        assertTrue(Files.exists(folder.resolve(MonthlySegmentStore.fileName(YearMonth.of(2030, 4)))));
+        try (var files = Files.list(folder)) {
+            assertEquals(2, files.filter(file -> file.toString().endsWith(".seg")).count());
+        }
+        assertArrayEquals(day(3), store.read(List.of(second)).get(second));
+        assertEquals(List.of(first, second, nextMonth), new ArrayList<>(loadAll(store).keySet()));
+        assertEquals(new String(day(1), StandardCharsets.UTF_8), loadAll(store).get(first));
+
+        store.remove(List.of(nextMonth));
+        assertFalse(Files.exists(folder.resolve(MonthlySegmentStore.fileName(YearMonth.of(2030, 5)))));
+    }
+
+    @Test
+    void testCorruptDayIsQuarantinedAndTheRestOfTheMonthLoads() throws Exception {
+        MonthlySegmentStore store = new MonthlySegmentStore(folder, checksums);
+        LocalDate good = LocalDate.of(2030, 4, 1);
+        LocalDate bad = LocalDate.of(2030, 4, 2);
+        store.write(good, day(1));
+        store.write(bad, day(2));
+        Path segment = folder.resolve(MonthlySegmentStore.fileName(YearMonth.of(2030, 4)));
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 5] = 'X'; /// Inside the last day's content
+        Files.write(segment, bytes);
+
+        NavigableMap<LocalDate, String> loaded = loadAll(store);
+
+        assertEquals(Set.of(good), loaded.keySet());
+        assertTrue(Files.exists(folder.resolve("Quarantine/report.txt")));
+        assertEquals(Set.of(good), loadAll(store).keySet(), "The segment was rewritten without the bad day");
+    }
+
+    @Test
+    void testEachFileLoadsHoldingItsDayOrMonth() throws Exception {
+        DailyFileStore daily = new DailyFileStore(folder.resolve("Daily"), checksums);
+        MonthlySegmentStore monthly = new MonthlySegmentStore(folder.resolve("Monthly"), checksums);
+        NavigableMap<LocalDate, byte[]> days = new TreeMap<>();
+        for (int i = 0; i < 40; i++) {
+            days.put(LocalDate.of(2030, 1, 1).plusDays(i), day(i + 1));
+        }
+        daily.writeAll(days);
+        monthly.writeAll(days);
+
+        ThreadLocal<LocalDate> held = new ThreadLocal<>();
+        DayFileStore.DayGuard guard = (orderDate, check) -> {
+            held.set(orderDate);
+            try {
+                return check.run();
+            } finally {
+                held.remove();
+            }
+        };
+        Set<LocalDate> dailyLoaded = ConcurrentHashMap.newKeySet();
+        daily.loadAll((orderDate, content) -> orderDate.equals(held.get()) && dailyLoaded.add(orderDate) ? null
+                : "loaded without its day held", guard);
+        Set<LocalDate> monthlyLoaded = ConcurrentHashMap.newKeySet();
+        monthly.loadAll((orderDate, content) -> held.get() != null && YearMonth.from(orderDate).atDay(1).equals(held.get())
+                && monthlyLoaded.add(orderDate) ? null : "loaded without its month held", guard);
+
+        assertEquals(days.keySet(), dailyLoaded);
+        assertEquals(days.keySet(), monthlyLoaded);
+        assertFalse(Files.exists(folder.resolve("Quarantine")));
+    }
+
+    @Test
+    void testConvertFromDailyFilesAndBack() throws Exception {
+        DailyFileStore daily = new DailyFileStore(folder, checksums);
+        MonthlySegmentStore monthly = new MonthlySegmentStore(folder, checksums);
+        NavigableMap<LocalDate, byte[]> days = new TreeMap<>();
+        for (int i = 0; i < 40; i++) {
+            days.put(LocalDate.of(2030, 1, 1).plusDays(i), day(i + 1));
+        }
+        daily.writeAll(days);
+
+        assertEquals(40, DayFileStore.convert(daily, monthly));
+        assertTrue(loadAll(daily).isEmpty());
+        assertEquals(days.keySet(), loadAll(monthly).keySet());
+
+        assertEquals(40, DayFileStore.convert(monthly, daily));
+        assertArrayEquals(days.lastEntry().getValue(), daily.read(List.of(days.lastKey())).get(days.lastKey()));
+    }
+}
@@ -0,0 +1,101 @@
+package com.js.flooringmastery.dao;
+
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.service.OrderServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderDaoDatabaseImplTest {
+    private OrderDaoDatabaseImpl orderDao;
+    private TaxDao taxDao;
+    private ProductDao productDao;
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        taxDao = new TaxDaoImpl();
+        productDao = new ProductDaoImpl();
+        /// Fresh in-memory database per test, kept open until close()
+        orderDao = new OrderDaoDatabaseImpl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                taxDao, productDao);
+        orderService = new OrderServiceImpl(orderDao, productDao, taxDao);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderDao.close();
+    }
+
+    @Test
+    void testAddAndGetOrderKeepsAmounts() {
+        LocalDate orderDate = LocalDate.of(2030, 4, 1);
+        Order order = new Order(4, "Jackie Saad", taxDao.getTaxByState("TX"),
+                productDao.getProductByType("Wood"), new BigDecimal("250"), orderDate);
+        orderService.calculateOrderValues(order);
+        orderDao.addOrder(order);
+
+        Order stored = orderDao.getOrder(orderDate, 4);
+
+        assertNotNull(stored);
+        assertEquals("Jackie Saad", stored.getCustomerName());
+        assertEquals(order.getTotal(), stored.getTotal());
+        assertEquals(new BigDecimal("250.00"), stored.getArea());
+        assertSame(taxDao.getTaxByState("TX"), stored.getTax(), "Matching rates should reuse the loaded Tax");
+        assertEquals(5, orderDao.getNextOrderNumber());
+    }
+
+    @Test
+    void testSaveOrdersForDateReplacesDay() throws PersistenceException {
+        LocalDate orderDate = LocalDate.of(2030, 4, 2);
+        Tax tax = taxDao.getTaxByState("WA");
+        Product product = productDao.getProductByType("Tile");
+        for (int orderNumber : new int[]{3, 1, 2}) {
+            Order order = new Order(orderNumber, "Customer", tax, product, new BigDecimal("200"), orderDate);
+            orderService.calculateOrderValues(order);
+            orderDao.addOrder(order);
+        }
+
+        List<Order> kept = List.of(orderDao.getOrder(orderDate, 1), orderDao.getOrder(orderDate, 3));
+        orderDao.saveOrdersForDate(orderDate, kept);
+
+        assertEquals(List.of(1, 3), orderDao.getAllOrders(orderDate).stream().map(Order::getOrderNumber).toList());
+        assertEquals(List.of(3), orderDao.getOrdersAfter(orderDate, 1, 10).stream()
+                .map(Order::getOrderNumber).toList());
+        assertEquals(List.of(3), orderDao.getOrders(orderDate, 1, 1).stream().map(Order::getOrderNumber).toList());
+        assertEquals(2, orderDao.countOrders(orderDate));
+    }
+
+    @Test
+    void testCopiedFilesMatchAndFindAffectedOrders() throws PersistenceException {
+        OrderDaoImpl files = new OrderDaoImpl(taxDao, productDao);
+
+        int copied = 0;
+        for (LocalDate date : files.getOrderDates()) {
+            orderDao.saveOrdersForDate(date, files.getAllOrders(date));
+            copied += files.getAllOrders(date).size();
+        }
+
+        assertEquals(files.getOrderDates(), orderDao.getOrderDates());
+        assertEquals(files.getNextOrderNumber(), orderDao.getNextOrderNumber());
+        for (LocalDate date : files.getOrderDates()) {
+            assertEquals(files.getAllOrders(date).size(), orderDao.countOrders(date));
+            copied -= files.getAllOrders(date).size();
+        }
+        assertEquals(0, copied);
+
+        LocalDate first = files.getOrderDates().first();
+        assertEquals(files.getOrdersAffectedBy(first, "CA", "Wood").stream().map(Order::getOrderNumber).toList(),
+                orderDao.getOrdersAffectedBy(first, "CA", "Wood").stream().map(Order::getOrderNumber).toList());
+    }
+}
@@ -0,0 +1,24 @@
+package com.js.flooringmastery.dao;
+
+import com.js.flooringmastery.bench.MultiProcessBenchmark;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderDaoImplMultiProcessTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testProcessesSharingTheFolderKeepEveryOrder() throws Exception {
+        MultiProcessBenchmark.Result result = MultiProcessBenchmark.run(root, 3, 40);
+
+        assertEquals(120, result.getOrders(), "No process overwrote another's orders");
+        assertEquals(120, result.getDistinctNumbers(), "No order number was handed out twice");
+        assertEquals(120, result.getCustomers().size());
+    }
+}
@@ -1,12 +1,15 @@
 package com.js.flooringmastery.dao;
 
+import com.js.flooringmastery.dto.ExportJob;
 import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderSnapshot;
 import com.js.flooringmastery.dto.Product;
 import com.js.flooringmastery.dto.Tax;
 import com.js.flooringmastery.exception.PersistenceException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
@@ -15,7 +18,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import com.js.flooringmastery.service.OrderServiceImpl;
@@ -75,6 +85,42 @@ class OrderDaoImplTest {
         assertEquals("Bob", orders.get(1).getCustomerName());
     }
 
+    @Test
+    void testSnapshotIsUnchangedByLaterWrites() {
+        LocalDate orderDate = LocalDate.of(2025, 6, 17);
+        Tax tax = taxDao.getTaxByState("TX");
+        Product product = productDao.getProductByType("Wood");
+        orderDao.addOrder(new Order(7, "Before", tax, product, new BigDecimal("100"), orderDate));
+
+        OrderSnapshot before = orderDao.snapshot();
+        orderDao.addOrder(new Order(8, "After", tax, product, new BigDecimal("100"), orderDate));
+        orderDao.removeOrder(orderDate, 7);
+        OrderSnapshot after = orderDao.snapshot();
+
+        assertEquals(List.of(7), before.getOrders(orderDate).stream().map(Order::getOrderNumber).toList());
+        assertEquals(List.of(8), after.getOrders(orderDate).stream().map(Order::getOrderNumber).toList());
+        assertTrue(after.getVersion() > before.getVersion());
+    }
+
+    @Test
+    void testPagingReturnsSortedReadOnlySlices() {
+        LocalDate orderDate = LocalDate.of(2030, 3, 1);
+        Tax tax = taxDao.getTaxByState("TX");
+        Product product = productDao.getProductByType("Wood");
+        for (int orderNumber : new int[]{24, 21, 23, 22, 25}) {
+            orderDao.addOrder(new Order(orderNumber, "Customer", tax, product, new BigDecimal("200"), orderDate));
+        }
+
+        List<Order> byOffset = orderDao.getOrders(orderDate, 1, 2);
+        List<Order> byKey = orderDao.getOrdersAfter(orderDate, 23, 10);
+
+        assertEquals(List.of(22, 23), byOffset.stream().map(Order::getOrderNumber).toList());
+        assertEquals(List.of(24, 25), byKey.stream().map(Order::getOrderNumber).toList());
+        assertTrue(orderDao.getOrders(orderDate, 10, 5).isEmpty());
+        assertEquals(5, orderDao.countOrders(orderDate));
+        assertThrows(UnsupportedOperationException.class, () -> byKey.remove(0));
+    }
+
     @Test
     void testRemoveOrder() {
         LocalDate orderDate = LocalDate.of(2025, 6, 17);
@@ -89,6 +135,42 @@ class OrderDaoImplTest {
         assertNull(orderDao.getOrder(orderDate, 7));
     }
 
+    @Test
+    void testGetOrdersAffectedBy() {
+        LocalDate before = LocalDate.of(2030, 2, 1);
+        LocalDate after = LocalDate.of(2030, 2, 2);
+
+        orderDao.addOrder(new Order(11, "Before", taxDao.getTaxByState("TX"),
+                productDao.getProductByType("Wood"), new BigDecimal("200"), before));
+        orderDao.addOrder(new Order(12, "Texas", taxDao.getTaxByState("TX"),
+                productDao.getProductByType("Tile"), new BigDecimal("200"), after));
+        orderDao.addOrder(new Order(13, "Wood", taxDao.getTaxByState("WA"),
+                productDao.getProductByType("Wood"), new BigDecimal("200"), after));
+        orderDao.addOrder(new Order(14, "Neither", taxDao.getTaxByState("WA"),
+                productDao.getProductByType("Tile"), new BigDecimal("200"), after));
+
+        List<Order> affected = orderDao.getOrdersAffectedBy(after, "TX", "Wood");
+
+        assertEquals(List.of(12, 13), affected.stream().map(Order::getOrderNumber).toList());
+    }
+
+    @Test
+    void testFindOrderByNumberAfterSave() throws PersistenceException {
+        LocalDate orderDate = LocalDate.of(2025, 6, 18);
+        Order order = new Order(4, "Findable", taxDao.getTaxByState("KY"), productDao.getProductByType("Wood"),
+                new BigDecimal("800"), orderDate);
+        orderService.calculateOrderValues(order);
+        orderDao.addOrder(order);
+        orderDao.saveOrdersForDate(orderDate, orderDao.getAllOrders(orderDate));
+
+        OrderDaoImpl newDao = new OrderDaoImpl(new TaxDaoImpl(), new ProductDaoImpl());
+
+        assertEquals("Findable", newDao.findOrder(4).getCustomerName());
+        assertEquals(orderDate, newDao.findOrder(4).getOrderDate());
+        assertNull(newDao.findOrder(999999));
+        assertEquals(5, newDao.getNextOrderNumber());
+    }
+
     @Test
     void testSaveAndLoadOrders() throws PersistenceException {
         LocalDate orderDate = LocalDate.of(2025, 6, 18);
@@ -110,10 +192,91 @@ class OrderDaoImplTest {
         assertEquals("Ronnie", loadedOrders.get(0).getCustomerName());
     }
 
+    @Test
+    void testArchivedDaysLeaveHotSetButStayReadable() throws Exception {
+        Path archiveFolder = Paths.get("SampleFileData/Orders/Archive");
+        boolean archiveExisted = Files.exists(archiveFolder);
+        LocalDate january = LocalDate.of(2001, 1, 10);
+        LocalDate february = LocalDate.of(2001, 2, 3);
+        try {
+            for (Order order : List.of(
+                    new Order(900001, "Old January", taxDao.getTaxByState("TX"), productDao.getProductByType("Wood"),
+                            new BigDecimal("200"), january),
+                    new Order(900002, "Old February", taxDao.getTaxByState("WA"), productDao.getProductByType("Tile"),
+                            new BigDecimal("300"), february))) {
+                orderService.calculateOrderValues(order);
+                orderDao.addOrder(order);
+                orderDao.saveOrdersForDate(order.getOrderDate(), orderDao.getAllOrders(order.getOrderDate()));
+            }
+
+            assertEquals(2, orderDao.archiveDaysBefore(LocalDate.of(2002, 1, 1)));
+
+            assertFalse(Files.exists(Paths.get("SampleFileData/Orders/Orders_01102001.txt")));
+            assertTrue(Files.exists(archiveFolder.resolve("Orders_200101.zip")));
+            OrderDaoImpl restarted = new OrderDaoImpl(taxDao, productDao);
+            assertEquals("Old January", restarted.getOrder(january, 900001).getCustomerName());
+            assertEquals(1, restarted.countOrders(february));
+            assertTrue(restarted.getOrderDates().containsAll(List.of(january, february)));
+            assertEquals(900003, restarted.getNextOrderNumber());
+            assertEquals("Old February", restarted.findOrder(900002).getCustomerName());
+            assertEquals(900002, restarted.getOrdersAffectedBy(february, "WA", null).get(0).getOrderNumber());
+        } finally {
+            new File("SampleFileData/Orders/Orders_01102001.txt").delete();
+            new File("SampleFileData/Orders/Orders_02032001.txt").delete();
+            if (!archiveExisted) {
+                try (var files = Files.list(archiveFolder)) {
+                    files.forEach(file -> file.toFile().delete());
+                }
+                Files.deleteIfExists(archiveFolder);
+            }
+        }
+    }
+
+    @Test
+    void testCorruptDayFileIsQuarantinedAndTheRestStillLoads() throws Exception {
+        Path quarantineFolder = Paths.get("SampleFileData/Orders/Quarantine");
+        boolean quarantineExisted = Files.exists(quarantineFolder);
+        LocalDate truncatedDay = LocalDate.of(2002, 3, 4);
+        Path truncatedFile = Paths.get("SampleFileData/Orders/Orders_03042002.txt");
+        Path garbageFile = Paths.get("SampleFileData/Orders/Orders_03052002.txt");
+        try {
+            Order order = new Order(900101, "Truncated", taxDao.getTaxByState("TX"),
+                    productDao.getProductByType("Wood"), new BigDecimal("200"), truncatedDay);
+            orderService.calculateOrderValues(order);
+            orderDao.addOrder(order);
+            orderDao.saveOrdersForDate(truncatedDay, orderDao.getAllOrders(truncatedDay));
+            byte[] saved = Files.readAllBytes(truncatedFile);
+            Files.write(truncatedFile, Arrays.copyOf(saved, saved.length - 10)); /// Lost the end
+            Files.writeString(garbageFile, "OrderNumber,CustomerName\nnot,an,order\n"); /// No checksum, won't parse
+
+            OrderDaoImpl restarted = new OrderDaoImpl(taxDao, productDao);
+
+            assertEquals(0, restarted.countOrders(truncatedDay));
+            assertFalse(Files.exists(truncatedFile));
+            assertFalse(Files.exists(garbageFile));
+            assertEquals(1, restarted.countOrders(LocalDate.of(2013, 6, 1)), "Sample data still loads");
+            List<String> report = Files.readAllLines(quarantineFolder.resolve("report.txt"));
+            assertTrue(report.stream().anyMatch(line -> line.contains("Orders_03042002.txt")
+                    && line.contains("length")));
+            assertTrue(report.stream().anyMatch(line -> line.contains("Orders_03052002.txt")));
+        } finally {
+            Files.deleteIfExists(truncatedFile);
+            Files.deleteIfExists(garbageFile);
+            Files.deleteIfExists(Paths.get("SampleFileData/Orders/Checksums/Orders_03042002.txt.crc"));
+            if (!quarantineExisted && Files.exists(quarantineFolder)) {
+                try (var files = Files.list(quarantineFolder)) {
+                    files.forEach(file -> file.toFile().delete());
+                }
+                Files.deleteIfExists(quarantineFolder);
+            }
+        }
+    }
+
     /// Removes test file, comment out to view generated text file
     @AfterEach
     void cleanupTestFile() {
         new File("SampleFileData/Orders/Orders_06182025.txt").delete();
+        new File("SampleFileData/Orders/Checksums/Orders_06182025.txt.crc").delete();
     }
 
     /// Stretch goal test
@@ -149,4 +312,99 @@ class OrderDaoImplTest {
         /// Check the date format
         assertTrue(orderFields[12].matches("\\d{2}-\\d{2}-\\d{4}"), "Order date should be in MM-DD-YYYY format!");
     }
+
+    @Test
+    void testCancelledExportKeepsThePreviousFile() throws Exception {
+        Path exportFilePath = Paths.get("SampleFileData/Backup/DataExport.txt");
+        orderDao.exportAllData();
+        List<String> previous = Files.readAllLines(exportFilePath);
+
+        ExportJob job = new ExportJob(1);
+        job.cancel();
+        assertFalse(orderDao.exportAllData(job));
+
+        assertEquals(previous, Files.readAllLines(exportFilePath));
+        try (Stream<Path> backup = Files.list(Paths.get("SampleFileData/Backup"))) {
+            assertTrue(backup.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")), "Temp file removed");
+        }
+        assertEquals(0, job.getOrdersWritten());
+    }
+
+    @Test
+    void testExportsRunningAtOnceDoNotShareATempFile(@TempDir Path backup) throws Exception {
+        Order order = new Order(1, "Exported", taxDao.getTaxByState("TX"), productDao.getProductByType("Wood"),
+                new BigDecimal("250"), LocalDate.now().plusDays(5));
+        orderService.calculateOrderValues(order);
+
+        /// As a primary and its replica would, each in its own process
+        try (ExportFile first = new ExportFile(backup, new ExportJob(1), 1);
+             ExportFile second = new ExportFile(backup, new ExportJob(2), 0)) {
+            first.write(order);
+            second.commit();
+            first.commit();
+        }
+
+        List<String> lines = Files.readAllLines(backup.resolve(ExportFile.FILE_NAME));
+        assertEquals(2, lines.size(), "The last export to finish, whole");
+        assertEquals(OrderFileFormat.marshalForExport(order), lines.get(1));
+    }
+
+    @Test
+    void testSavingWhileAnExportIsRunning(@TempDir Path root) throws Exception {
+        Path data = Files.createDirectories(root.resolve("Data"));
+        Files.copy(Paths.get("SampleFileData/Data/Taxes.txt"), data.resolve("Taxes.txt"));
+        Files.copy(Paths.get("SampleFileData/Data/Products.txt"), data.resolve("Products.txt"));
+        OrderDaoImpl dao = new OrderDaoImpl(new TaxDaoImpl(root.toString()), new ProductDaoImpl(root.toString()),
+                OrderFileLayout.DAILY, root.toString());
+        LocalDate orderDate = LocalDate.now().plusDays(5);
+        Order first = new Order(1, "Exported", taxDao.getTaxByState("TX"), productDao.getProductByType("Wood"),
+                new BigDecimal("250"), orderDate);
+        orderService.calculateOrderValues(first);
+        dao.addOrder(first);
+        dao.saveOrdersForDate(orderDate, dao.getAllOrders(orderDate));
+
+        /// An export stuck after writing its first order
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExportJob slowJob = new ExportJob(1) {
+            @Override
+            public void written(int orders, long bytes) {
+                super.written(orders, bytes);
+                if (orders > 0) {
+                    writing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        ExecutorService exporter = Executors.newSingleThreadExecutor();
+        ExecutorService saver = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> export = exporter.submit(() -> dao.exportAllData(slowJob));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            Order second = new Order(2, "Entered During Export", first.getTax(), first.getProduct(),
+                    new BigDecimal("300"), orderDate);
+            orderService.calculateOrderValues(second);
+            dao.addOrder(second);
+            Future<?> save = saver.submit(() -> {
+                dao.saveOrdersForDate(orderDate, dao.getAllOrders(orderDate));
+                return null;
+            });
+            save.get(5, TimeUnit.SECONDS); /// Times out if the save waits for the export
+
+            release.countDown();
+            assertTrue(export.get(5, TimeUnit.SECONDS));
+            List<String> lines = Files.readAllLines(root.resolve("Backup/DataExport.txt"));
+            assertEquals(2, lines.size(), "Header and the order in the export's snapshot");
+        } finally {
+            release.countDown();
+            exporter.shutdownNow();
+            saver.shutdownNow();
+            dao.close();
+        }
+    }
 }
@@ -0,0 +1,157 @@
+package com.js.flooringmastery.dao;
+
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderSnapshot;
+import com.js.flooringmastery.exception.PersistenceException;
+import com.js.flooringmastery.service.OrderServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderDaoMappedImplTest {
+    @TempDir
+    Path folder;
+
+    private TaxDao taxDao;
+    private ProductDao productDao;
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        taxDao = new TaxDaoImpl();
+        productDao = new ProductDaoImpl();
+        orderService = new OrderServiceImpl(null, productDao, taxDao);
+    }
+
+    /// Tiny segments so a handful of orders spans several files
+    private OrderDaoMappedImpl openStore() {
+        return new OrderDaoMappedImpl(folder.toString(), taxDao, productDao, 4, 64);
+    }
+
+    private Order order(int orderNumber, String customer, String state, String product, LocalDate date) {
+        Order order = new Order(orderNumber, customer, taxDao.getTaxByState(state),
+                productDao.getProductByType(product), new BigDecimal("250"), date);
+        orderService.calculateOrderValues(order);
+        return order;
+    }
+
+    @Test
+    void testAddGetAndPage() {
+        OrderDaoMappedImpl orderDao = openStore();
+        LocalDate date = LocalDate.of(2030, 5, 1);
+        for (int orderNumber : new int[]{24, 21, 23, 22, 25}) {
+            orderDao.addOrder(order(orderNumber, "Customer " + orderNumber, "TX", "Wood", date));
+        }
+
+        Order stored = orderDao.getOrder(date, 23);
+
+        assertEquals("Customer 23", stored.getCustomerName());
+        assertEquals(new BigDecimal("250.00"), stored.getArea());
+        assertSame(taxDao.getTaxByState("TX"), stored.getTax(), "Matching rates should reuse the loaded Tax");
+        assertNull(orderDao.getOrder(date.plusDays(1), 23));
+        assertEquals(List.of(21, 22, 23, 24, 25), numbers(orderDao.getAllOrders(date)));
+        assertEquals(List.of(22, 23), numbers(orderDao.getOrders(date, 1, 2)));
+        assertEquals(List.of(24, 25), numbers(orderDao.getOrdersAfter(date, 23, 10)));
+        assertEquals(5, orderDao.countOrders(date));
+        assertEquals(26, orderDao.getNextOrderNumber());
+    }
+
+    @Test
+    void testReopenRestoresOrders() throws PersistenceException {
+        LocalDate first = LocalDate.of(2030, 5, 2);
+        LocalDate second = LocalDate.of(2030, 5, 3);
+        OrderDaoMappedImpl orderDao = openStore();
+        for (int orderNumber = 1; orderNumber <= 9; orderNumber++) {
+            orderDao.addOrder(order(orderNumber, "Customer " + orderNumber, "WA", "Tile",
+                    orderNumber % 2 == 0 ? first : second));
+        }
+        orderDao.addOrder(order(3, "Moved And Renamed", "KY", "Carpet", first));
+        orderDao.saveOrdersForDate(second, orderDao.getAllOrders(second).subList(0, 2));
+        orderDao.close();
+
+        OrderDaoMappedImpl reopened = openStore();
+
+        assertEquals(List.of(2, 3, 4, 6, 8), numbers(reopened.getAllOrders(first)));
+        assertEquals(List.of(1, 5), numbers(reopened.getAllOrders(second)));
+        assertEquals("Moved And Renamed", reopened.getOrder(first, 3).getCustomerName());
+        assertEquals("KY", reopened.getOrder(first, 3).getTax().getStateAbbreviation());
+        assertEquals(10, reopened.getNextOrderNumber(), "Removed numbers aren't reused");
+    }
+
+    @Test
+    void testReplacingAnOrderLeavesTheOldRecordWholeUntilTheNewOneIsComplete() throws Exception {
+        LocalDate date = LocalDate.of(2030, 5, 4);
+        OrderDaoMappedImpl orderDao = openStore();
+        orderDao.addOrder(order(1, "Original", "TX", "Wood", date));
+        orderDao.addOrder(order(1, "Replaced", "WA", "Tile", date));
+        orderDao.saveOrdersForDate(date, orderDao.getAllOrders(date)); /// Unchanged, appends nothing
+        orderDao.close();
+
+        /// The records as a crash before the new version's flag would leave them
+        try (RandomAccessFile records = new RandomAccessFile(folder.resolve("records-00000.dat").toFile(), "rw")) {
+            assertEquals(0, flags(records, 2), "Only the two versions were written");
+            records.seek(OrderDaoMappedImpl.FLAGS);
+            records.writeInt(1);
+            records.seek(OrderDaoMappedImpl.RECORD_SIZE + OrderDaoMappedImpl.FLAGS);
+            records.writeInt(0);
+        }
+        OrderDaoMappedImpl reopened = openStore();
+
+        assertEquals("Original", reopened.getOrder(date, 1).getCustomerName());
+        assertEquals("TX", reopened.getOrder(date, 1).getTax().getStateAbbreviation());
+    }
+
+    private static int flags(RandomAccessFile records, int slot) throws IOException {
+        records.seek((long) slot * OrderDaoMappedImpl.RECORD_SIZE + OrderDaoMappedImpl.FLAGS);
+        return records.readInt();
+    }
+
+    @Test
+    void testSnapshotKeepsWhatWasStoredWhenItWasTaken() {
+        LocalDate date = LocalDate.of(2030, 5, 5);
+        OrderDaoMappedImpl orderDao = openStore();
+        orderDao.addOrder(order(1, "First", "TX", "Wood", date));
+        orderDao.addOrder(order(2, "Second", "TX", "Wood", date));
+
+        OrderSnapshot snapshot = orderDao.snapshot();
+        orderDao.addOrder(order(1, "Renamed", "WA", "Tile", date));
+        orderDao.removeOrder(date, 2);
+        orderDao.addOrder(order(3, "Third", "TX", "Wood", date));
+
+        List<Order> orders = snapshot.getOrders(date); /// Decoded only now
+        assertEquals(List.of(1, 2), numbers(orders));
+        assertEquals("First", orders.get(0).getCustomerName());
+        assertEquals("TX", orders.get(0).getTax().getStateAbbreviation());
+        assertEquals(List.of(1, 3), numbers(orderDao.snapshot().getOrders(date)));
+        assertTrue(snapshot.getVersion() < orderDao.snapshot().getVersion());
+    }
+
+    @Test
+    void testGetOrdersAffectedBy() {
+        OrderDaoMappedImpl orderDao = openStore();
+        LocalDate before = LocalDate.of(2030, 2, 1);
+        LocalDate after = LocalDate.of(2030, 2, 2);
+        orderDao.addOrder(order(11, "Before", "TX", "Wood", before));
+        orderDao.addOrder(order(12, "Texas", "TX", "Tile", after));
+        orderDao.addOrder(order(13, "Wood", "WA", "Wood", after));
+        orderDao.addOrder(order(14, "Neither", "WA", "Tile", after));
+        orderDao.removeOrder(after, 14);
+
+        assertEquals(List.of(12, 13), numbers(orderDao.getOrdersAffectedBy(after, "TX", "Wood")));
+        assertEquals(List.of(11, 12, 13), numbers(orderDao.getOrdersAffectedBy(before, null, null)));
+        assertTrue(orderDao.getOrdersAffectedBy(before, "NY", null).isEmpty());
+    }
+
+    private static List<Integer> numbers(List<Order> orders) {
+        return orders.stream().map(Order::getOrderNumber).toList();
+    }
+}
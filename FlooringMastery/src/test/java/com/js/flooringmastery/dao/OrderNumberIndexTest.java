@@ -0,0 +1,56 @@
+package com.js.flooringmastery.dao;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderNumberIndexTest {
+    @TempDir
+    Path folder;
+
+    private static TreeMap<Integer, Long> offsets(int... numbersAndOffsets) {
+        TreeMap<Integer, Long> offsets = new TreeMap<>();
+        for (int i = 0; i < numbersAndOffsets.length; i += 2) {
+            offsets.put(numbersAndOffsets[i], (long) numbersAndOffsets[i + 1]);
+        }
+        return offsets;
+    }
+
+    @Test
+    void testAppendPatchAndRemove() throws Exception {
+        LocalDate monday = LocalDate.of(2030, 6, 3);
+        LocalDate tuesday = LocalDate.of(2030, 6, 4);
+        OrderNumberIndex index = new OrderNumberIndex(folder);
+
+        index.update(monday, offsets(1, 100, 2, 180), List.of());
+        index.update(tuesday, offsets(3, 100), List.of());
+        index.update(monday, offsets(1, 100), List.of(1, 2)); /// Order 2 removed from Monday
+
+        assertEquals(monday, index.find(1).getOrderDate());
+        assertEquals(100, index.find(3).getOffset());
+        assertNull(index.find(2));
+        assertNull(index.find(4));
+        assertEquals(3, index.lastOrderNumber());
+    }
+
+    @Test
+    void testOutOfOrderNumbersAreMergedAndSurviveReopen() throws Exception {
+        LocalDate day = LocalDate.of(2030, 6, 5);
+        OrderNumberIndex index = new OrderNumberIndex(folder);
+        index.update(day, offsets(10, 100, 30, 200), List.of());
+        index.update(day, offsets(10, 100, 20, 150, 30, 200, 5, 50), List.of());
+
+        OrderNumberIndex reopened = new OrderNumberIndex(folder);
+
+        assertEquals(4, reopened.size());
+        assertEquals(30, reopened.lastOrderNumber());
+        assertEquals(150, reopened.find(20).getOffset());
+        assertEquals(50, reopened.find(5).getOffset());
+    }
+}
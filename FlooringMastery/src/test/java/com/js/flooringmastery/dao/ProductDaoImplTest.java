@@ -38,6 +38,16 @@ class ProductDaoImplTest {
         assertEquals(new BigDecimal("4.75"), product.getLaborCostPerSquareFoot());
     }
 
+    @Test
+    void testGetProductByTypeIgnoresCase() {
+        Product product = productDao.getProductByType("wood");
+
+        assertNotNull(product, "Lookup should not depend on case");
+        assertEquals("Wood", product.getProductType());
+        assertEquals(productDao.getProductCode("Wood"), productDao.getProductCode("WOOD"));
+        assertSame(product, productDao.getProductByCode(productDao.getProductCode("wOOd")));
+    }
+
     @Test
     void testGetProductByInvalidType() {
         Product product = productDao.getProductByType("Steel");
@@ -0,0 +1,42 @@
+package com.js.flooringmastery.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateTableTest {
+    private static final LocalDate TODAY = LocalDate.of(2026, 6, 1);
+
+    @Test
+    void testAsOfLookupUsesVersionInEffect() {
+        NavigableMap<LocalDate, String> txHistory = new TreeMap<>();
+        txHistory.put(LocalDate.of(2020, 1, 1), "4.00");
+        txHistory.put(LocalDate.of(2026, 1, 1), "4.25");
+        txHistory.put(LocalDate.of(2027, 1, 1), "4.75"); /// Scheduled change
+
+        RateTable<String> table = new RateTable<>(new LookupTable<>(Map.of("TX", "4.45")),
+                Map.of("TX", txHistory), TODAY);
+
+        assertNull(table.asOf("TX", LocalDate.of(2019, 12, 31)), "No rate before the first version");
+        assertEquals("4.00", table.asOf("TX", LocalDate.of(2024, 5, 5)));
+        assertEquals("4.45", table.asOf("tx", LocalDate.of(2026, 3, 1)), "Current file replaces today's version");
+        assertEquals("4.75", table.asOf("TX", LocalDate.of(2027, 1, 1)));
+        assertEquals("4.45", table.current().get("TX"));
+    }
+
+    @Test
+    void testVersionIdsResolveToValues() {
+        RateTable<String> table = new RateTable<>(new LookupTable<>(Map.of("Wood", "5.15")), Map.of(), TODAY);
+
+        int versionId = table.versionIdAsOf("Wood", LocalDate.of(2001, 1, 1));
+
+        assertTrue(versionId >= 0, "Without history the current row applies to every date");
+        assertEquals("5.15", table.version(versionId));
+        assertEquals(-1, table.versionIdAsOf("Steel", TODAY));
+    }
+}
@@ -44,4 +44,17 @@ class TaxDaoImplTest {
 
         assertNull(tax, "Non-existent state 'ZZ' should return null");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testReloadSwapsInNewVersion() {
+        Tax before = taxDao.getTaxByState("TX");
+        long version = taxDao.getDataVersion();
+
+        assertTrue(taxDao.reload(), "Reloading an unchanged file should succeed");
+
+        assertEquals(version + 1, taxDao.getDataVersion());
+        assertTrue(taxDao.getLastReloadNanos() > 0);
+        assertNotSame(before, taxDao.getTaxByState("TX"), "Reload should swap in a freshly loaded table");
+        assertEquals(before.getTaxRate(), taxDao.getTaxByState("TX").getTaxRate());
+    }
+}
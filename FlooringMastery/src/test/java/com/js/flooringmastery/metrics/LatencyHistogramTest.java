@@ -0,0 +1,31 @@
+package com.js.flooringmastery.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverEveryValue() {
+        for (long value : new long[]{0, 7, 8, 15, 16, 1_000, 123_456_789, 1L << 62}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.lowerBoundOf(bucket) <= value, "Lower bound should not exceed " + value);
+            assertTrue(LatencyHistogram.lowerBoundOf(bucket + 1) > value, "Next bucket should start above " + value);
+        }
+    }
+
+    @Test
+    void testPercentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        assertEquals(500_000, histogram.getPercentileNanos(50), 500_000 * 0.125);
+        assertEquals(990_000, histogram.getPercentileNanos(99), 990_000 * 0.125);
+        assertEquals(500_500, histogram.getMeanNanos(), 0.001);
+    }
+}
@@ -0,0 +1,59 @@
+package com.js.flooringmastery.service;
+
+import com.js.flooringmastery.dto.DayView;
+import com.js.flooringmastery.metrics.Metrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DayViewCacheTest {
+    private static final LocalDate MONDAY = LocalDate.of(2030, 8, 5);
+    private static final LocalDate TUESDAY = LocalDate.of(2030, 8, 6);
+    private static final LocalDate WEDNESDAY = LocalDate.of(2030, 8, 7);
+
+    @Test
+    void testViewsAreReusedUntilTheirDayIsInvalidatedOrEvicted() {
+        DayViewCache cache = new DayViewCache(2);
+        AtomicInteger loads = new AtomicInteger();
+        long evictions = Metrics.counter("dayViews.evictions").sum();
+
+        DayView monday = cache.get(MONDAY, date -> load(date, loads));
+        assertSame(monday, cache.get(MONDAY, date -> load(date, loads)));
+        assertEquals(1, loads.get());
+
+        cache.get(TUESDAY, date -> load(date, loads));
+        cache.invalidate(TUESDAY);
+        assertSame(monday, cache.get(MONDAY, date -> load(date, loads)), "Only the changed day is dropped");
+        cache.get(TUESDAY, date -> load(date, loads));
+        assertEquals(3, loads.get());
+
+        cache.get(WEDNESDAY, date -> load(date, loads)); /// Monday is the least recently used
+        assertEquals(evictions + 1, Metrics.counter("dayViews.evictions").sum());
+        assertNotSame(monday, cache.get(MONDAY, date -> load(date, loads)));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testViewLoadedWhileItsDayChangedIsNotKept() {
+        DayViewCache cache = new DayViewCache(4);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(MONDAY, date -> {
+            cache.invalidate(date); /// The writer changes the day while it's being read
+            return load(date, loads);
+        });
+
+        assertEquals(0, cache.size());
+        cache.get(MONDAY, date -> load(date, loads));
+        assertEquals(1, cache.size());
+    }
+
+    private static DayView load(LocalDate date, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new DayView(date, List.of());
+    }
+}
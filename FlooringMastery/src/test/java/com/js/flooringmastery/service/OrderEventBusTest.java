@@ -0,0 +1,108 @@
+package com.js.flooringmastery.service;
+
+import com.js.flooringmastery.dao.OrderDaoImpl;
+import com.js.flooringmastery.dao.OrderFileLayout;
+import com.js.flooringmastery.dao.ProductDaoImpl;
+import com.js.flooringmastery.dao.TaxDaoImpl;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderEvent;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Tax;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventBusTest {
+    private static final LocalDate ORDER_DATE = LocalDate.now().plusDays(30);
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testBlockingSubscriberGetsEveryEventInOrder() {
+        OrderEventBus bus = new OrderEventBus(16);
+        List<Long> sequences = new CopyOnWriteArrayList<>();
+        OrderEventBus.Subscription subscription = bus.subscribe("test-block", OrderEventBus.Backpressure.BLOCK,
+                event -> sequences.add(event.getSequence()));
+
+        for (int i = 0; i < 1000; i++) {
+            bus.publish(OrderEvent.Type.CREATED, newOrder("Ann"));
+        }
+        bus.close(); /// Waits for the subscriber to finish
+
+        assertEquals(1000, sequences.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, sequences.get(i));
+        }
+        assertEquals(0, subscription.getDropped());
+        assertEquals(0, subscription.getLag());
+    }
+
+    @Test
+    void testDroppingSubscriberDoesNotHoldUpThePublisher() throws InterruptedException {
+        OrderEventBus bus = new OrderEventBus(8);
+        CountDownLatch release = new CountDownLatch(1);
+        OrderEventBus.Subscription subscription = bus.subscribe("test-drop", OrderEventBus.Backpressure.DROP,
+                event -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+
+        for (int i = 0; i < 100; i++) {
+            bus.publish(OrderEvent.Type.CREATED, newOrder("Ann")); /// Would hang if it waited for the subscriber
+        }
+        assertTrue(subscription.getLag() > 8, "Behind by more than the ring holds");
+        release.countDown();
+        bus.close();
+
+        assertTrue(subscription.getDropped() > 0);
+        assertEquals(100, subscription.getDelivered() + subscription.getDropped());
+        assertEquals(0, subscription.getLag());
+    }
+
+    @Test
+    void testServicePublishesEachChange() throws IOException {
+        Path data = Files.createDirectories(root.resolve("Data"));
+        Files.writeString(data.resolve("Taxes.txt"), "State,StateName,TaxRate\nTX,Texas,4.45\n");
+        Files.writeString(data.resolve("Products.txt"),
+                "ProductType,CostPerSquareFoot,LaborCostPerSquareFoot\nCarpet,2.25,2.10\n");
+        OrderDaoImpl orderDao = new OrderDaoImpl(new TaxDaoImpl(root.toString()),
+                new ProductDaoImpl(root.toString()), OrderFileLayout.DAILY, root.toString());
+        OrderServiceImpl service = new OrderServiceImpl(orderDao, new ProductDaoImpl(root.toString()),
+                new TaxDaoImpl(root.toString()));
+        List<OrderEvent> events = new CopyOnWriteArrayList<>();
+        service.getEvents().subscribe("test-service", OrderEventBus.Backpressure.BLOCK, events::add);
+        try {
+            Order created = service.createOrder(newOrder("Ann"));
+            service.editOrder(created, "Bob", "", "", null);
+            service.removeOrder(ORDER_DATE, created.getOrderNumber());
+        } finally {
+            service.close(); /// Closes the bus after the writer, so every event is handled
+            orderDao.close();
+        }
+
+        assertEquals(List.of(OrderEvent.Type.CREATED, OrderEvent.Type.EDITED, OrderEvent.Type.REMOVED),
+                events.stream().map(OrderEvent::getType).toList());
+        assertEquals("Ann", events.get(0).getOrder().getCustomerName());
+        assertEquals("Bob", events.get(1).getOrder().getCustomerName());
+        assertEquals(events.get(0).getOrderNumber(), events.get(2).getOrderNumber());
+    }
+
+    private static Order newOrder(String customerName) {
+        return new Order(0, customerName, new Tax("TX", "Texas", BigDecimal.ZERO),
+                new Product("Carpet", BigDecimal.ZERO, BigDecimal.ZERO), new BigDecimal("100"), ORDER_DATE);
+    }
+}
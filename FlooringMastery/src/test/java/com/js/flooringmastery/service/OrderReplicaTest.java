@@ -0,0 +1,71 @@
+package com.js.flooringmastery.service;
+
+import com.js.flooringmastery.dao.OrderDaoImpl;
+import com.js.flooringmastery.dao.OrderFileLayout;
+import com.js.flooringmastery.dao.ProductDaoImpl;
+import com.js.flooringmastery.dao.TaxDaoImpl;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.ReplicaStatus;
+import com.js.flooringmastery.dto.Tax;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderReplicaTest {
+    private static final LocalDate ORDER_DATE = LocalDate.now().plusDays(30);
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testReplicaShowsWhatThePrimarySaved() throws IOException {
+        Path data = Files.createDirectories(root.resolve("Data"));
+        Files.writeString(data.resolve("Taxes.txt"), "State,StateName,TaxRate\nTX,Texas,4.45\n");
+        Files.writeString(data.resolve("Products.txt"),
+                "ProductType,CostPerSquareFoot,LaborCostPerSquareFoot\nCarpet,2.25,2.10\n");
+
+        OrderDaoImpl replicaDao = newOrderDao();
+        OrderReplica replica = new OrderReplica(replicaDao, newService(replicaDao));
+        try {
+            assertEquals(-1, replica.getStatus().getLagMillis(), "Nothing applied yet");
+
+            OrderDaoImpl primaryDao = newOrderDao();
+            OrderServiceImpl primary = newService(primaryDao);
+            try {
+                primary.createOrder(new Order(0, "Ann", new Tax("TX", "Texas", BigDecimal.ZERO),
+                        new Product("Carpet", BigDecimal.ZERO, BigDecimal.ZERO), new BigDecimal("100"), ORDER_DATE));
+            } finally {
+                primary.close(); /// Writes the queued day
+                primaryDao.close();
+            }
+            assertFalse(replica.getStatus().isCaughtUp(), "The save is in the log, not applied yet");
+
+            replica.poll();
+            assertEquals("Ann", replica.getService().getDayView(ORDER_DATE).getOrders().get(0).getCustomerName());
+            ReplicaStatus status = replica.getStatus();
+            assertTrue(status.isCaughtUp());
+            assertEquals(1, status.getDaysApplied());
+            assertTrue(status.getLagMillis() >= 0);
+        } finally {
+            replica.close();
+            replicaDao.close();
+        }
+    }
+
+    private OrderDaoImpl newOrderDao() {
+        return new OrderDaoImpl(new TaxDaoImpl(root.toString()), new ProductDaoImpl(root.toString()),
+                OrderFileLayout.DAILY, root.toString());
+    }
+
+    private OrderServiceImpl newService(OrderDaoImpl orderDao) {
+        return new OrderServiceImpl(orderDao, new ProductDaoImpl(root.toString()), new TaxDaoImpl(root.toString()));
+    }
+}
@@ -2,19 +2,44 @@ package com.js.flooringmastery.service;
 
 import com.js.flooringmastery.dao.OrderDao;
 import com.js.flooringmastery.dao.ProductDao;
+import com.js.flooringmastery.dao.ProductDaoImpl;
+import com.js.flooringmastery.dao.ReloadableDao;
 import com.js.flooringmastery.dao.TaxDao;
+import com.js.flooringmastery.dao.TaxDaoImpl;
+import com.js.flooringmastery.dto.AuditReport;
+import com.js.flooringmastery.dto.DayView;
+import com.js.flooringmastery.dto.ExportJob;
 import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.OrderEvent;
+import com.js.flooringmastery.dto.OrderPage;
+import com.js.flooringmastery.dto.OrderSnapshot;
 import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.Quote;
+import com.js.flooringmastery.dto.QuoteRequest;
+import com.js.flooringmastery.dto.RepriceReport;
 import com.js.flooringmastery.dto.Tax;
 import com.js.flooringmastery.exception.InvalidOrderDataException;
 import com.js.flooringmastery.exception.NoSuchOrderException;
+import com.js.flooringmastery.exception.OrderNotSavedException;
+import com.js.flooringmastery.exception.PersistenceException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -37,20 +62,20 @@ class OrderServiceImplTest {
 
     @Test
     void testCreateOrder_Success() {
-        LocalDate orderDate = LocalDate.of(2025, 6, 18);
+        LocalDate orderDate = LocalDate.now().plusDays(1);
 
         Product mockProduct = new Product("Wood", new BigDecimal("5.15"), new BigDecimal("4.75"));
         Tax mockTax = new Tax("TX", "Texas", new BigDecimal("4.45"));
 
         Order order = new Order(4, "Jackie", mockTax, mockProduct, new BigDecimal("200"), orderDate);
 
-        when(taxDao.getTaxByState("TX")).thenReturn(mockTax);
-        when(productDao.getProductByType("Wood")).thenReturn(mockProduct);
+        when(taxDao.getTaxByState(eq("TX"), any())).thenReturn(mockTax);
+        when(productDao.getProductByType(eq("Wood"), any())).thenReturn(mockProduct);
 
         /// Mock getAllProducts() to return "Wood"
         when(productDao.getAllProducts()).thenReturn(List.of(mockProduct));
 
-        when(orderDao.getNextOrderNumber()).thenReturn(10);
+        when(orderDao.allocateOrderNumber()).thenReturn(10);
         Order createdOrder = orderService.createOrder(order);
 
         assertNotNull(createdOrder);
@@ -64,7 +89,7 @@ class OrderServiceImplTest {
                 new Product("Wood", new BigDecimal("5.15"), new BigDecimal("4.75")),
                 new BigDecimal("200"), LocalDate.of(2025, 6, 18));
 
-        when(taxDao.getTaxByState("ZZ")).thenReturn(null);
+        when(taxDao.getTaxByState(eq("ZZ"), any())).thenReturn(null);
 
         assertThrows(InvalidOrderDataException.class, () -> orderService.createOrder(order));
     }
@@ -75,8 +100,8 @@ class OrderServiceImplTest {
                 new Product("FakeProduct", BigDecimal.ZERO, BigDecimal.ZERO),
                 new BigDecimal("200"), LocalDate.of(2025, 6, 18));
 
-        when(taxDao.getTaxByState("TX")).thenReturn(order.getTax());
-        when(productDao.getProductByType("FakeProduct")).thenReturn(null);
+        when(taxDao.getTaxByState(eq("TX"), any())).thenReturn(order.getTax());
+        when(productDao.getProductByType(eq("FakeProduct"), any())).thenReturn(null);
 
         assertThrows(InvalidOrderDataException.class, () -> orderService.createOrder(order));
     }
@@ -95,6 +120,27 @@ class OrderServiceImplTest {
         assertEquals("Alice", retrievedOrder.getCustomerName());
     }
 
+    @Test
+    void testGetOrdersAfter_DetectsMorePages() {
+        LocalDate date = LocalDate.of(2030, 3, 2);
+        Tax tax = new Tax("TX", "Texas", new BigDecimal("4.45"));
+        Product product = new Product("Wood", new BigDecimal("5.15"), new BigDecimal("4.75"));
+        List<Order> nextThree = List.of(
+                new Order(5, "A", tax, product, new BigDecimal("200"), date),
+                new Order(6, "B", tax, product, new BigDecimal("200"), date),
+                new Order(7, "C", tax, product, new BigDecimal("200"), date));
+
+        when(orderDao.getOrdersAfter(date, 4, 3)).thenReturn(nextThree);
+        when(orderDao.countOrders(date)).thenReturn(7);
+
+        OrderPage page = orderService.getOrdersAfter(date, 4, 2);
+
+        assertEquals(2, page.getOrders().size());
+        assertTrue(page.hasMore());
+        assertEquals(6, page.getLastOrderNumber());
+        assertEquals(7, page.getTotalOrders());
+    }
+
     @Test
     void testGetOrder_NotFound() {
         LocalDate date = LocalDate.of(2025, 6, 20);
@@ -112,18 +158,68 @@ class OrderServiceImplTest {
                 new BigDecimal("120"), date);
 
         when(orderDao.getOrder(date, 3)).thenReturn(existingOrder);
-        when(taxDao.getTaxByState("KY")).thenReturn(new Tax("KY", "Kentucky", new BigDecimal("6.00")));
-        when(productDao.getProductByType("Tile")).thenReturn(new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15")));
+        when(taxDao.getTaxByState("KY", date)).thenReturn(new Tax("KY", "Kentucky", new BigDecimal("6.00")));
+        when(productDao.getProductByType("Tile", date)).thenReturn(new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15")));
 
         Order editedOrder = orderService.editOrder(existingOrder, "NewName", "KY", "Tile", new BigDecimal("140"));
 
         assertEquals("NewName", editedOrder.getCustomerName());
         assertEquals("Tile", editedOrder.getProduct().getProductType());
         assertEquals(new BigDecimal("140"), editedOrder.getArea());
+        assertEquals("OriginalName", existingOrder.getCustomerName(), "The edit is made on a copy");
+        verify(orderDao).addOrder(editedOrder);
+    }
+
+    @Test
+    void testCreateAndEditPriceAtTheRatesInEffectOnTheOrderDate(@TempDir Path root) throws Exception {
+        LocalDate change = LocalDate.now().plusDays(30);
+        Path data = Files.createDirectories(root.resolve("Data"));
+        Files.writeString(data.resolve("Taxes.txt"), "State,StateName,TaxRate\nTX,Texas,4.45\nCA,California,25.00\n");
+        Files.writeString(data.resolve("TaxHistory.txt"),
+                "State,StateName,TaxRate,EffectiveDate\nCA,California,20.00," + change + "\n"); /// Scheduled cut
+        Files.writeString(data.resolve("Products.txt"),
+                "ProductType,CostPerSquareFoot,LaborCostPerSquareFoot\nWood,5.15,4.75\n");
+        OrderServiceImpl service = new OrderServiceImpl(orderDao, new ProductDaoImpl(root.toString()),
+                new TaxDaoImpl(root.toString()));
+        when(orderDao.allocateOrderNumber()).thenReturn(1, 2);
+
+        Order before = service.createOrder(new Order(0, "Early", new Tax("ca", "", BigDecimal.ZERO),
+                new Product("wood", BigDecimal.ZERO, BigDecimal.ZERO), new BigDecimal("200"), change.minusDays(1)));
+        Order after = service.createOrder(new Order(0, "Late", new Tax("TX", "", BigDecimal.ZERO),
+                new Product("Wood", BigDecimal.ZERO, BigDecimal.ZERO), new BigDecimal("200"), change));
+        when(orderDao.getOrder(change, 2)).thenReturn(after);
+        Order edited = service.editOrder(after, "", "CA", "", null);
+
+        assertEquals(new BigDecimal("25.00"), before.getTax().getTaxRate());
+        assertEquals(new BigDecimal("20.00"), edited.getTax().getTaxRate(), "Priced at the scheduled rate");
+        when(orderDao.getOrdersAffectedBy(any(), any(), any())).thenReturn(List.of(before, edited));
+        assertTrue(service.repriceOrders(LocalDate.now(), "CA", "", true).getChanges().isEmpty(),
+                "A reprice agrees with the prices just set");
+        service.close();
+    }
+
+    @Test
+    void testEditOrder_AppliesToTheStoredOrder() {
+        LocalDate date = LocalDate.of(2025, 6, 21);
+        Tax tax = new Tax("KY", "Kentucky", new BigDecimal("6.00"));
+        Product carpet = new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10"));
+        Order read = new Order(3, "OriginalName", tax, carpet, new BigDecimal("120"), date);
+        Order storedSince = new Order(3, "RenamedMeanwhile", tax, carpet, new BigDecimal("120"), date);
+
+        when(orderDao.getOrder(date, 3)).thenReturn(storedSince);
+        Order editedOrder = orderService.editOrder(read, "", "", "", new BigDecimal("150"));
+
+        assertEquals("RenamedMeanwhile", editedOrder.getCustomerName(), "The other edit is kept");
+        assertEquals(new BigDecimal("150"), editedOrder.getArea());
+
+        when(orderDao.getOrder(date, 3)).thenReturn(null);
+        assertThrows(NoSuchOrderException.class,
+                () -> orderService.editOrder(read, "NewName", "", "", null), "A removed order isn't brought back");
+        verify(orderDao, times(1)).addOrder(any());
     }
 
     @Test
-    void testRemoveOrder() {
+    void testRemoveOrder() throws Exception {
         LocalDate date = LocalDate.of(2025, 6, 22);
         Order order = new Order(4, "Ronnie", new Tax("WA", "Washington", new BigDecimal("9.25")),
                 new Product("Laminate", new BigDecimal("1.75"), new BigDecimal("2.10")),
@@ -134,6 +230,37 @@ class OrderServiceImplTest {
         orderService.removeOrder(date, 4);
 
         verify(orderDao, times(1)).removeOrder(date, 4);
+        verify(orderDao, times(1)).saveOrdersForDate(eq(date), any());
+    }
+
+    @Test
+    void testEventsArePublishedOnceTheirDayIsSaved() throws Exception {
+        LocalDate savedDate = LocalDate.of(2030, 4, 1);
+        LocalDate failedDate = LocalDate.of(2030, 4, 2);
+        Tax tax = new Tax("WA", "Washington", new BigDecimal("9.25"));
+        Product laminate = new Product("Laminate", new BigDecimal("1.75"), new BigDecimal("2.10"));
+        Order saved = new Order(4, "Ronnie", tax, laminate, new BigDecimal("200"), savedDate);
+        Order unsaved = new Order(5, "Jackie", tax, laminate, new BigDecimal("200"), failedDate);
+        when(orderDao.getOrder(savedDate, 4)).thenReturn(saved);
+        when(orderDao.getOrder(failedDate, 5)).thenReturn(unsaved);
+        List<OrderEvent> events = new CopyOnWriteArrayList<>();
+        orderService.getEvents().subscribe("test-saved", OrderEventBus.Backpressure.BLOCK, events::add);
+
+        AtomicLong publishedAtSave = new AtomicLong(-1);
+        doAnswer(invocation -> {
+            publishedAtSave.set(orderService.getEvents().getPublished());
+            return null;
+        }).when(orderDao).saveOrdersForDate(eq(savedDate), any());
+        doThrow(new PersistenceException("Could not save orders.", new IOException("Disk full")))
+                .when(orderDao).saveOrdersForDate(eq(failedDate), any());
+        orderService.removeOrder(savedDate, 4);
+        assertThrows(OrderNotSavedException.class, () -> orderService.removeOrder(failedDate, 5));
+        orderService.close(); /// Lets the subscriber catch up
+
+        assertEquals(0, publishedAtSave.get(), "Nothing published before the day was saved");
+        assertEquals(1, events.size(), "The removal that didn't save isn't published");
+        assertEquals(OrderEvent.Type.REMOVED, events.get(0).getType());
+        assertSame(saved, events.get(0).getOrder());
     }
 
     @Test
@@ -185,4 +312,282 @@ class OrderServiceImplTest {
         assertEquals(new BigDecimal("2381.06"), order.getTotal());        // material + labor + tax
     }
 
+    @Test
+    void testRepriceOrders_DryRunDoesNotSave() throws Exception {
+        LocalDate date = LocalDate.of(2030, 1, 10);
+        Order order = new Order(8, "Ada Lovelace", new Tax("CA", "California", new BigDecimal("25.00")),
+                new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15")),
+                new BigDecimal("249.00"), date);
+        orderService.calculateOrderValues(order);
+
+        when(orderDao.getOrdersAffectedBy(date, "CA", null)).thenReturn(List.of(order));
+        when(taxDao.getTaxByState("ca")).thenReturn(order.getTax()); /// Lookups ignore case
+        when(taxDao.getTaxByState("CA", date)).thenReturn(new Tax("CA", "California", new BigDecimal("20.00")));
+        when(productDao.getProductByType("Tile", date)).thenReturn(order.getProduct());
+
+        RepriceReport report = orderService.repriceOrders(date, "ca", "", true);
+
+        assertEquals(1, report.getChanges().size());
+        assertEquals(new BigDecimal("2285.82"), report.getChanges().get(0).getNewTotal());
+        assertEquals(new BigDecimal("3.50"), report.getChanges().get(0).getOldCostPerSquareFoot());
+        assertEquals(new BigDecimal("3.50"), report.getChanges().get(0).getNewCostPerSquareFoot(), "Only the tax changed");
+        assertEquals(new BigDecimal("2381.06"), order.getTotal());
+        verify(orderDao, never()).saveOrdersForDate(any(), any());
+    }
+
+    @Test
+    void testRepriceOrders_AppliesAndSavesEachDayOnce() throws Exception {
+        LocalDate date = LocalDate.of(2030, 1, 11);
+        Tax oldTax = new Tax("CA", "California", new BigDecimal("25.00"));
+        Product tile = new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15"));
+        Order first = new Order(9, "First", oldTax, tile, new BigDecimal("249.00"), date);
+        Order second = new Order(10, "Second", oldTax, tile, new BigDecimal("300.00"), date);
+        orderService.calculateOrderValues(first);
+        orderService.calculateOrderValues(second);
+
+        when(orderDao.getOrdersAffectedBy(date, "CA", null)).thenReturn(List.of(first, second));
+        when(orderDao.getAllOrders(date)).thenReturn(List.of(first, second));
+        when(orderDao.getOrder(date, 9)).thenReturn(first);
+        when(orderDao.getOrder(date, 10)).thenReturn(new Order(second)); /// A DAO that reads a new copy
+        when(taxDao.getTaxByState("CA")).thenReturn(oldTax);
+        when(taxDao.getTaxByState("CA", date)).thenReturn(new Tax("CA", "California", new BigDecimal("20.00")));
+        when(productDao.getProductByType("Tile", date)).thenReturn(tile);
+
+        RepriceReport report = orderService.repriceOrders(date, "CA", null, false);
+
+        assertEquals(2, report.getChanges().size());
+        assertEquals(new BigDecimal("2381.06"), first.getTotal(), "Published orders are replaced, not changed");
+        verify(orderDao).addOrder(argThat(order -> order.getOrderNumber() == 9
+                && order.getTotal().equals(new BigDecimal("2285.82"))));
+        verify(orderDao, times(1)).saveOrdersForDate(eq(date), any());
+    }
+
+    @Test
+    void testRepriceOrders_RejectsUnknownFilters() {
+        when(taxDao.getTaxByState("ZZ")).thenReturn(null);
+        when(productDao.getProductByType("Marble")).thenReturn(null);
+
+        LocalDate date = LocalDate.of(2030, 1, 10);
+        assertThrows(InvalidOrderDataException.class, () -> orderService.repriceOrders(date, "ZZ", "", true));
+        assertThrows(InvalidOrderDataException.class, () -> orderService.repriceOrders(date, "", "Marble", true));
+        verify(orderDao, never()).getOrdersAffectedBy(any(), any(), any());
+    }
+
+    @Test
+    void testRepriceOrders_LeavesOrdersChangedSinceTheyWerePriced() throws Exception {
+        LocalDate date = LocalDate.of(2030, 1, 12);
+        Tax oldTax = new Tax("CA", "California", new BigDecimal("25.00"));
+        Product tile = new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15"));
+        Order removed = new Order(13, "Removed", oldTax, tile, new BigDecimal("249.00"), date);
+        Order edited = new Order(14, "Before Edit", oldTax, tile, new BigDecimal("300.00"), date);
+        orderService.calculateOrderValues(removed);
+        orderService.calculateOrderValues(edited);
+        Order editedNow = new Order(edited);
+        editedNow.setCustomerName("After Edit");
+
+        when(orderDao.getOrdersAffectedBy(date, "CA", null)).thenReturn(List.of(removed, edited));
+        when(orderDao.getOrder(date, 13)).thenReturn(null);
+        when(orderDao.getOrder(date, 14)).thenReturn(editedNow);
+        when(taxDao.getTaxByState("CA")).thenReturn(oldTax);
+        when(taxDao.getTaxByState("CA", date)).thenReturn(new Tax("CA", "California", new BigDecimal("20.00")));
+        when(productDao.getProductByType("Tile", date)).thenReturn(tile);
+
+        RepriceReport report = orderService.repriceOrders(date, "CA", null, false);
+
+        assertTrue(report.getChanges().isEmpty());
+        verify(orderDao, never()).addOrder(any());
+        verify(orderDao, never()).saveOrdersForDate(any(), any());
+    }
+
+    @Test
+    void testAuditOrders_ReportsOnlyOrdersWhoseStoredCostsAreOff() throws Exception {
+        LocalDate first = LocalDate.of(2030, 2, 1);
+        LocalDate second = LocalDate.of(2030, 2, 2);
+        Tax tax = new Tax("CA", "California", new BigDecimal("25.00"));
+        Product tile = new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15"));
+        Order consistent = new Order(11, "Consistent", tax, tile, new BigDecimal("250"), first);
+        Order editedByHand = new Order(12, "Edited", tax, tile, new BigDecimal("249.00"), second);
+        orderService.calculateOrderValues(consistent);
+        orderService.calculateOrderValues(editedByHand);
+        consistent.setTotal(new BigDecimal("2390.630")); /// Same amount at another scale
+        editedByHand.setTotal(new BigDecimal("2000.00"));
+
+        /// The second day is archived: listed by the DAO but not in the snapshot
+        when(orderDao.snapshot()).thenReturn(OrderSnapshot.of(1, Map.of(first, List.of(consistent))));
+        when(orderDao.getOrderDates()).thenReturn(new TreeSet<>(List.of(first, second)));
+        when(orderDao.getAllOrders(second)).thenReturn(List.of(editedByHand));
+
+        AuditReport report = orderService.auditOrders();
+
+        assertEquals(2, report.getOrdersScanned());
+        assertEquals(2, report.getDaysScanned());
+        assertEquals(1, report.getMismatches().size());
+        assertEquals(12, report.getMismatches().get(0).getOrderNumber());
+        assertEquals(List.of("Total"), report.getMismatches().get(0).getFields());
+        assertEquals(new BigDecimal("2381.06"), report.getMismatches().get(0).getExpectedTotal());
+        verify(orderDao, never()).saveOrdersForDate(any(), any());
+        verify(orderDao, never()).getAllOrders(first);
+    }
+
+    @Test
+    void testStartExport_RunsInTheBackgroundAndCanBeCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(orderDao.exportAllData(any(ExportJob.class))).thenAnswer(invocation -> {
+            ExportJob job = invocation.getArgument(0);
+            started.countDown();
+            while (!job.isCancelRequested()) {
+                Thread.sleep(1);
+            }
+            return false;
+        });
+
+        ExportJob job = orderService.startExport();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertSame(job, orderService.startExport(), "A running export isn't started twice");
+        assertEquals(ExportJob.Status.RUNNING, orderService.getExportJob().getStatus());
+
+        assertFalse(orderService.cancelExport(job.getId() + 1));
+        assertTrue(orderService.cancelExport(job.getId()));
+        orderService.close();
+
+        assertEquals(ExportJob.Status.CANCELLED, job.getStatus());
+        verify(orderDao, times(1)).exportAllData(any(ExportJob.class));
+    }
+
+    @Test
+    void testDayViewIsCachedUntilTheDayChanges() {
+        LocalDate date = LocalDate.of(2030, 3, 4);
+        Order order = new Order(4, "Ronnie", new Tax("WA", "Washington", new BigDecimal("9.25")),
+                new Product("Laminate", new BigDecimal("1.75"), new BigDecimal("2.10")),
+                new BigDecimal("200"), date);
+        orderService.calculateOrderValues(order);
+        when(orderDao.getAllOrders(date)).thenReturn(List.of(order));
+        when(orderDao.getOrder(date, 4)).thenReturn(order);
+
+        DayView first = orderService.getDayView(date);
+        assertSame(first, orderService.getDayView(date));
+        assertEquals(order.getTotal(), first.getTotal());
+        verify(orderDao, times(1)).getAllOrders(date);
+
+        when(orderDao.getAllOrders(date)).thenReturn(List.of());
+        orderService.removeOrder(date, 4);
+
+        assertTrue(orderService.getDayView(date).getOrders().isEmpty());
+        assertEquals(BigDecimal.ZERO, orderService.getDayView(date).getTotal());
+    }
+
+    @Test
+    void testDayViewLoadedDuringASaveThatMergesIsDropped() throws Exception {
+        LocalDate date = LocalDate.of(2030, 3, 5);
+        Tax tax = new Tax("WA", "Washington", new BigDecimal("9.25"));
+        Product laminate = new Product("Laminate", new BigDecimal("1.75"), new BigDecimal("2.10"));
+        Order ours = new Order(4, "Ronnie", tax, laminate, new BigDecimal("200"), date);
+        Order theirs = new Order(5, "From Another Process", tax, laminate, new BigDecimal("200"), date);
+        orderService.calculateOrderValues(ours);
+        orderService.calculateOrderValues(theirs);
+        when(orderDao.getOrder(date, 4)).thenReturn(ours);
+        when(orderDao.getAllOrders(date)).thenReturn(List.of(ours, theirs));
+
+        /// The save merges in the other process's order after a reader has cached the day without it
+        doAnswer(invocation -> {
+            when(orderDao.getAllOrders(date)).thenReturn(List.of(theirs));
+            assertEquals(1, orderService.getDayView(date).getOrders().size());
+            when(orderDao.getAllOrders(date)).thenReturn(List.of(ours, theirs));
+            return null;
+        }).when(orderDao).saveOrdersForDate(eq(date), any());
+        orderService.editOrder(ours, "Ronald", "", "", null);
+
+        assertEquals(2, orderService.getDayView(date).getOrders().size());
+    }
+
+    @Test
+    void testQuote_PricesLikeAnOrderWithoutTouchingOrders() {
+        Tax tax = new Tax("CA", "California", new BigDecimal("25.00"));
+        Product tile = new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15"));
+        when(taxDao.getTaxByState("CA")).thenReturn(tax);
+        when(productDao.getProductByType("Tile")).thenReturn(tile);
+
+        Quote quote = orderService.quote("CA", "Tile", new BigDecimal("249.00"));
+        List<Quote> batch = orderService.quoteBatch(List.of(
+                new QuoteRequest("CA", "Tile", new BigDecimal("249.00")),
+                new QuoteRequest("CA", "Tile", new BigDecimal("500"))));
+
+        Order order = new Order(1, "Quoted", tax, tile, new BigDecimal("249.00"), LocalDate.of(2030, 1, 1));
+        orderService.calculateOrderValues(order);
+        assertEquals(order.getTotal(), quote.getTotal());
+        assertEquals(order.getTaxAmount(), quote.getTaxAmount());
+        assertEquals(quote.getTotal(), batch.get(0).getTotal());
+        assertEquals(2, batch.size());
+        verify(taxDao, times(1)).getTaxByState("CA"); /// Looked up once, then reused
+        verifyNoInteractions(orderDao);
+    }
+
+    @Test
+    void testQuote_RejectsWhatCannotBeSoldAndRereadsReloadedRates() {
+        TaxDao reloadableTaxDao = Mockito.mock(TaxDao.class, withSettings().extraInterfaces(ReloadableDao.class));
+        OrderServiceImpl service = new OrderServiceImpl(orderDao, productDao, reloadableTaxDao);
+        Product tile = new Product("Tile", new BigDecimal("3.50"), new BigDecimal("4.15"));
+        when(productDao.getProductByType("Tile")).thenReturn(tile);
+        when(reloadableTaxDao.getTaxByState("CA")).thenReturn(new Tax("CA", "California", new BigDecimal("25.00")));
+        when(((ReloadableDao) reloadableTaxDao).getDataVersion()).thenReturn(1L);
+
+        BigDecimal before = service.quote("CA", "Tile", new BigDecimal("200")).getTotal();
+        when(reloadableTaxDao.getTaxByState("CA")).thenReturn(new Tax("CA", "California", new BigDecimal("10.00")));
+        assertEquals(before, service.quote("CA", "Tile", new BigDecimal("200")).getTotal());
+        when(((ReloadableDao) reloadableTaxDao).getDataVersion()).thenReturn(2L);
+        assertTrue(service.quote("CA", "Tile", new BigDecimal("200")).getTotal().compareTo(before) < 0);
+
+        assertThrows(InvalidOrderDataException.class, () -> service.quote("CA", "Tile", new BigDecimal("99")));
+        assertThrows(InvalidOrderDataException.class, () -> service.quote("ZZ", "Tile", new BigDecimal("200")));
+        InvalidOrderDataException e = assertThrows(InvalidOrderDataException.class, () -> service.quoteBatch(List.of(
+                new QuoteRequest("CA", "Tile", new BigDecimal("200")),
+                new QuoteRequest("CA", "Marble", new BigDecimal("200")))));
+        assertTrue(e.getMessage().startsWith("Quote 2: Invalid product"));
+    }
+
+    @Test
+    void testQuote_SpellingsOfOneStateAndProductShareTheirRates() {
+        Tax tax = new Tax("TX", "Texas", new BigDecimal("4.45"));
+        Product carpet = new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10"));
+        when(taxDao.getTaxByState(anyString())).thenReturn(tax);
+        when(productDao.getProductByType(anyString())).thenReturn(carpet);
+        RateFactors rateFactors = new RateFactors(taxDao, productDao);
+
+        RateFactors.Entry entry = rateFactors.get("tx", "carpet");
+        assertSame(entry, rateFactors.get("Tx", "CARPET"));
+        assertSame(entry, rateFactors.get("TX", "Carpet"));
+        verify(taxDao, never()).getTaxByState("TX"); /// Kept under the file's spelling, found without a lookup
+    }
+
+    @Test
+    void testQuote_LongArithmeticMatchesTheOrderPricing() {
+        Tax[] taxes = {new Tax("TX", "Texas", new BigDecimal("4.45")), new Tax("CA", "California", new BigDecimal("25.00")),
+                new Tax("KY", "Kentucky", new BigDecimal("6.0005"))};
+        Product[] products = {new Product("Carpet", new BigDecimal("2.25"), new BigDecimal("2.10")),
+                new Product("Wood", new BigDecimal("5.155"), new BigDecimal("4.7"))};
+        for (Tax tax : taxes) {
+            when(taxDao.getTaxByState(tax.getStateAbbreviation())).thenReturn(tax);
+        }
+        for (Product product : products) {
+            when(productDao.getProductByType(product.getProductType())).thenReturn(product);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            Tax tax = taxes[random.nextInt(taxes.length)];
+            Product product = products[random.nextInt(products.length)];
+            BigDecimal area = BigDecimal.valueOf(10_000 + random.nextInt(10_000_000), random.nextInt(4));
+            if (area.compareTo(BigDecimal.valueOf(100)) < 0) {
+                continue;
+            }
+            Order order = new Order(1, "Quoted", tax, product, area, LocalDate.of(2030, 1, 1));
+            orderService.calculateOrderValues(order);
+
+            Quote quote = orderService.quote(tax.getStateAbbreviation(), product.getProductType(), area);
+
+            assertEquals(order.getMaterialCost(), quote.getMaterialCost(), area.toPlainString());
+            assertEquals(order.getLaborCost(), quote.getLaborCost(), area.toPlainString());
+            assertEquals(order.getTaxAmount(), quote.getTaxAmount(), area.toPlainString());
+            assertEquals(order.getTotal(), quote.getTotal(), area.toPlainString());
+        }
+    }
 }
@@ -0,0 +1,81 @@
+package com.js.flooringmastery.service;
+
+import com.js.flooringmastery.exception.OrderNotSavedException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderWriterTest {
+
+    @Test
+    void testCommandsRunOnOneThreadAndEachDayIsSavedOncePerBatch() throws Exception {
+        List<LocalDate> saved = Collections.synchronizedList(new ArrayList<>());
+        OrderWriter writer = new OrderWriter(saved::add);
+        Set<String> writerThreads = ConcurrentHashMap.newKeySet();
+        List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+        LocalDate day = LocalDate.of(2030, 7, 1);
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int value = i;
+            results.add(callers.submit(() -> writer.submit(touchedDates -> {
+                writerThreads.add(Thread.currentThread().getName());
+                applied.add(value);
+                touchedDates.add(day);
+                return value;
+            })));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        callers.shutdown();
+        writer.close();
+
+        assertEquals(Set.of("order-writer"), writerThreads);
+        assertEquals(200, applied.size());
+        assertTrue(saved.size() <= 200 && saved.stream().allMatch(day::equals), "One save per batch");
+    }
+
+    @Test
+    void testFailingCommandThrowsToItsCallerOnly() {
+        OrderWriter writer = new OrderWriter(date -> { });
+
+        assertThrows(IllegalArgumentException.class, () -> writer.submit(touchedDates -> {
+            throw new IllegalArgumentException("bad command");
+        }));
+        assertEquals("ok", writer.submit(touchedDates -> "ok"));
+        writer.close();
+    }
+
+    @Test
+    void testCallerWhoseDayFailedToSaveGetsTheError() {
+        LocalDate failing = LocalDate.of(2030, 7, 1);
+        LocalDate fine = LocalDate.of(2030, 7, 2);
+        List<LocalDate> saved = new ArrayList<>();
+        OrderWriter writer = new OrderWriter(date -> {
+            if (date.equals(failing)) {
+                throw new OrderNotSavedException("Could not save orders.", new IOException("Disk full"));
+            }
+            saved.add(date);
+        });
+
+        OrderNotSavedException e = assertThrows(OrderNotSavedException.class, () -> writer.submit(touchedDates -> {
+            touchedDates.add(failing);
+            return "applied";
+        }));
+        assertTrue(e.getMessage().contains(failing.toString()));
+        assertEquals("ok", writer.submit(touchedDates -> {
+            touchedDates.add(fine);
+            return "ok";
+        }));
+        writer.close();
+
+        assertEquals(List.of(fine), saved);
+    }
+}
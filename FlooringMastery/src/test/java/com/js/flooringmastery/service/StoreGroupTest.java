@@ -0,0 +1,104 @@
+package com.js.flooringmastery.service;
+
+import com.js.flooringmastery.dao.OrderFileLayout;
+import com.js.flooringmastery.dto.Order;
+import com.js.flooringmastery.dto.Product;
+import com.js.flooringmastery.dto.StoreSummary;
+import com.js.flooringmastery.dto.Tax;
+import com.js.flooringmastery.metrics.Metrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoreGroupTest {
+    private static final LocalDate ORDER_DATE = LocalDate.now().plusDays(30);
+
+    @TempDir
+    Path root;
+
+    @Test
+    void testStoresAreIsolatedAndSummarizedTogether() throws IOException {
+        writeData("north", "4.45");
+        writeData("south", "10.00");
+
+        StoreGroup stores = new StoreGroup(root.toString(), " north, south ");
+        try {
+            assertEquals(List.of("north", "south"), stores.getStoreIds());
+            stores.getService("north").createOrder(newOrder("Ann"));
+            stores.getService("south").createOrder(newOrder("Bob"));
+            stores.getService("south").createOrder(newOrder("Cy"));
+            assertThrows(IllegalArgumentException.class, () -> stores.getService("east"));
+        } finally {
+            stores.close(); /// Writes the queued days
+        }
+        assertTrue(Files.list(root.resolve("Stores/north/Orders")).anyMatch(file -> file.toString().endsWith(".txt")));
+
+        StoreGroup reopened = new StoreGroup(root.toString(), List.of("north", "south"));
+        try {
+            List<StoreSummary> summaries = reopened.summarize(ORDER_DATE, ORDER_DATE);
+            StoreSummary north = summaries.get(0);
+            StoreSummary south = summaries.get(1);
+            assertEquals(1, north.getOrders());
+            assertEquals(2, south.getOrders());
+            assertEquals(0, new BigDecimal("19.36").compareTo(north.getTaxAmount()), "North's own tax rate");
+            assertEquals(0, new BigDecimal("87.00").compareTo(south.getTaxAmount()), "South's own tax rate");
+
+            StoreSummary all = StoreSummary.combine("All", summaries);
+            assertEquals(3, all.getOrders());
+            assertEquals(2, all.getDays());
+            assertEquals(north.getTotal().add(south.getTotal()), all.getTotal());
+            assertEquals(0, reopened.summarize(ORDER_DATE.plusDays(1), ORDER_DATE.plusDays(9)).get(0).getOrders());
+
+            assertEquals(2, reopened.getDayViews(ORDER_DATE).get("south").getOrders().size());
+            assertEquals(1, reopened.auditAll().get("north").getOrdersScanned());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void testStoresUseTheConfiguredBackendAndReportTheirOwnGauges() throws IOException {
+        writeData("north", "4.45");
+        writeData("south", "10.00");
+
+        StoreGroup stores = new StoreGroup(root.toString(), "north,south", "database", OrderFileLayout.DAILY);
+        try {
+            stores.getService("north").createOrder(newOrder("Ann"));
+            assertTrue(Files.exists(root.resolve("Stores/north/Database")));
+            assertFalse(Files.exists(root.resolve("Stores/north/Orders")), "No order files with the database");
+
+            List<StoreSummary> summaries = stores.summarize(LocalDate.MIN, LocalDate.MAX);
+            assertEquals(1, summaries.get(0).getOrders());
+            assertEquals(0, summaries.get(1).getOrders());
+
+            String report = Metrics.report();
+            assertTrue(report.contains("stores.north.writer.queueDepth"));
+            assertTrue(report.contains("stores.south.dayViews.size"));
+        } finally {
+            stores.close();
+        }
+        assertFalse(Metrics.report().contains("stores.north."), "Closed stores drop their gauges");
+        assertThrows(IllegalArgumentException.class,
+                () -> new StoreGroup(root.toString(), "north", "cloud", OrderFileLayout.DAILY));
+    }
+
+    private void writeData(String storeId, String texasRate) throws IOException {
+        Path data = Files.createDirectories(root.resolve("Stores").resolve(storeId).resolve("Data"));
+        Files.writeString(data.resolve("Taxes.txt"), "State,StateName,TaxRate\nTX,Texas," + texasRate + "\n");
+        Files.writeString(data.resolve("Products.txt"),
+                "ProductType,CostPerSquareFoot,LaborCostPerSquareFoot\nCarpet,2.25,2.10\n");
+    }
+
+    private static Order newOrder(String customerName) {
+        return new Order(0, customerName, new Tax("TX", "Texas", BigDecimal.ZERO),
+                new Product("Carpet", BigDecimal.ZERO, BigDecimal.ZERO), new BigDecimal("100"), ORDER_DATE);
+    }
+}